@@ -0,0 +1,31 @@
+package marblesolitaure.model.driver;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks of this module and writes the results to bench-results.json, so that
+ * runs before and after a change can be compared. Any JMH command line options are passed on,
+ * for example "-p type=english -p size=7" to run one board, or "ModelBenchmark" to run one
+ * class.
+ */
+public final class Benchmarks {
+  /**
+   * Runs the benchmarks.
+   * @param args - JMH command line options.
+   * @throws CommandLineOptionException if the options cannot be read.
+   * @throws RunnerException if a benchmark fails.
+   */
+  public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+    CommandLineOptions options = new CommandLineOptions(args);
+    new Runner(new OptionsBuilder()
+            .parent(options)
+            .resultFormat(ResultFormatType.JSON)
+            .result("bench-results.json")
+            .build()).run();
+  }
+}
@@ -0,0 +1,84 @@
+package marblesolitaure.model.driver;
+
+import marblesolitaure.controller.FlushPolicy;
+import marblesolitaure.controller.MarbleSolitaireControllerImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of a whole game played through the controller: reading the scripted moves,
+ * making them, and drawing the board and score after each one. Output is counted and thrown
+ * away, so only the controller and model are measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ControllerBenchmark {
+  @Param({"english", "european", "triangular"})
+  public String type;
+
+  @Param({"3", "5", "7"})
+  public int size;
+
+  private String input;
+
+  /**
+   * Writes out the moves of the game.
+   */
+  @Setup
+  public void setUp() {
+    input = GameScript.commands(GameScript.randomGame(SolitaireFactory.createModel(type, size)));
+  }
+
+  /**
+   * Plays the game from start to end.
+   * @return - a long, the number of characters written.
+   */
+  @Benchmark
+  public long playGame() {
+    CountingAppendable out = new CountingAppendable();
+    new MarbleSolitaireControllerImpl(new StringReader(input), out, FlushPolicy.ON_EXIT)
+            .playGame(SolitaireFactory.createModel(type, size));
+    return out.count;
+  }
+
+  /**
+   * An Appendable that only counts what is written to it.
+   */
+  private static final class CountingAppendable implements Appendable {
+    private long count;
+
+    @Override
+    public Appendable append(CharSequence csq) {
+      count += csq.length();
+      return this;
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) {
+      count += end - start;
+      return this;
+    }
+
+    @Override
+    public Appendable append(char c) {
+      count++;
+      return this;
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package marblesolitaure.model.driver;
+
+import marblesolitaure.model.MarbleSolitaireModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of starting a new game. The board geometry is built by the first game of each
+ * type and size and shared after that, so this measures the cost of every later game.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FactoryBenchmark {
+  @Param({"english", "european", "triangular"})
+  public String type;
+
+  @Param({"3", "5", "7"})
+  public int size;
+
+  /**
+   * Makes a new game.
+   * @return - the model.
+   */
+  @Benchmark
+  public MarbleSolitaireModel createModel() {
+    return SolitaireFactory.createModel(type, size);
+  }
+}
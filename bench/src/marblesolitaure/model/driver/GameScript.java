@@ -0,0 +1,72 @@
+package marblesolitaure.model.driver;
+
+import marblesolitaure.model.MarbleSolitaireModel;
+import marblesolitaure.model.MoveGenerator;
+import marblesolitaure.model.PackedMove;
+import marblesolitaure.model.Undoable;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The scripted games the benchmarks play. A script is a whole game of random legal moves,
+ * made from a fixed seed so that every run of a benchmark plays the same game.
+ */
+final class GameScript {
+  /**
+   * The seed every script is made from.
+   */
+  static final long SEED = 16;
+
+  private GameScript() {
+  }
+
+  /**
+   * Plays random legal moves until the game is over, then takes them all back.
+   * @param model - a new game, which is left as it was.
+   * @return - the packed moves of the game.
+   */
+  static int[] randomGame(MarbleSolitaireModel model) {
+    Random random = new Random(SEED);
+    int[] moves = new int[256];
+    int[] script = new int[16];
+    int length = 0;
+    for (int count = ((MoveGenerator) model).legalMoves(moves); count > 0;
+         count = ((MoveGenerator) model).legalMoves(moves)) {
+      if (length == script.length) {
+        script = Arrays.copyOf(script, length * 2);
+      }
+      script[length] = moves[random.nextInt(count)];
+      PackedMove.apply(model, script[length++]);
+    }
+    rewind(model);
+    return Arrays.copyOf(script, length);
+  }
+
+  /**
+   * Takes back every move of a game.
+   * @param model - the game.
+   */
+  static void rewind(MarbleSolitaireModel model) {
+    Undoable undoable = (Undoable) model;
+    while (undoable.canUndo()) {
+      undoable.undo();
+    }
+  }
+
+  /**
+   * Writes moves the way a player types them into the controller: four 1-based numbers each.
+   * @param script - the packed moves.
+   * @return - a string, the controller's input.
+   */
+  static String commands(int[] script) {
+    StringBuilder input = new StringBuilder();
+    for (int move : script) {
+      input.append(PackedMove.fromRow(move) + 1).append(' ')
+              .append(PackedMove.fromCol(move) + 1).append(' ')
+              .append(PackedMove.toRow(move) + 1).append(' ')
+              .append(PackedMove.toCol(move) + 1).append('\n');
+    }
+    return input.append("q\n").toString();
+  }
+}
@@ -0,0 +1,87 @@
+package marblesolitaure.model.driver;
+
+import marblesolitaure.controller.ControllerMetrics;
+import marblesolitaure.controller.LatencyHistogram;
+import marblesolitaure.controller.TurnPhase;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A load test of GameServer, using socket clients in the same JVM. It opens many sessions at
+ * once and leaves them idle, reports the memory they hold, then has every client play a short
+ * game and quit, and reports the turn times the server recorded. Each session takes two file
+ * descriptors here, one for each end, so the open file limit must allow for twice the
+ * sessions.
+ */
+public final class GameServerLoad {
+  /**
+   * Runs the load test.
+   * @param args - optionally the number of sessions; the default is 10000.
+   * @throws Exception if a connection fails.
+   */
+  public static void main(String[] args) throws Exception {
+    int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+    byte[] moves = "2 4 4 4\n5 4 3 4\nq\n".getBytes(StandardCharsets.US_ASCII);
+    ControllerMetrics metrics = new ControllerMetrics();
+    try (GameServer server = new GameServer(0, metrics)) {
+      server.start();
+      long heapBefore = usedHeap();
+      long start = System.nanoTime();
+      List<Socket> clients = new ArrayList<>(sessions);
+      for (int i = 0; i < sessions; i++) {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+        socket.getOutputStream().write("english\n".getBytes(StandardCharsets.US_ASCII));
+        clients.add(socket);
+      }
+      while (server.getOpenSessions() < sessions) {
+        Thread.sleep(10);
+      }
+      System.out.printf("%d idle sessions on %s threads in %d ms, about %d KB of heap each%n",
+              sessions, server.usesVirtualThreads() ? "virtual" : "platform",
+              (System.nanoTime() - start) / 1000000,
+              Math.max(0, usedHeap() - heapBefore) / 1024 / sessions);
+
+      start = System.nanoTime();
+      for (Socket socket : clients) {
+        OutputStream out = socket.getOutputStream();
+        out.write(moves);
+        out.flush();
+      }
+      byte[] block = new byte[4096];
+      for (Socket socket : clients) {
+        InputStream in = socket.getInputStream();
+        while (in.read(block) >= 0) {
+          // Read the transcript to the end.
+        }
+        socket.close();
+      }
+      System.out.printf("%d games played in %d ms%n", sessions,
+              (System.nanoTime() - start) / 1000000);
+    } catch (IOException e) {
+      System.out.println("Load test failed: " + e.getMessage());
+      return;
+    }
+
+    ControllerMetrics.Snapshot snapshot = metrics.snapshot();
+    System.out.printf("moves %d, quits %d%n", snapshot.getMovesApplied(), snapshot.getQuits());
+    for (TurnPhase phase : TurnPhase.values()) {
+      LatencyHistogram.Snapshot latency = snapshot.getLatency(phase);
+      System.out.printf("%-9s count %7d  mean %9.0f ns  p50 %9d ns  p99 %9d ns%n", phase,
+              latency.getCount(), latency.getMean(), latency.getPercentile(50),
+              latency.getPercentile(99));
+    }
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    System.gc();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
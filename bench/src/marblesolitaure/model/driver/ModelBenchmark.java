@@ -0,0 +1,113 @@
+package marblesolitaure.model.driver;
+
+import marblesolitaure.model.PackedMove;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the model operations the controller makes on every turn. The benchmark lives
+ * in the driver package so that it can call checkValidMove, which the models keep protected.
+ *
+ * <p>The queries are asked of a game halfway through its script, so they see the same cached
+ * counts and rows the controller sees between moves. The move benchmark plays the script one
+ * move per call; when the script runs out, the game is taken back to the start with undo,
+ * which is counted in the call that does it but spread over the whole game.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ModelBenchmark {
+  @Param({"english", "european", "triangular"})
+  public String type;
+
+  @Param({"3", "5", "7"})
+  public int size;
+
+  private AbstractMarbleSolitaire playing;
+  private AbstractMarbleSolitaire halfway;
+  private int[] script;
+  private int next;
+  private int probe;
+
+  /**
+   * Makes the games and the script they play.
+   */
+  @Setup
+  public void setUp() {
+    playing = (AbstractMarbleSolitaire) SolitaireFactory.createModel(type, size);
+    script = GameScript.randomGame(playing);
+    halfway = (AbstractMarbleSolitaire) SolitaireFactory.createModel(type, size);
+    for (int i = 0; i < script.length / 2; i++) {
+      PackedMove.apply(halfway, script[i]);
+    }
+    halfway.getGameState();
+  }
+
+  /**
+   * Makes the next move of the script.
+   * @return - an int, the number of the move made.
+   */
+  @Benchmark
+  public int move() {
+    if (next == script.length) {
+      GameScript.rewind(playing);
+      next = 0;
+    }
+    PackedMove.apply(playing, script[next]);
+    return next++;
+  }
+
+  /**
+   * Checks one of the script's moves against the game halfway through; moves already made
+   * are no longer valid, the rest may or may not be.
+   * @return - a boolean, whether the move is valid.
+   */
+  @Benchmark
+  public boolean checkValidMove() {
+    int move = script[probe];
+    probe = probe + 1 == script.length ? 0 : probe + 1;
+    return halfway.checkValidMove(PackedMove.fromRow(move), PackedMove.fromCol(move),
+            PackedMove.toRow(move), PackedMove.toCol(move));
+  }
+
+  /**
+   * Asks whether the game halfway through is over.
+   * @return - a boolean, whether the game is over.
+   */
+  @Benchmark
+  public boolean isGameOver() {
+    return halfway.isGameOver();
+  }
+
+  /**
+   * Asks the score of the game halfway through.
+   * @return - an int, the score.
+   */
+  @Benchmark
+  public int getScore() {
+    return halfway.getScore();
+  }
+
+  /**
+   * Draws the game halfway through.
+   * @return - a string, the game state.
+   */
+  @Benchmark
+  public String getGameState() {
+    return halfway.getGameState();
+  }
+}
@@ -0,0 +1,233 @@
+package marblesolitaure.controller;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+
+/**
+ * Splits the controller's input into tokens without regular expressions or per token strings.
+ * Tokens are separated by whitespace, as with a Scanner, and each is one of: a whole number
+ * that fits in an int, with an optional sign; a lone q or Q; anything else; or the end of the
+ * input. Input is read in blocks into one reusable buffer, either from a Readable (a Reader,
+ * a CharBuffer...) or from a blocking ReadableByteChannel, whose bytes are read as ASCII.
+ */
+public final class CommandTokenizer {
+  /**
+   * A whole number, whose value is given by intValue().
+   */
+  public static final int INT = 0;
+
+  /**
+   * A q or Q on its own, asking to quit.
+   */
+  public static final int QUIT = 1;
+
+  /**
+   * Any other token.
+   */
+  public static final int OTHER = 2;
+
+  /**
+   * The end of the input.
+   */
+  public static final int EOF = 3;
+
+  private static final int BLOCK_SIZE = 8192;
+
+  private final Readable readable;
+  private final ReadableByteChannel channel;
+  private final char[] chars = new char[BLOCK_SIZE];
+  private final CharBuffer charBuffer = CharBuffer.wrap(chars);
+  private final ByteBuffer byteBuffer;
+  private int position;
+  private int limit;
+  private boolean ended;
+  private int value;
+  private boolean timed;
+  private long readNanos;
+
+  /**
+   * Makes a tokenizer that reads characters.
+   * @param readable - where to read the input from.
+   * @throws IllegalArgumentException if the readable is null.
+   */
+  public CommandTokenizer(Readable readable) throws IllegalArgumentException {
+    if (readable == null) {
+      throw new IllegalArgumentException("Readable not found.");
+    }
+    this.readable = readable;
+    this.channel = null;
+    this.byteBuffer = null;
+  }
+
+  /**
+   * Makes a tokenizer that reads bytes.
+   * @param channel - where to read the input from, which must block until there is input.
+   * @throws IllegalArgumentException if the channel is null or in non-blocking mode.
+   */
+  public CommandTokenizer(ReadableByteChannel channel) throws IllegalArgumentException {
+    checkBlocking(channel);
+    this.readable = null;
+    this.channel = channel;
+    this.byteBuffer = ByteBuffer.allocate(BLOCK_SIZE);
+  }
+
+  /**
+   * Checks that a channel can be read from without polling: a channel in non-blocking mode
+   * reads nothing until input arrives, and waiting on it would spin the processor.
+   * @param channel - the channel to check.
+   * @throws IllegalArgumentException if the channel is null or in non-blocking mode.
+   */
+  static void checkBlocking(ReadableByteChannel channel) throws IllegalArgumentException {
+    if (channel == null) {
+      throw new IllegalArgumentException("Channel not found.");
+    }
+    if (channel instanceof SelectableChannel && !((SelectableChannel) channel).isBlocking()) {
+      throw new IllegalArgumentException("Channel is in non-blocking mode.");
+    }
+  }
+
+  /**
+   * Reads the next token.
+   * @return - an int, one of INT, QUIT, OTHER or EOF.
+   * @throws IllegalStateException if the input cannot be read.
+   */
+  public int next() throws IllegalStateException {
+    int c = skipWhitespace();
+    if (c < 0) {
+      return EOF;
+    }
+
+    // The first character decides what the token can be; the rest of the token is read
+    // whatever it turns out to be, so that a bad token is skipped whole.
+    boolean negative = c == '-';
+    boolean quit = c == 'q' || c == 'Q';
+    boolean number = negative || c == '+' || isDigit(c);
+    boolean digits = isDigit(c);
+    long total = digits ? c - '0' : 0;
+    int length = 1;
+    for (c = read(); c >= 0 && !Character.isWhitespace(c); c = read()) {
+      length++;
+      if (number && isDigit(c)) {
+        digits = true;
+        total = total * 10 + (c - '0');
+        if (total > (long) Integer.MAX_VALUE + 1) {
+          number = false;
+        }
+      } else {
+        number = false;
+      }
+    }
+
+    if (quit && length == 1) {
+      return QUIT;
+    }
+    if (number && digits && (negative || total <= Integer.MAX_VALUE)) {
+      value = (int) (negative ? -total : total);
+      return INT;
+    }
+    return OTHER;
+  }
+
+  /**
+   * Starts timing how long the tokenizer spends reading blocks of input, which is mostly
+   * time spent waiting for input to arrive.
+   */
+  void timeReads() {
+    timed = true;
+  }
+
+  /**
+   * The time spent reading blocks of input since timeReads() was called.
+   * @return - a long, the time in nanoseconds.
+   */
+  long getReadNanos() {
+    return readNanos;
+  }
+
+  /**
+   * The value of the last token read, if it was a number.
+   * @return - an int, the number.
+   */
+  public int intValue() {
+    return value;
+  }
+
+  private static boolean isDigit(int c) {
+    return c >= '0' && c <= '9';
+  }
+
+  /**
+   * Skips whitespace.
+   * @return - an int, the first character that is not whitespace, or -1 at the end of input.
+   */
+  private int skipWhitespace() {
+    int c = read();
+    while (c >= 0 && Character.isWhitespace(c)) {
+      c = read();
+    }
+    return c;
+  }
+
+  /**
+   * Reads one character, reading the next block of input when the buffer runs out.
+   * @return - an int, the character, or -1 at the end of input.
+   * @throws IllegalStateException if the input cannot be read.
+   */
+  private int read() throws IllegalStateException {
+    if (position == limit && !fill()) {
+      return -1;
+    }
+    return chars[position++];
+  }
+
+  /**
+   * Reads the next block of input into the buffer.
+   * @return - true if at least one character was read, false at the end of input.
+   * @throws IllegalStateException if the input cannot be read, or the channel has been put
+   *         in non-blocking mode since.
+   */
+  private boolean fill() throws IllegalStateException {
+    if (ended) {
+      return false;
+    }
+    long start = timed ? System.nanoTime() : 0;
+    try {
+      int count;
+      do {
+        if (channel != null) {
+          byteBuffer.clear();
+          count = channel.read(byteBuffer);
+          if (count == 0) {
+            // Only a non-blocking channel reads nothing into an empty buffer.
+            throw new IllegalStateException("Channel is in non-blocking mode.");
+          }
+          for (int i = 0; i < count; i++) {
+            chars[i] = (char) (byteBuffer.get(i) & 0xFF);
+          }
+        } else {
+          charBuffer.clear();
+          count = readable.read(charBuffer);
+          if (count == 0) {
+            Thread.yield();
+          }
+        }
+      } while (count == 0);
+      if (count < 0) {
+        ended = true;
+        return false;
+      }
+      position = 0;
+      limit = count;
+      return true;
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to read input!");
+    } finally {
+      if (timed) {
+        readNanos += System.nanoTime() - start;
+      }
+    }
+  }
+}
@@ -0,0 +1,227 @@
+package marblesolitaure.controller;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counts what happens in the games played by the controllers given this object, and how
+ * long each part of a turn takes. One ControllerMetrics can be shared by any number of
+ * controllers playing at once: counters are LongAdders and times go into lock-free
+ * LatencyHistograms, so recording never blocks a game. The numbers can be polled with
+ * snapshot(), or published through JMX with register().
+ */
+public final class ControllerMetrics implements ControllerMetricsMXBean {
+  private final LongAdder movesApplied = new LongAdder();
+  private final LongAdder invalidMoves = new LongAdder();
+  private final LongAdder parseErrors = new LongAdder();
+  private final LongAdder quits = new LongAdder();
+  private final LongAdder gameOvers = new LongAdder();
+  private final LatencyHistogram[] latencies = new LatencyHistogram[TurnPhase.values().length];
+
+  /**
+   * Makes metrics with nothing counted yet.
+   */
+  public ControllerMetrics() {
+    for (int i = 0; i < latencies.length; i++) {
+      latencies[i] = new LatencyHistogram();
+    }
+  }
+
+  void moveApplied() {
+    movesApplied.increment();
+  }
+
+  void invalidMove() {
+    invalidMoves.increment();
+  }
+
+  void parseError() {
+    parseErrors.increment();
+  }
+
+  void quit() {
+    quits.increment();
+  }
+
+  void gameOver() {
+    gameOvers.increment();
+  }
+
+  /**
+   * Records how long one phase of a turn took.
+   * @param phase - the phase.
+   * @param nanos - long - the time it took, in nanoseconds.
+   */
+  void record(TurnPhase phase, long nanos) {
+    latencies[phase.ordinal()].record(nanos);
+  }
+
+  /**
+   * Copies every counter and histogram. The copy is not taken at one instant: games played
+   * while it is made may be partly in it.
+   * @return - the copy.
+   */
+  public Snapshot snapshot() {
+    Map<TurnPhase, LatencyHistogram.Snapshot> copies = new EnumMap<>(TurnPhase.class);
+    for (TurnPhase phase : TurnPhase.values()) {
+      copies.put(phase, latencies[phase.ordinal()].snapshot());
+    }
+    return new Snapshot(movesApplied.sum(), invalidMoves.sum(), parseErrors.sum(), quits.sum(),
+            gameOvers.sum(), copies);
+  }
+
+  /**
+   * Publishes these metrics in the platform MBean server.
+   * @param name - a string, which game server or session these metrics belong to.
+   * @return - the name they were published under.
+   * @throws IllegalStateException if they cannot be published, for example because the name
+   *         is already taken.
+   */
+  public ObjectName register(String name) throws IllegalStateException {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      ObjectName objectName = new ObjectName("marblesolitaure:type=ControllerMetrics,name="
+              + ObjectName.quote(name));
+      server.registerMBean(this, objectName);
+      return objectName;
+    } catch (JMException e) {
+      throw new IllegalStateException("Unable to register metrics " + name + ".", e);
+    }
+  }
+
+  @Override
+  public long getMovesApplied() {
+    return movesApplied.sum();
+  }
+
+  @Override
+  public long getInvalidMoves() {
+    return invalidMoves.sum();
+  }
+
+  @Override
+  public long getParseErrors() {
+    return parseErrors.sum();
+  }
+
+  @Override
+  public long getQuits() {
+    return quits.sum();
+  }
+
+  @Override
+  public long getGameOvers() {
+    return gameOvers.sum();
+  }
+
+  @Override
+  public Map<String, Long> getCounts() {
+    return byPhase(LatencyHistogram.Snapshot::getCount);
+  }
+
+  @Override
+  public Map<String, Double> getMeanNanos() {
+    return byPhase(LatencyHistogram.Snapshot::getMean);
+  }
+
+  @Override
+  public Map<String, Long> getMedianNanos() {
+    return byPhase(latency -> latency.getPercentile(50));
+  }
+
+  @Override
+  public Map<String, Long> getP99Nanos() {
+    return byPhase(latency -> latency.getPercentile(99));
+  }
+
+  @Override
+  public Map<String, Long> getMaxNanos() {
+    return byPhase(LatencyHistogram.Snapshot::getMax);
+  }
+
+  /**
+   * Works out one statistic of the times of every phase.
+   * @param statistic - what to work out from the times of one phase.
+   * @return - the statistic of each phase, keyed by its name, in the order of the phases.
+   */
+  private <T> Map<String, T> byPhase(Function<LatencyHistogram.Snapshot, T> statistic) {
+    Map<String, T> values = new LinkedHashMap<>();
+    for (TurnPhase phase : TurnPhase.values()) {
+      values.put(phase.name(), statistic.apply(latencies[phase.ordinal()].snapshot()));
+    }
+    return values;
+  }
+
+  /**
+   * The counters and times of a ControllerMetrics up to some moment.
+   */
+  public static final class Snapshot {
+    private final long movesApplied;
+    private final long invalidMoves;
+    private final long parseErrors;
+    private final long quits;
+    private final long gameOvers;
+    private final Map<TurnPhase, LatencyHistogram.Snapshot> latencies;
+
+    private Snapshot(long movesApplied, long invalidMoves, long parseErrors, long quits,
+                     long gameOvers, Map<TurnPhase, LatencyHistogram.Snapshot> latencies) {
+      this.movesApplied = movesApplied;
+      this.invalidMoves = invalidMoves;
+      this.parseErrors = parseErrors;
+      this.quits = quits;
+      this.gameOvers = gameOvers;
+      this.latencies = latencies;
+    }
+
+    /**
+     * @return - a long, the number of moves the model accepted.
+     */
+    public long getMovesApplied() {
+      return movesApplied;
+    }
+
+    /**
+     * @return - a long, the number of moves the model refused.
+     */
+    public long getInvalidMoves() {
+      return invalidMoves;
+    }
+
+    /**
+     * @return - a long, the number of tokens that were not a positive number or q.
+     */
+    public long getParseErrors() {
+      return parseErrors;
+    }
+
+    /**
+     * @return - a long, the number of games the player quit.
+     */
+    public long getQuits() {
+      return quits;
+    }
+
+    /**
+     * @return - a long, the number of games that ended because no move was left.
+     */
+    public long getGameOvers() {
+      return gameOvers;
+    }
+
+    /**
+     * The times recorded for one phase of a turn.
+     * @param phase - the phase.
+     * @return - the times.
+     */
+    public LatencyHistogram.Snapshot getLatency(TurnPhase phase) {
+      return latencies.get(phase);
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package marblesolitaure.controller;
+
+import java.util.Map;
+
+/**
+ * The view of a ControllerMetrics that is published through JMX. Times are keyed by the
+ * name of their TurnPhase.
+ */
+public interface ControllerMetricsMXBean {
+  /**
+   * @return - a long, the number of moves the model accepted.
+   */
+  long getMovesApplied();
+
+  /**
+   * @return - a long, the number of moves the model refused.
+   */
+  long getInvalidMoves();
+
+  /**
+   * @return - a long, the number of tokens that were not a positive number or q.
+   */
+  long getParseErrors();
+
+  /**
+   * @return - a long, the number of games the player quit.
+   */
+  long getQuits();
+
+  /**
+   * @return - a long, the number of games that ended because no move was left.
+   */
+  long getGameOvers();
+
+  /**
+   * @return - the number of times recorded for each phase.
+   */
+  Map<String, Long> getCounts();
+
+  /**
+   * @return - the mean time of each phase, in nanoseconds.
+   */
+  Map<String, Double> getMeanNanos();
+
+  /**
+   * @return - the median time of each phase, in nanoseconds.
+   */
+  Map<String, Long> getMedianNanos();
+
+  /**
+   * @return - the 99th percentile time of each phase, in nanoseconds.
+   */
+  Map<String, Long> getP99Nanos();
+
+  /**
+   * @return - the longest time of each phase, in nanoseconds.
+   */
+  Map<String, Long> getMaxNanos();
+}
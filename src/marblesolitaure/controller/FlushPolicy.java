@@ -0,0 +1,24 @@
+package marblesolitaure.controller;
+
+/**
+ * When a controller writing through a buffered sink hands what it has buffered on to its
+ * Appendable, and flushes the Appendable if it can be flushed.
+ */
+public enum FlushPolicy {
+  /**
+   * After every board printed, so an interactive player sees each board as soon as it is
+   * ready.
+   */
+  PER_MOVE,
+
+  /**
+   * Whenever the buffer fills up, and when the game ends. Suited to scripted games where only
+   * the whole transcript matters.
+   */
+  PER_BATCH,
+
+  /**
+   * Only when the game ends, whether it is won, lost, quit or runs out of input.
+   */
+  ON_EXIT
+}
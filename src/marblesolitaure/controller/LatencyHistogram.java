@@ -0,0 +1,151 @@
+package marblesolitaure.controller;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of times in nanoseconds that any number of threads can record into without
+ * locking. Times under 16ns get a bucket each; above that, every power of two is split into
+ * 16 buckets, so a bucket is never wider than 1/16 of the times in it, much like an
+ * HdrHistogram with one significant digit. Times over about 19 hours are counted as 19 hours.
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BITS = 4;
+  private static final int SUB_COUNT = 1 << SUB_BITS;
+  private static final int MAX_SHIFT = 41;
+  private static final int BUCKET_COUNT = SUB_COUNT + (MAX_SHIFT + 1) * SUB_COUNT;
+
+  /**
+   * The longest time kept exactly as it is; longer times are recorded as this.
+   */
+  public static final long MAX_VALUE = ((long) SUB_COUNT << (MAX_SHIFT + 1)) - 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+  private final LongAdder total = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  /**
+   * Records one time.
+   * @param nanos - long - the time in nanoseconds; negative times are recorded as 0.
+   */
+  public void record(long nanos) {
+    long value = Math.max(0, Math.min(nanos, MAX_VALUE));
+    counts.incrementAndGet(bucketOf(value));
+    total.add(value);
+    max.accumulate(value);
+  }
+
+  /**
+   * Copies what has been recorded so far. Times recorded while the copy is made may or may
+   * not be in it.
+   * @return - the copy.
+   */
+  public Snapshot snapshot() {
+    long[] copy = new long[BUCKET_COUNT];
+    long count = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      copy[i] = counts.get(i);
+      count += copy[i];
+    }
+    return new Snapshot(copy, count, total.sum(), max.get());
+  }
+
+  /**
+   * Finds the bucket a time falls in.
+   * @param value - long - a time between 0 and MAX_VALUE.
+   * @return - an int, the number of the bucket.
+   */
+  static int bucketOf(long value) {
+    if (value < SUB_COUNT) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+    return SUB_COUNT + shift * SUB_COUNT + (int) (value >>> shift) - SUB_COUNT;
+  }
+
+  /**
+   * The longest time that falls in a bucket.
+   * @param bucket - int - the number of the bucket.
+   * @return - a long, the time.
+   */
+  static long highestIn(int bucket) {
+    if (bucket < SUB_COUNT) {
+      return bucket;
+    }
+    int shift = (bucket - SUB_COUNT) / SUB_COUNT;
+    long sub = SUB_COUNT + (bucket - SUB_COUNT) % SUB_COUNT;
+    return ((sub + 1) << shift) - 1;
+  }
+
+  /**
+   * The times recorded in a histogram up to some moment.
+   */
+  public static final class Snapshot {
+    private final long[] counts;
+    private final long count;
+    private final long total;
+    private final long max;
+
+    private Snapshot(long[] counts, long count, long total, long max) {
+      this.counts = counts;
+      this.count = count;
+      this.total = total;
+      this.max = max;
+    }
+
+    /**
+     * The number of times recorded.
+     * @return - a long, the count.
+     */
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * The sum of the times recorded.
+     * @return - a long, the total in nanoseconds.
+     */
+    public long getTotal() {
+      return total;
+    }
+
+    /**
+     * The mean of the times recorded.
+     * @return - a double, the mean in nanoseconds, or 0 if nothing was recorded.
+     */
+    public double getMean() {
+      return count == 0 ? 0 : (double) total / count;
+    }
+
+    /**
+     * The longest time recorded.
+     * @return - a long, the time in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long getMax() {
+      return max;
+    }
+
+    /**
+     * A time that the given share of the recorded times are no longer than, to within the
+     * width of a bucket.
+     * @param percentile - double - the share, from 0 to 100.
+     * @return - a long, the time in nanoseconds, or 0 if nothing was recorded.
+     * @throws IllegalArgumentException if the share is not between 0 and 100.
+     */
+    public long getPercentile(double percentile) throws IllegalArgumentException {
+      if (!(percentile >= 0 && percentile <= 100)) {
+        throw new IllegalArgumentException("Invalid percentile " + percentile + ".");
+      }
+      long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return Math.min(highestIn(i), max);
+        }
+      }
+      return 0;
+    }
+  }
+}
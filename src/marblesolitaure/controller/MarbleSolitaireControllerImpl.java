@@ -1,9 +1,11 @@
 package marblesolitaure.controller;
 
+import marblesolitaure.model.GameStateRenderer;
 import marblesolitaure.model.MarbleSolitaireModel;
 
+import java.io.Flushable;
 import java.io.IOException;
-import java.util.Scanner;
+import java.nio.channels.ReadableByteChannel;
 
 /**
  * This interface represents the controller for one game of marble solitaire. It takes
@@ -12,9 +14,25 @@ import java.util.Scanner;
  * the user winning or losing the game as well as quitting of their own volition.
  */
 public class MarbleSolitaireControllerImpl implements MarbleSolitaireController {
+  // How many characters a PER_BATCH controller buffers before writing them out. Other
+  // controllers start with a small buffer that grows to fit one board, so that thousands of
+  // idle sessions do not each hold a whole batch.
+  private static final int BATCH_SIZE = 8192;
+
   public final Readable rd;
   public final Appendable ap;
 
+  // Null for the original output mode, which appends each board to ap and then echoes all
+  // of ap to System.out. Otherwise everything is written once, through the buffer.
+  private final FlushPolicy flushPolicy;
+  private final StringBuilder buffer;
+
+  // When not null, commands are read as bytes straight from this channel rather than from rd.
+  private final ReadableByteChannel channel;
+
+  // When not null, where to count what happens and time each part of every turn.
+  private final ControllerMetrics metrics;
+
   /**
    * A constructor for the implementation class for marble solitaire. Takes in a readable and
    * appendable object.
@@ -29,20 +47,208 @@ public class MarbleSolitaireControllerImpl implements MarbleSolitaireController
     }
     this.rd = rd;
     this.ap = ap;
+    this.flushPolicy = null;
+    this.buffer = null;
+    this.channel = null;
+    this.metrics = null;
   }
 
   /**
-   * Prints out the current game state.
-   * @param model the current model to be printed as a string.
+   * A constructor for a controller that writes every board, message and prompt to the
+   * appendable exactly once, through a buffer, and never echoes it to System.out. The buffer
+   * is handed on to the appendable, which is then flushed if it is Flushable, as often as the
+   * flush policy says.
+   *
+   * @param rd - a readable object. A stringReader, usually.
+   * @param ap - an appendable object, such as System.out or a Writer.
+   * @param flushPolicy - when to write the buffer out.
+   * @throws IllegalArgumentException if readable, appendable or flush policy is null.
    */
-  private void printGameState(MarbleSolitaireModel model) {
+  public MarbleSolitaireControllerImpl(Readable rd, Appendable ap, FlushPolicy flushPolicy)
+          throws IllegalArgumentException {
+    this(rd, ap, flushPolicy, null);
+  }
+
+  /**
+   * A constructor for a buffered controller, as above, that also records its games in
+   * metrics which may be shared with other controllers.
+   *
+   * @param rd - a readable object. A stringReader, usually.
+   * @param ap - an appendable object, such as System.out or a Writer.
+   * @param flushPolicy - when to write the buffer out.
+   * @param metrics - where to count moves and time turns, or null to record nothing.
+   * @throws IllegalArgumentException if readable, appendable or flush policy is null.
+   */
+  public MarbleSolitaireControllerImpl(Readable rd, Appendable ap, FlushPolicy flushPolicy,
+                                       ControllerMetrics metrics)
+          throws IllegalArgumentException {
+    if (rd == null || ap == null || flushPolicy == null) {
+      throw new IllegalArgumentException("Readable, Appendable or FlushPolicy not found.");
+    }
+    this.rd = rd;
+    this.ap = ap;
+    this.flushPolicy = flushPolicy;
+    this.buffer = new StringBuilder(flushPolicy == FlushPolicy.PER_BATCH ? BATCH_SIZE : 256);
+    this.channel = null;
+    this.metrics = metrics;
+  }
+
+  /**
+   * A constructor for a buffered controller, as above, that reads its commands as ASCII bytes
+   * straight from a channel, such as a FileChannel over a recorded game. Its readable rd is
+   * null.
+   *
+   * @param in - a blocking channel to read commands from.
+   * @param ap - an appendable object, such as System.out or a Writer.
+   * @param flushPolicy - when to write the buffer out.
+   * @throws IllegalArgumentException if channel, appendable or flush policy is null, or the
+   *         channel is in non-blocking mode.
+   */
+  public MarbleSolitaireControllerImpl(ReadableByteChannel in, Appendable ap,
+                                       FlushPolicy flushPolicy) throws IllegalArgumentException {
+    this(in, ap, flushPolicy, null);
+  }
+
+  /**
+   * A constructor for a buffered controller reading from a channel, as above, that also
+   * records its games in metrics which may be shared with other controllers.
+   *
+   * @param in - a blocking channel to read commands from.
+   * @param ap - an appendable object, such as System.out or a Writer.
+   * @param flushPolicy - when to write the buffer out.
+   * @param metrics - where to count moves and time turns, or null to record nothing.
+   * @throws IllegalArgumentException if channel, appendable or flush policy is null, or the
+   *         channel is in non-blocking mode.
+   */
+  public MarbleSolitaireControllerImpl(ReadableByteChannel in, Appendable ap,
+                                       FlushPolicy flushPolicy, ControllerMetrics metrics)
+          throws IllegalArgumentException {
+    if (in == null || ap == null || flushPolicy == null) {
+      throw new IllegalArgumentException("Channel, Appendable or FlushPolicy not found.");
+    }
+    CommandTokenizer.checkBlocking(in);
+    this.rd = null;
+    this.ap = ap;
+    this.flushPolicy = flushPolicy;
+    this.buffer = new StringBuilder(flushPolicy == FlushPolicy.PER_BATCH ? BATCH_SIZE : 256);
+    this.channel = in;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Reads the clock, if there are metrics to time turns with.
+   * @return - a long, the time in nanoseconds, or 0 without metrics.
+   */
+  private long clock() {
+    return metrics == null ? 0 : System.nanoTime();
+  }
+
+  /**
+   * Records how long a phase took, if there are metrics.
+   * @param phase - the phase.
+   * @param start - long - the clock when the phase started.
+   * @return - a long, the clock now.
+   */
+  private long lap(TurnPhase phase, long start) {
+    if (metrics == null) {
+      return 0;
+    }
+    long now = System.nanoTime();
+    metrics.record(phase, now - start);
+    return now;
+  }
+
+  /**
+   * Shows the player a prompt about input that could not be read as part of a move.
+   * @param message - the prompt.
+   */
+  private void parseError(String message) {
+    if (metrics != null) {
+      metrics.parseError();
+    }
+    prompt(message);
+  }
+
+  /**
+   * Ends one printed board: echoes the whole appendable in the original mode, and writes the
+   * buffer out if the flush policy is per move.
+   */
+  private void endFrame() {
+    if (flushPolicy == null) {
+      System.out.print(this.ap);
+    } else if (flushPolicy == FlushPolicy.PER_MOVE) {
+      flushBuffer();
+    }
+  }
+
+  /**
+   * Shows the player a prompt. The original mode prints prompts to System.out only.
+   * @param message - the prompt.
+   */
+  private void prompt(String message) {
+    if (flushPolicy == null) {
+      System.out.print(message);
+      return;
+    }
+    buffer.append(message);
+    if (flushPolicy == FlushPolicy.PER_BATCH && buffer.length() >= BATCH_SIZE) {
+      flushBuffer();
+    }
+  }
+
+  /**
+   * Hands everything buffered on to the appendable and flushes the appendable if it can be.
+   */
+  private void flushBuffer() {
+    if (buffer == null) {
+      return;
+    }
     try {
-      this.ap.append(model.getGameState() + "\n"
-              + String.format("Score: %d\n", model.getScore()));
+      if (buffer.length() > 0) {
+        this.ap.append(buffer);
+        buffer.setLength(0);
+      }
+      if (this.ap instanceof Flushable) {
+        ((Flushable) this.ap).flush();
+      }
     } catch (IOException e) {
       throw new IllegalStateException("Unable to write to appendable!");
     }
-    System.out.print(this.ap);
+  }
+
+  /**
+   * Writes a heading, the board and the score. Models that can render their game state write
+   * it straight into the output rather than building a string for it.
+   * @param heading - the text to write before the board.
+   * @param model the current model to be printed.
+   */
+  private void writeFrame(String heading, MarbleSolitaireModel model) {
+    long start = clock();
+    Appendable out = flushPolicy == null ? this.ap : buffer;
+    try {
+      out.append(heading);
+      if (model instanceof GameStateRenderer) {
+        ((GameStateRenderer) model).renderGameState(out);
+      } else {
+        out.append(model.getGameState());
+      }
+      out.append("\nScore: ").append(Integer.toString(model.getScore())).append('\n');
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to write to appendable!");
+    }
+    if (flushPolicy == FlushPolicy.PER_BATCH && buffer.length() >= BATCH_SIZE) {
+      flushBuffer();
+    }
+    endFrame();
+    lap(TurnPhase.RENDER, start);
+  }
+
+  /**
+   * Prints out the current game state.
+   * @param model the current model to be printed as a string.
+   */
+  private void printGameState(MarbleSolitaireModel model) {
+    writeFrame("", model);
   }
 
   /**
@@ -51,15 +257,10 @@ public class MarbleSolitaireControllerImpl implements MarbleSolitaireController
    * @param model the current model to quit.
    */
   private void quitGame(MarbleSolitaireModel model) {
-    try {
-      this.ap.append("Game quit!\n"
-              + "State of game when quit:\n"
-              + model.getGameState() + "\n"
-              + String.format("Score: %d\n", model.getScore()));
-    } catch (IOException e) {
-      throw new IllegalStateException("Unable to write to appendable!");
+    if (metrics != null) {
+      metrics.quit();
     }
-    System.out.print(this.ap);
+    writeFrame("Game quit!\nState of game when quit:\n", model);
   }
 
   /**
@@ -68,14 +269,10 @@ public class MarbleSolitaireControllerImpl implements MarbleSolitaireController
    * @param model the current model to be checked.
    */
   private void gameOver(MarbleSolitaireModel model) {
-    try {
-      this.ap.append("Game over!\n"
-              + model.getGameState() + "\n"
-              + String.format("Score: %d\n", model.getScore()));
-    } catch (IOException e) {
-      throw new IllegalStateException("Unable to write to appendable!");
+    if (metrics != null) {
+      metrics.gameOver();
     }
-    System.out.print(this.ap);
+    writeFrame("Game over!\n", model);
   }
 
   /**
@@ -97,33 +294,55 @@ public class MarbleSolitaireControllerImpl implements MarbleSolitaireController
       throw new IllegalArgumentException("No board model was found.");
     }
 
+    try {
+      play(model);
+    } finally {
+      flushBuffer();
+    }
+  }
+
+  /**
+   * Plays turns until the game is over, quit or runs out of input.
+   * @param model -  an instance of the marble solitaire model.
+   * @throws IllegalStateException when unable to write to the appendable,
+   *         or readable runs out of input.
+   */
+  private void play(MarbleSolitaireModel model) throws IllegalStateException {
     int fromRow = 0;
     int fromCol = 0;
     int toRow = 0;
     int toCol = 0;
-    Scanner input = new Scanner(this.rd);
+    CommandTokenizer input = channel != null
+            ? new CommandTokenizer(channel) : new CommandTokenizer(this.rd);
+    if (metrics != null) {
+      input.timeReads();
+    }
 
     /* make this into a list perhaps ?? This works but seems like it could be streamlined.
     / Loop turns of the game until game exits by user typing 'q', or losing or
     / winning the game.
     */
     while (true) {
+      long turnStart = clock();
       printGameState(model);
+      long phaseStart = clock();
+      long waited = input.getReadNanos();
 
       // Read in four integers for four required positions for a move.
       // Will prompt the user for whatever input is invalid.
       // Always looking for a q if the user wants to quit.
       int i = 0;
       while (i < 4) {
-        if (!input.hasNext()) {
+        int token = input.next();
+        if (token == CommandTokenizer.EOF) {
           throw new IllegalStateException("No more data to read. Please give more input.");
-        } else if (input.hasNext("q") || input.hasNext("Q")) {
+        } else if (token == CommandTokenizer.QUIT) {
           quitGame(model);
           return;
-        } else if (input.hasNextInt()) {
-          int num = input.nextInt();
+        } else if (token == CommandTokenizer.INT) {
+          int num = input.intValue();
           if (num < 1) {
-            System.out.print("Please enter a positive integer for board position.\n");
+            parseError("Please enter a positive integer for board position.\n");
           } else if (i == 0) {
             fromRow = num - 1;
             i++;
@@ -138,29 +357,43 @@ public class MarbleSolitaireControllerImpl implements MarbleSolitaireController
             i++;
           }
         } else if (i == 0) {
-          System.out.print("Please enter a valid source row.\n");
-          input.next();
+          parseError("Please enter a valid source row.\n");
         } else if (i == 1) {
-          System.out.print("Please enter a valid source column.\n");
-          input.next();
+          parseError("Please enter a valid source column.\n");
         } else if (i == 2) {
-          System.out.print("Please enter a valid destination row.\n");
-          input.next();
+          parseError("Please enter a valid destination row.\n");
         } else if (i == 3) {
-          System.out.print("Please enter a valid destination column.\n");
-          input.next();
+          parseError("Please enter a valid destination column.\n");
         }
       }
+      // Time spent blocked on the input counts as waiting rather than parsing, and is left out
+      // of the turn.
+      waited = input.getReadNanos() - waited;
+      phaseStart = lap(TurnPhase.PARSE, phaseStart + waited);
+      if (metrics != null) {
+        metrics.record(TurnPhase.INPUT_WAIT, waited);
+      }
+
       // After data input and checking, attempt to make the move. If move is
       // invalid, all four data will be forgotten.
       try {
         model.move(fromRow, fromCol, toRow, toCol);
+        if (metrics != null) {
+          metrics.moveApplied();
+        }
       } catch (IllegalArgumentException e) {
-        System.out.print("Invalid move. Play again.\n");
+        if (metrics != null) {
+          metrics.invalidMove();
+        }
+        prompt("Invalid move. Play again.\n");
       }
+      phaseStart = lap(TurnPhase.MOVE, phaseStart);
 
       // Check after each move if game is over. If yes, print message, score, and game state.
-      if (model.isGameOver()) {
+      boolean over = model.isGameOver();
+      lap(TurnPhase.GAME_OVER, phaseStart);
+      lap(TurnPhase.TURN, turnStart + waited);
+      if (over) {
         gameOver(model);
         return;
       }
@@ -0,0 +1,38 @@
+package marblesolitaure.controller;
+
+/**
+ * The parts of a turn whose time a controller records in its ControllerMetrics.
+ */
+public enum TurnPhase {
+  /**
+   * Reading and checking the four numbers of a move, not counting the time spent waiting for
+   * the player to type them.
+   */
+  PARSE,
+
+  /**
+   * Waiting for the input of a move to arrive, as part of reading it.
+   */
+  INPUT_WAIT,
+
+  /**
+   * Asking the model to make the move, whether or not it is valid.
+   */
+  MOVE,
+
+  /**
+   * Asking the model whether the game is over.
+   */
+  GAME_OVER,
+
+  /**
+   * Writing a board and its score.
+   */
+  RENDER,
+
+  /**
+   * A whole turn, from drawing the board to checking whether the game is over, not counting
+   * the time spent waiting for input.
+   */
+  TURN
+}
@@ -0,0 +1,19 @@
+package marblesolitaure.model;
+
+import java.io.IOException;
+
+/**
+ * An optional interface for marble solitaire models that can write their game state straight
+ * into a caller's Appendable, such as a StringBuilder, a Writer or a CharBuffer, in one pass
+ * and without building any strings along the way.
+ */
+public interface GameStateRenderer {
+  /**
+   * Writes the state of the current board, exactly as getGameState returns it: rows separated
+   * by newlines with no newline after the last, spaces separated by single spaces, and no
+   * spaces at the end of a row.
+   * @param out - where to write the board.
+   * @throws IOException if the appendable cannot be written to.
+   */
+  void renderGameState(Appendable out) throws IOException;
+}
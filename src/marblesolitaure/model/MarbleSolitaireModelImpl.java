@@ -1,6 +1,7 @@
 package marblesolitaure.model;
 
 import marblesolitaure.model.driver.AbstractMarbleSolitaire;
+import marblesolitaure.model.driver.SolitaireFactory;
 
 /**
  * The implementation of the Marble Solitaire game board. Extends the abstract class
@@ -9,26 +10,14 @@ import marblesolitaure.model.driver.AbstractMarbleSolitaire;
 public class MarbleSolitaireModelImpl extends AbstractMarbleSolitaire {
 
   /**
-   * A helper method that builds a new board, an array of ISpaces with the
-   * parameters below.
+   * A helper method that builds a new board, an array of ISpaces in the shape of the
+   * english board geometry with the arm thickness below.
    *
    * @param armThickness - int - the thickness of each arm.
-   * @param sideLength - int - the length of the side of the board.
    * @return - a 2D array of ISpace objects
    */
-  private ISpace[][] generateNewBoard(int armThickness, int sideLength) {
-    this.board = new ISpace[sideLength][sideLength];
-    for (int i = 0; i < sideLength; i++) {
-      for (int j = 0; j < sideLength; j++) {
-        if ((i < armThickness - 1 || i > sideLength - armThickness)
-                && (j < armThickness - 1 || j > sideLength - armThickness)) {
-          this.board[i][j] = new InvalidSpace();
-        } else {
-          this.board[i][j] = new ValidSpace(false);
-        }
-      }
-    }
-    return board;
+  private ISpace[][] generateNewBoard(int armThickness) {
+    return generateBoard(SolitaireFactory.getGeometry("english", armThickness));
   }
 
   /**
@@ -39,7 +28,7 @@ public class MarbleSolitaireModelImpl extends AbstractMarbleSolitaire {
     sideLength = 3 * armThickness - 2;
     int center = sideLength / 2;
 
-    this.board = generateNewBoard(armThickness, sideLength);
+    this.board = generateNewBoard(armThickness);
 
     this.board[center][center].toggleIsEmpty();
   }
@@ -57,7 +46,7 @@ public class MarbleSolitaireModelImpl extends AbstractMarbleSolitaire {
     armThickness = 3;
     sideLength = 3 * armThickness - 2;
 
-    this.board = generateNewBoard(armThickness, sideLength);
+    this.board = generateNewBoard(armThickness);
 
     if (isOutsideBounds(sRow, sCol) || !board[sRow][sCol].isValid()) {
       throw new IllegalArgumentException("Invalid empty cell position ("
@@ -82,7 +71,7 @@ public class MarbleSolitaireModelImpl extends AbstractMarbleSolitaire {
     sideLength = 3 * armThickness - 2;
     int center = sideLength / 2;
 
-    board = generateNewBoard(armThickness, sideLength);
+    board = generateNewBoard(armThickness);
 
     board[center][center].toggleIsEmpty();
   }
@@ -105,7 +94,7 @@ public class MarbleSolitaireModelImpl extends AbstractMarbleSolitaire {
     }
     sideLength = 3 * armThickness - 2;
 
-    board = generateNewBoard(armThickness, sideLength);
+    board = generateNewBoard(armThickness);
 
     if (isOutsideBounds(sRow, sCol) || board[sRow][sCol].isEmpty()) {
       throw new IllegalArgumentException("Invalid empty cell position ("
@@ -0,0 +1,20 @@
+package marblesolitaure.model;
+
+/**
+ * An optional interface for marble solitaire models that can list the moves that are
+ * possible right now, so callers do not have to try moves and catch exceptions. Listing moves
+ * allocates nothing.
+ */
+public interface MoveGenerator {
+  /**
+   * Writes every move that can be made right now into a buffer, packed as described in
+   * PackedMove. If the buffer is too short, it is filled and the moves that do not fit are
+   * left out, but still counted.
+   * @param moves - an int array to write the packed moves into.
+   * @return - an int, the number of moves that can be made, which may be more than the length
+   *         of the buffer.
+   * @throws IllegalArgumentException if the board has PackedMove.MAX_SPACES rows or columns
+   *         or more, so that its moves cannot be packed.
+   */
+  int legalMoves(int[] moves) throws IllegalArgumentException;
+}
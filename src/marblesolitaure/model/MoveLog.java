@@ -0,0 +1,117 @@
+package marblesolitaure.model;
+
+import java.util.Arrays;
+
+/**
+ * The moves made in a game, one packed int per move as described in PackedMove, kept in a
+ * growable int array. Moves that have been undone stay in the log until a new move is made, so
+ * they can be redone.
+ */
+public final class MoveLog {
+  private int[] moves = new int[16];
+  private int size;
+  private int limit;
+
+  /**
+   * Records a new move. Any undone moves can no longer be redone.
+   * @param move - int - the packed move.
+   */
+  public void push(int move) {
+    if (size == moves.length) {
+      moves = Arrays.copyOf(moves, size * 2);
+    }
+    moves[size++] = move;
+    limit = size;
+  }
+
+  /**
+   * Takes the last move made off the log.
+   * @return - an int, the packed move to take back.
+   * @throws IllegalStateException if no moves have been made.
+   */
+  public int undo() throws IllegalStateException {
+    if (size == 0) {
+      throw new IllegalStateException("There is no move to undo.");
+    }
+    return moves[--size];
+  }
+
+  /**
+   * Puts the last move undone back on the log.
+   * @return - an int, the packed move to make again.
+   * @throws IllegalStateException if no moves have been undone since the last new move.
+   */
+  public int redo() throws IllegalStateException {
+    if (size == limit) {
+      throw new IllegalStateException("There is no move to redo.");
+    }
+    return moves[size++];
+  }
+
+  /**
+   * Checks whether there is a move to undo.
+   * @return - true if at least one move has been made and not undone.
+   */
+  public boolean canUndo() {
+    return size > 0;
+  }
+
+  /**
+   * Checks whether there is a move to redo.
+   * @return - true if a move has been undone since the last new move.
+   */
+  public boolean canRedo() {
+    return size < limit;
+  }
+
+  /**
+   * The number of moves made and not undone.
+   * @return - an int, the length of the log.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * The number of moves undone that can still be redone.
+   * @return - an int, the number of moves redo can make.
+   */
+  public int undoneSize() {
+    return limit - size;
+  }
+
+  /**
+   * One of the moves undone that can still be redone.
+   * @param index - int - 0 for the move the next redo makes, 1 for the one after, and so on.
+   * @return - an int, the packed move.
+   * @throws IndexOutOfBoundsException if the index is not below undoneSize().
+   */
+  public int getUndone(int index) throws IndexOutOfBoundsException {
+    if (index < 0 || index >= limit - size) {
+      throw new IndexOutOfBoundsException("No undone move " + index + " in a log of "
+              + (limit - size) + ".");
+    }
+    return moves[size + index];
+  }
+
+  /**
+   * Forgets every move, made or undone.
+   */
+  public void clear() {
+    size = 0;
+    limit = 0;
+  }
+
+  /**
+   * One move of the log.
+   * @param index - int - the number of the move, 0 being the first move of the game.
+   * @return - an int, the packed move.
+   * @throws IndexOutOfBoundsException if the index is not below size().
+   */
+  public int get(int index) throws IndexOutOfBoundsException {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("No move " + index + " in a log of " + size + ".");
+    }
+    return moves[index];
+  }
+}
@@ -0,0 +1,92 @@
+package marblesolitaure.model;
+
+/**
+ * Helpers for moves packed into a single int, as written by a MoveGenerator. A packed move
+ * holds the row and column of the space the marble moves from, and the direction of the jump
+ * as a step of -1, 0 or +1 in rows and in columns. Rows and columns must be below 8192.
+ * Packed moves are never negative, and two moves are equal exactly when their packed ints
+ * are equal.
+ */
+public final class PackedMove {
+  /**
+   * The number of rows and columns a packed move can reach. Boards with this many rows or
+   * columns or more have moves that cannot be packed.
+   */
+  public static final int MAX_SPACES = 1 << 13;
+
+  private static final int ROW_SHIFT = 17;
+  private static final int COL_SHIFT = 4;
+  private static final int MASK = MAX_SPACES - 1;
+
+  private PackedMove() {
+  }
+
+  /**
+   * Packs a move into an int.
+   * @param fromRow the row number of the position to be moved from (starts at 0)
+   * @param fromCol the column number of the position to be moved from (starts at 0)
+   * @param toRow the row number of the position to be moved to (starts at 0)
+   * @param toCol the column number of the position to be moved to (starts at 0)
+   * @return - the packed move.
+   */
+  public static int pack(int fromRow, int fromCol, int toRow, int toCol) {
+    return (fromRow << ROW_SHIFT) | (fromCol << COL_SHIFT)
+            | (((toRow - fromRow) / 2 + 1) << 2) | ((toCol - fromCol) / 2 + 1);
+  }
+
+  /**
+   * The row a packed move starts from.
+   * @param move - int - a packed move.
+   * @return - an int, the row.
+   */
+  public static int fromRow(int move) {
+    return (move >>> ROW_SHIFT) & MASK;
+  }
+
+  /**
+   * The column a packed move starts from.
+   * @param move - int - a packed move.
+   * @return - an int, the column.
+   */
+  public static int fromCol(int move) {
+    return (move >>> COL_SHIFT) & MASK;
+  }
+
+  /**
+   * The row a packed move ends on.
+   * @param move - int - a packed move.
+   * @return - an int, the row.
+   */
+  public static int toRow(int move) {
+    return fromRow(move) + 2 * (((move >>> 2) & 3) - 1);
+  }
+
+  /**
+   * The column a packed move ends on.
+   * @param move - int - a packed move.
+   * @return - an int, the column.
+   */
+  public static int toCol(int move) {
+    return fromCol(move) + 2 * ((move & 3) - 1);
+  }
+
+  /**
+   * Makes a packed move on a model.
+   * @param model - the game to move in.
+   * @param move - int - a packed move.
+   * @throws IllegalArgumentException if the move is not possible.
+   */
+  public static void apply(MarbleSolitaireModel model, int move) throws IllegalArgumentException {
+    model.move(fromRow(move), fromCol(move), toRow(move), toCol(move));
+  }
+
+  /**
+   * Returns a packed move in a readable form, 1-based like the moves a user types in.
+   * @param move - int - a packed move.
+   * @return - a String, the four positions of the move separated by spaces.
+   */
+  public static String toString(int move) {
+    return (fromRow(move) + 1) + " " + (fromCol(move) + 1) + " "
+            + (toRow(move) + 1) + " " + (toCol(move) + 1);
+  }
+}
@@ -0,0 +1,32 @@
+package marblesolitaure.model;
+
+/**
+ * An optional interface for marble solitaire models that can take moves back and make them
+ * again. Taking a move back puts the three spaces it changed back in place, so undoing and
+ * redoing a move costs about as much as making it.
+ */
+public interface Undoable {
+  /**
+   * Takes back the last move made.
+   * @throws IllegalStateException if no moves have been made.
+   */
+  void undo() throws IllegalStateException;
+
+  /**
+   * Makes the last move taken back again. Making a new move forgets every move taken back.
+   * @throws IllegalStateException if no moves have been taken back since the last new move.
+   */
+  void redo() throws IllegalStateException;
+
+  /**
+   * Checks whether there is a move to take back.
+   * @return - true if undo() can be called.
+   */
+  boolean canUndo();
+
+  /**
+   * Checks whether there is a move to make again.
+   * @return - true if redo() can be called.
+   */
+  boolean canRedo();
+}
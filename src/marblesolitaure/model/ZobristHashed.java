@@ -0,0 +1,31 @@
+package marblesolitaure.model;
+
+/**
+ * An optional interface for marble solitaire models that keep a 64-bit hash of their
+ * position. The hash is the XOR of the key of every space holding a marble, so a move updates
+ * it with three XORs rather than rehashing the board, and two games on boards of the same type
+ * and size have equal hashes exactly when their marbles (almost certainly) match, however the
+ * positions were reached and whichever model holds them.
+ */
+public interface ZobristHashed {
+  /**
+   * The hash of the current position.
+   * @return - a long, the XOR of ZobristHashed.key of every space with a marble.
+   */
+  long positionHash();
+
+  /**
+   * The random key of a space. Keys depend only on the row and column of the space, so every
+   * model and every run gives the same space the same key.
+   * @param row - int - the row of the space.
+   * @param col - int - the column of the space.
+   * @return - a long, the key of the space.
+   */
+  static long key(int row, int col) {
+    // One step of SplitMix64 from a seed made of the row and column.
+    long z = ((long) row << 32 | (col & 0xFFFFFFFFL)) * 0x9E3779B97F4A7C15L + 0x5DEECE66DL;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -1,17 +1,93 @@
 package marblesolitaure.model.driver;
 
+import marblesolitaure.model.GameStateRenderer;
 import marblesolitaure.model.ISpace;
+import marblesolitaure.model.InvalidSpace;
 import marblesolitaure.model.MarbleSolitaireModel;
+import marblesolitaure.model.MoveGenerator;
+import marblesolitaure.model.MoveLog;
+import marblesolitaure.model.PackedMove;
+import marblesolitaure.model.Undoable;
+import marblesolitaure.model.ValidSpace;
+import marblesolitaure.model.ZobristHashed;
+
+import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * An abstract class representing the methods and their implementations
  * that are common to all games (so far) of marble solitaire.
  */
-public abstract class AbstractMarbleSolitaire implements MarbleSolitaireModel {
+public abstract class AbstractMarbleSolitaire implements MarbleSolitaireModel, MoveGenerator,
+        BoardPosition, ZobristHashed, Undoable, GameStateRenderer {
   protected ISpace[][] board;
   protected int armThickness;
   protected int sideLength;
 
+  // The shape of the board, shared with every other game of the same type and size, and the
+  // valid spaces of the board again, indexed by their number in the geometry.
+  protected BoardGeometry geometry;
+  protected ISpace[] spaces;
+
+  // Live counts of the marbles and the available moves on the board, and the position hash.
+  // They are counted from scratch the first time they are needed (the constructors set up the
+  // board directly) and are then only updated around the spaces each move changes.
+  private boolean counted;
+  private int marbleCount;
+  private int moveCount;
+  private long hash;
+
+  // Every move made, so moves can be taken back and made again.
+  private final MoveLog log = new MoveLog();
+
+  // The rendered text of each row of the board, padding included, or null for a row whose
+  // spaces have changed since it was last rendered. Made on the first render.
+  private String[] rowText;
+
+  /**
+   * A helper method that builds a new board, an array of ISpaces, in the shape of a board
+   * geometry. Every space starts with a marble.
+   * @param geometry - the shape of the board.
+   * @return - a 2D array of ISpace objects
+   */
+  protected ISpace[][] generateBoard(BoardGeometry geometry) {
+    this.geometry = geometry;
+    this.sideLength = geometry.getSideLength();
+    this.board = new ISpace[sideLength][sideLength];
+    this.spaces = new ISpace[geometry.getCellCount()];
+    for (int i = 0; i < sideLength; i++) {
+      for (int j = 0; j < sideLength; j++) {
+        int cell = geometry.getCell(i, j);
+        if (cell < 0) {
+          this.board[i][j] = new InvalidSpace();
+        } else {
+          this.board[i][j] = new ValidSpace(false);
+          this.spaces[cell] = this.board[i][j];
+        }
+      }
+    }
+    return this.board;
+  }
+
+  /**
+   * The shape of the board.
+   * @return - the shared geometry of the board.
+   */
+  @Override
+  public BoardGeometry getGeometry() {
+    return geometry;
+  }
+
+  /**
+   * Checks whether a space of the board has a marble on it.
+   * @param cell - int - the number of the space in the board geometry.
+   * @return - true if there is a marble on the space.
+   */
+  @Override
+  public boolean hasMarble(int cell) {
+    return !spaces[cell].isEmpty();
+  }
+
   /**
    * A helper method that looks to see if a certain space is outside of the bounds of the game
    * board. Does not consider if the space is empty or valid or not.
@@ -36,23 +112,33 @@ public abstract class AbstractMarbleSolitaire implements MarbleSolitaireModel {
    * @return - a boolean stating whether or not that move is possible.
    */
   protected boolean checkValidMove(int fromRow, int fromCol, int toRow, int toCol) {
-    if (isOutsideBounds(fromRow, fromCol) || isOutsideBounds(toRow, toCol)) {
-      return false;
-    } else if (board[fromRow][fromCol].isEmpty() || !board[fromRow][fromCol].isValid()) {
-      return false;
-    } else if (!board[toRow][toCol].isValid()) {
-      return false;
-    } else if (!board[toRow][toCol].isEmpty()) {
-      return false;
-    } else if (!(Math.abs(fromRow - toRow) == 2 && fromCol - toCol == 0)
-            && !(fromRow - toRow == 0 && Math.abs(fromCol - toCol) == 2)) {
-      return false;
-    }
+    int jump = findJump(fromRow, fromCol, toRow, toCol);
+    return jump >= 0 && isAvailable(jump);
+  }
 
-    int delRow = (fromRow + toRow) / 2;
-    int delCol = (fromCol + toCol) / 2;
+  /**
+   * Looks up the jump between two spaces in the board geometry.
+   * @return - an int, the number of the jump, or -1 if the board has no such jump.
+   */
+  private int findJump(int fromRow, int fromCol, int toRow, int toCol) {
+    int from = geometry.getCell(fromRow, fromCol);
+    int to = geometry.getCell(toRow, toCol);
+    if (from < 0 || to < 0) {
+      return -1;
+    }
+    return geometry.findJump(from, to);
+  }
 
-    return !board[delRow][delCol].isEmpty();
+  /**
+   * Checks whether a jump can be made right now: there are marbles on the space it starts
+   * from and the space it passes over, and the space it ends on is empty.
+   * @param jump - int - the number of the jump in the board geometry.
+   * @return - a boolean stating whether or not that jump is possible.
+   */
+  protected boolean isAvailable(int jump) {
+    return !spaces[geometry.getJumpFrom(jump)].isEmpty()
+            && !spaces[geometry.getJumpOver(jump)].isEmpty()
+            && spaces[geometry.getJumpTo(jump)].isEmpty();
   }
 
   /**
@@ -70,16 +156,183 @@ public abstract class AbstractMarbleSolitaire implements MarbleSolitaireModel {
    */
   @Override
   public void move(int fromRow, int fromCol, int toRow, int toCol) throws IllegalArgumentException {
-    if (!checkValidMove(fromRow, fromCol, toRow, toCol)) {
+    int jump = findJump(fromRow, fromCol, toRow, toCol);
+    if (jump < 0 || !isAvailable(jump)) {
       throw new IllegalArgumentException("That is not a valid move.");
     }
 
-    int delRow = (fromRow + toRow) / 2;
-    int delCol = (fromCol + toCol) / 2;
+    flipJump(jump, -1);
+    log.push(PackedMove.pack(fromRow, fromCol, toRow, toCol));
+  }
+
+  /**
+   * Takes back the last move made, emptying the space the marble landed on and putting the
+   * marble and the jumped marble back.
+   * @throws IllegalStateException if no moves have been made.
+   */
+  @Override
+  public void undo() throws IllegalStateException {
+    flipJump(findJump(log.undo()), 1);
+  }
+
+  /**
+   * Makes the last move taken back again.
+   * @throws IllegalStateException if no moves have been taken back since the last new move.
+   */
+  @Override
+  public void redo() throws IllegalStateException {
+    flipJump(findJump(log.redo()), -1);
+  }
+
+  @Override
+  public boolean canUndo() {
+    return log.canUndo();
+  }
+
+  @Override
+  public boolean canRedo() {
+    return log.canRedo();
+  }
+
+  /**
+   * The log of the moves of this game, for saving it.
+   * @return - the move log itself, which loading a game fills in.
+   */
+  MoveLog moveLog() {
+    return log;
+  }
+
+  /**
+   * Puts marbles on exactly the spaces set in a bitmap, for loading a saved game. The move
+   * log is not changed.
+   * @param bitmap - one bit per space of the geometry, space 0 being the lowest bit of the
+   *               first byte.
+   */
+  void setMarbles(byte[] bitmap) {
+    for (int cell = 0; cell < spaces.length; cell++) {
+      boolean marble = (bitmap[cell >>> 3] & (1 << (cell & 7))) != 0;
+      if (spaces[cell].isEmpty() == marble) {
+        spaces[cell].toggleIsEmpty();
+      }
+    }
+    counted = false;
+    invalidateRows();
+  }
+
+  /**
+   * Looks up the jump of a packed move in the board geometry.
+   * @param move - int - a move from the move log.
+   * @return - an int, the number of the jump.
+   */
+  private int findJump(int move) {
+    return findJump(PackedMove.fromRow(move), PackedMove.fromCol(move),
+            PackedMove.toRow(move), PackedMove.toCol(move));
+  }
+
+  /**
+   * Flips the three spaces of a jump, which makes the jump or takes it back, and updates the
+   * live counts and the hash to match.
+   * @param jump - int - the number of the jump in the board geometry.
+   * @param marbles - int - the change in the number of marbles, -1 to make the jump and 1 to
+   *                take it back.
+   */
+  private void flipJump(int jump, int marbles) {
+    int from = geometry.getJumpFrom(jump);
+    int over = geometry.getJumpOver(jump);
+    int to = geometry.getJumpTo(jump);
+
+    countIfNeeded();
+    int movesBefore = countMovesAround(from, over, to);
+
+    spaces[over].toggleIsEmpty();
+    spaces[from].toggleIsEmpty();
+    spaces[to].toggleIsEmpty();
+    if (rowText != null) {
+      rowText[geometry.getRow(from)] = null;
+      rowText[geometry.getRow(over)] = null;
+      rowText[geometry.getRow(to)] = null;
+    }
+
+    marbleCount += marbles;
+    moveCount += countMovesAround(from, over, to) - movesBefore;
+    hash ^= geometry.getKey(from) ^ geometry.getKey(over) ^ geometry.getKey(to);
+  }
+
+  /**
+   * The hash of the current position, kept up to date by every move.
+   * @return - a long, the XOR of the keys of every space with a marble.
+   */
+  @Override
+  public long positionHash() {
+    countIfNeeded();
+    return hash;
+  }
+
+  /**
+   * Counts the marbles, the available moves and the hash of the whole board, if that has not
+   * been done yet.
+   */
+  private void countIfNeeded() {
+    if (counted) {
+      return;
+    }
+    marbleCount = 0;
+    hash = 0L;
+    for (int cell = 0; cell < spaces.length; cell++) {
+      if (!spaces[cell].isEmpty()) {
+        marbleCount++;
+        hash ^= geometry.getKey(cell);
+      }
+    }
+    moveCount = 0;
+    for (int jump = 0; jump < geometry.getJumpCount(); jump++) {
+      if (isAvailable(jump)) {
+        moveCount++;
+      }
+    }
+    counted = true;
+  }
+
+  /**
+   * Counts the available moves that involve at least one of three given spaces, each move
+   * once. These are the only moves that can change when the three spaces of a jump change.
+   * @param first - int - the number of the first space.
+   * @param second - int - the number of the second space.
+   * @param third - int - the number of the third space.
+   * @return - an int, the number of available moves touching the three spaces.
+   */
+  private int countMovesAround(int first, int second, int third) {
+    int count = 0;
+    for (int k = 0; k < 3; k++) {
+      int cell = k == 0 ? first : k == 1 ? second : third;
+      for (int d = 0; d < geometry.getDirectionCount(); d++) {
+        // The space can be the start, the middle or the end of a jump in this direction.
+        for (int step = 0; step < 3; step++) {
+          int from = geometry.getCell(geometry.getRow(cell) - step * geometry.getRowStep(d),
+                  geometry.getCol(cell) - step * geometry.getColStep(d));
+          int jump = from < 0 ? -1 : geometry.getJump(from, d);
+          // Skip moves that were already counted for an earlier one of the three spaces.
+          if (jump < 0
+                  || (k > 0 && isOnJump(first, jump))
+                  || (k > 1 && isOnJump(second, jump))) {
+            continue;
+          }
+          if (isAvailable(jump)) {
+            count++;
+          }
+        }
+      }
+    }
+    return count;
+  }
 
-    board[delRow][delCol].toggleIsEmpty();
-    board[fromRow][fromCol].toggleIsEmpty();
-    board[toRow][toCol].toggleIsEmpty();
+  /**
+   * Checks whether a space is one of the three spaces of a jump.
+   * @return - true if the space is the start, middle or end of the jump.
+   */
+  private boolean isOnJump(int cell, int jump) {
+    return geometry.getJumpFrom(jump) == cell || geometry.getJumpOver(jump) == cell
+            || geometry.getJumpTo(jump) == cell;
   }
 
   /**
@@ -88,44 +341,128 @@ public abstract class AbstractMarbleSolitaire implements MarbleSolitaireModel {
    */
   @Override
   public String getGameState() {
-    StringBuilder gameState = new StringBuilder();
+    int length = sideLength - 1;
     for (int i = 0; i < sideLength; i++) {
-      for (int j = 0; j < sideLength; j++) {
-        gameState.append(board[i][j].toString());
-        gameState.append(" ");
+      length += rowText(i).length();
+    }
+    StringBuilder gameState = new StringBuilder(length);
+    try {
+      renderGameState(gameState);
+    } catch (IOException e) {
+      throw new IllegalStateException("A StringBuilder cannot fail to append.");
+    }
+    return gameState.toString();
+  }
+
+  /**
+   * Writes the state of the current board, exactly as getGameState returns it. The text of
+   * each row is kept between renders, and only the rows a move has changed are drawn again.
+   * @param out - where to write the board.
+   * @throws IOException if the appendable cannot be written to.
+   */
+  @Override
+  public void renderGameState(Appendable out) throws IOException {
+    for (int i = 0; i < sideLength; i++) {
+      if (i > 0) {
+        out.append('\n');
       }
-      for (int k = gameState.length() - 1; k >= 0; k--) {
-        if (gameState.charAt(k) == ' ') {
-          gameState.deleteCharAt(k);
-        } else {
-          break;
-        }
+      out.append(rowText(i));
+    }
+  }
+
+  /**
+   * The text of one row of the board, drawing it if it has changed since it was last drawn.
+   * @param row - int - the row.
+   * @return - a String, the row as it appears in the game state.
+   */
+  private String rowText(int row) {
+    if (rowText == null) {
+      rowText = new String[sideLength];
+    }
+    if (rowText[row] == null) {
+      rowText[row] = renderRow(row);
+    }
+    return rowText[row];
+  }
+
+  /**
+   * Draws one row of the board: rowPadding spaces, then every space up to the last valid one
+   * separated by single spaces, so there are no trailing spaces to strip.
+   * @param row - int - the row.
+   * @return - a String, the row as it appears in the game state.
+   */
+  private String renderRow(int row) {
+    int padding = rowPadding(row);
+    int last = sideLength - 1;
+    while (last >= 0 && geometry.getCell(row, last) < 0) {
+      last--;
+    }
+    char[] text = new char[padding + Math.max(0, 2 * last + 1)];
+    Arrays.fill(text, ' ');
+    for (int j = 0; j <= last; j++) {
+      int cell = geometry.getCell(row, j);
+      if (cell >= 0) {
+        text[padding + 2 * j] = spaces[cell].toString().charAt(0);
       }
-      gameState.append("\n");
     }
+    return new String(text);
+  }
 
-    return gameState.toString().substring(0, gameState.length() - 1);
+  /**
+   * Forgets the rendered text of every row. Must be called by anything that changes the
+   * spaces of the board after it has been rendered other than through move, undo and redo.
+   */
+  protected void invalidateRows() {
+    rowText = null;
   }
 
   /**
-   * Checks to see if there are any available moves to be made.
-   * @return true if there are no more moves, false if there are still some available moves.
+   * The number of spaces drawn before a row of the board. English and european boards are
+   * drawn as they are stored, with no padding.
+   * @param row - int - the row.
+   * @return - an int, the number of spaces.
+   */
+  protected int rowPadding(int row) {
+    return 0;
+  }
+
+  /**
+   * Writes every move that can be made right now into a buffer. Goes through the jumps of the
+   * board geometry and stops as soon as it has found as many moves as the live move count.
+   * @param moves - an int array to write the packed moves into.
+   * @return - an int, the number of moves that can be made.
+   * @throws IllegalArgumentException if the board is too large for its moves to be packed.
    */
   @Override
-  public boolean isGameOver() {
-    for (int i = 0; i < sideLength; i++) {
-      for (int j = 0; j < sideLength; j++) {
-        if (!board[i][j].isEmpty()) {
-          if (checkValidMove(i, j, i + 2, j)
-                  || checkValidMove(i, j, i - 2, j)
-                  || checkValidMove(i, j, i, j + 2)
-                  || checkValidMove(i, j, i, j - 2)) {
-            return false;
-          }
+  public int legalMoves(int[] moves) throws IllegalArgumentException {
+    if (geometry.getSideLength() >= PackedMove.MAX_SPACES) {
+      throw new IllegalArgumentException("The moves of a board with "
+              + geometry.getSideLength() + " rows cannot be packed.");
+    }
+    countIfNeeded();
+    int found = 0;
+    for (int jump = 0; jump < geometry.getJumpCount() && found < moveCount; jump++) {
+      if (isAvailable(jump)) {
+        if (found < moves.length) {
+          int from = geometry.getJumpFrom(jump);
+          int to = geometry.getJumpTo(jump);
+          moves[found] = PackedMove.pack(geometry.getRow(from), geometry.getCol(from),
+                  geometry.getRow(to), geometry.getCol(to));
         }
+        found++;
       }
     }
-    return true;
+    return found;
+  }
+
+  /**
+   * Checks to see if there are any available moves to be made.
+   * @return true if there are no more moves, false if there are still some available moves.
+   */
+  @Override
+  public boolean isGameOver() {
+    countIfNeeded();
+    return moveCount == 0;
   }
 
   /**
@@ -136,17 +473,7 @@ public abstract class AbstractMarbleSolitaire implements MarbleSolitaireModel {
    */
   @Override
   public int getScore() {
-    int count = 0;
-
-    for (int i = 0; i < sideLength; i++) {
-      for (int j = 0; j < sideLength; j++) {
-        if (!board[i][j].isEmpty()) {
-          count++;
-        }
-      }
-    }
-    return count;
+    countIfNeeded();
+    return marbleCount;
   }
-
-
 }
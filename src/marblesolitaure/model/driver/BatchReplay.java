@@ -0,0 +1,183 @@
+package marblesolitaure.model.driver;
+
+import marblesolitaure.model.MarbleSolitaireModel;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A driver that replays recorded games without a controller: nothing is drawn and nobody is
+ * prompted. Each line of a game file holds one game, written the way the game is started
+ * from the command line followed by its moves:
+ *
+ * <pre>english -size 3 -hole 3 3 2 4 4 4 5 4 3 4</pre>
+ *
+ * <p>The size and hole are optional, as in MarbleSolitaire, and each move is four 1-based
+ * numbers, as typed into the controller. Blank lines and lines starting with # are skipped.
+ * For every game one line is written: where the game came from, the final score, whether the
+ * game is over, and the number (from 0) of the first move that was not legal, or -1. As with
+ * the controller, illegal moves are skipped and moves after the game is over are ignored.
+ * Files are replayed in parallel on a bounded pool of threads, and their results are written
+ * in the order the files were given.
+ */
+public final class BatchReplay {
+
+  /**
+   * Replays game files and writes the results to System.out.
+   * @param args - optionally -threads and a number of threads, then the files to replay.
+   */
+  public static void main(String[] args) {
+    int threads = Runtime.getRuntime().availableProcessors();
+    List<Path> files = new ArrayList<>();
+    for (int i = 0; i < args.length; i++) {
+      if ("-threads".equals(args[i]) && i + 1 < args.length) {
+        threads = Integer.parseInt(args[++i]);
+      } else {
+        files.add(Paths.get(args[i]));
+      }
+    }
+    if (files.isEmpty()) {
+      System.out.println("usage: BatchReplay [-threads n] file...");
+      return;
+    }
+    Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+    try {
+      replay(files, threads, out);
+      out.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Replays game files on a pool of threads, one file per task. At most a few files per
+   * thread are waiting at any time; when the queue is full, the calling thread replays the
+   * next file itself.
+   * @param files - the game files.
+   * @param threads - int - the number of threads to replay with.
+   * @param out - where to write one result line per game.
+   * @throws IOException if a file cannot be read or the results cannot be written.
+   * @throws IllegalArgumentException if the number of threads is not positive.
+   */
+  public static void replay(List<Path> files, int threads, Appendable out)
+          throws IOException, IllegalArgumentException {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Invalid number of threads " + threads + ".");
+    }
+    ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(threads * 4), new ThreadPoolExecutor.CallerRunsPolicy());
+    try {
+      List<Future<List<String>>> results = new ArrayList<>();
+      for (Path file : files) {
+        results.add(pool.submit(() -> replayFile(file)));
+      }
+      for (Future<List<String>> result : results) {
+        for (String line : result.get()) {
+          out.append(line).append('\n');
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while replaying games.", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Replays every game of one file.
+   * @param file - the game file.
+   * @return - one result line per game, each starting with the file name and line number.
+   * @throws IOException if the file cannot be read.
+   */
+  public static List<String> replayFile(Path file) throws IOException {
+    List<String> results = new ArrayList<>();
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      int number = 0;
+      for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+        number++;
+        String game = line.trim();
+        if (!game.isEmpty() && game.charAt(0) != '#') {
+          results.add(file + ":" + number + " " + replayGame(game));
+        }
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Replays one game.
+   * @param game - a string, the board and moves of the game.
+   * @return - a string, the result: "score=S gameOver=B firstIllegal=M", or "error=..." if
+   *         the game cannot be started or its moves cannot be read.
+   */
+  public static String replayGame(String game) {
+    String[] words = BoardSpec.split(game);
+    try {
+      BoardSpec board = BoardSpec.parse(words);
+      MarbleSolitaireModel model = board.createModel();
+      int next = board.getLength();
+
+      int firstIllegal = -1;
+      for (int move = 0; next < words.length && !model.isGameOver(); move++, next += 4) {
+        int fromRow = number(words, next) - 1;
+        int fromCol = number(words, next + 1) - 1;
+        int toRow = number(words, next + 2) - 1;
+        int toCol = number(words, next + 3) - 1;
+        try {
+          model.move(fromRow, fromCol, toRow, toCol);
+        } catch (IllegalArgumentException e) {
+          if (firstIllegal < 0) {
+            firstIllegal = move;
+          }
+        }
+      }
+      return "score=" + model.getScore() + " gameOver=" + model.isGameOver()
+              + " firstIllegal=" + firstIllegal;
+    } catch (IllegalArgumentException e) {
+      // The line is not a game, or its board cannot be made.
+      return "error=" + e.getMessage();
+    }
+  }
+
+  /**
+   * Reads a number of a game.
+   * @param words - the words of the game.
+   * @param index - an int, the position of the number.
+   * @return - an int, the number.
+   * @throws IllegalArgumentException if there is no word there or it is not a number.
+   */
+  private static int number(String[] words, int index) throws IllegalArgumentException {
+    if (index >= words.length) {
+      throw new IllegalArgumentException("Game ends in the middle of a move.");
+    }
+    try {
+      return Integer.parseInt(words[index]);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Not a number: " + words[index] + ".");
+    }
+  }
+}
@@ -0,0 +1,470 @@
+package marblesolitaure.model.driver;
+
+import marblesolitaure.model.GameStateRenderer;
+import marblesolitaure.model.MarbleSolitaireModel;
+import marblesolitaure.model.MoveGenerator;
+import marblesolitaure.model.MoveLog;
+import marblesolitaure.model.PackedMove;
+import marblesolitaure.model.Undoable;
+import marblesolitaure.model.ZobristHashed;
+
+import java.io.IOException;
+
+/**
+ * A game of Marble Solitaire on a board of any type and size that keeps the board in arrays of
+ * 64-bit words instead of an array of spaces. Each row takes up one more bit than the side
+ * length of the board, and that extra bit is never a valid space, which keeps jumps from
+ * wrapping around from one row into the next. Rows are packed back to back, so a row can start
+ * anywhere inside a word. Looking for available moves shifts whole words at a time.
+ */
+public class BitSetSolitaireModel implements MarbleSolitaireModel, MoveGenerator,
+        BoardPosition, ZobristHashed, Undoable, GameStateRenderer {
+  private final String type;
+  private final int size;
+  private final int sideLength;
+  private final int stride;
+  private final long[] valid;
+  private final long[] marbles;
+  private final int[] shifts;
+  private int score;
+  private long hash;
+  private final MoveLog log = new MoveLog();
+
+  /**
+   * Constructor that makes a default board of the given type. English and european boards
+   * have an arm thickness of 3 and the empty space in the center, triangular boards have
+   * five rows and the empty space at the top.
+   * @param type - a string, english european or triangular.
+   * @throws IllegalArgumentException if the type is not known.
+   */
+  public BitSetSolitaireModel(String type) throws IllegalArgumentException {
+    this(type, BoardShapes.defaultSize(BoardShapes.checkType(type)));
+  }
+
+  /**
+   * Constructor that makes a default board of the given type but allows the user to input
+   * where the beginning empty space is.
+   * @param type - a string, english european or triangular.
+   * @param sRow - an int, the row of the empty space
+   * @param sCol - an int, the column of the empty space
+   * @throws IllegalArgumentException if the type is not known, or the user attempts to enter
+   *         a space that is invalid or out of bounds.
+   */
+  public BitSetSolitaireModel(String type, int sRow, int sCol) throws IllegalArgumentException {
+    this(type, BoardShapes.defaultSize(BoardShapes.checkType(type)), sRow, sCol);
+  }
+
+  /**
+   * Constructor that makes a board of the given type and a user-entered size, with the
+   * empty space in the center (english and european) or at the top (triangular).
+   * @param type - a string, english european or triangular.
+   * @param size - an int, the arm thickness of an english or european board or the
+   *             dimension of a triangular board.
+   * @throws IllegalArgumentException if the type is not known or the size is not allowed
+   *         for that type.
+   */
+  public BitSetSolitaireModel(String type, int size) throws IllegalArgumentException {
+    this(type, size, BoardShapes.defaultHole(BoardShapes.checkType(type), size),
+            BoardShapes.defaultHole(type, size));
+  }
+
+  /**
+   * The Complete custom board. Allows user to enter the board type, a custom size
+   * as well as starting empty space.
+   * @param type - a string, english european or triangular.
+   * @param size - an int, the arm thickness of an english or european board or the
+   *             dimension of a triangular board.
+   * @param sRow - int - the row of the empty space.
+   * @param sCol - int - the column of the empty space.
+   * @throws IllegalArgumentException if the type is not known, the size is not allowed for
+   *     that type, or the user chooses an invalid starting empty space.
+   */
+  public BitSetSolitaireModel(String type, int size, int sRow, int sCol)
+          throws IllegalArgumentException {
+    this.type = BoardShapes.checkType(type);
+    BoardShapes.checkSize(type, size);
+    this.size = size;
+    this.sideLength = BoardShapes.sideLength(type, size);
+    this.stride = sideLength + 1;
+
+    int words = (int) (((long) sideLength * stride + 63) / 64);
+    this.valid = new long[words];
+    this.marbles = new long[words];
+    for (int i = 0; i < sideLength; i++) {
+      for (int j = 0; j < sideLength; j++) {
+        if (BoardShapes.isValidSpace(type, size, i, j)) {
+          setBit(valid, index(i, j));
+          setBit(marbles, index(i, j));
+          score++;
+          hash ^= ZobristHashed.key(i, j);
+        }
+      }
+    }
+
+    if (isOutsideBounds(sRow, sCol) || !testBit(valid, index(sRow, sCol))) {
+      throw new IllegalArgumentException("Invalid empty cell position ("
+              + sRow + "," + sCol + ").");
+    }
+    clearBit(marbles, index(sRow, sCol));
+    score--;
+    hash ^= ZobristHashed.key(sRow, sCol);
+
+    if ("triangular".equals(type)) {
+      this.shifts = new int[] {1, stride, stride + 1};
+    } else {
+      this.shifts = new int[] {1, stride};
+    }
+  }
+
+  /**
+   * The bit index of a space.
+   * @param row - int - the row of the space.
+   * @param col - int - the column of the space.
+   * @return - an int, the index of the space's bit.
+   */
+  private int index(int row, int col) {
+    return row * stride + col;
+  }
+
+  private static boolean testBit(long[] bits, int index) {
+    return (bits[index >>> 6] & (1L << index)) != 0;
+  }
+
+  private static void setBit(long[] bits, int index) {
+    bits[index >>> 6] |= 1L << index;
+  }
+
+  private static void clearBit(long[] bits, int index) {
+    bits[index >>> 6] &= ~(1L << index);
+  }
+
+  private static void flipBit(long[] bits, int index) {
+    bits[index >>> 6] ^= 1L << index;
+  }
+
+  /**
+   * Returns one word of a bit array shifted towards lower indices, so that bit i of the result
+   * is bit i + shift of the array. Bits past the end of the array read as zero.
+   * @param bits - the bit array.
+   * @param word - int - the word of the shifted array to return.
+   * @param shift - int - the number of bits to shift by, not negative.
+   * @return - a long, the requested word of the shifted array.
+   */
+  private static long shiftDown(long[] bits, int word, int shift) {
+    int source = word + (shift >>> 6);
+    int offset = shift & 63;
+    if (source >= bits.length) {
+      return 0L;
+    }
+    long result = bits[source] >>> offset;
+    if (offset != 0 && source + 1 < bits.length) {
+      result |= bits[source + 1] << (64 - offset);
+    }
+    return result;
+  }
+
+  /**
+   * Returns one word of a bit array shifted towards higher indices, so that bit i of the result
+   * is bit i - shift of the array. Bits before the start of the array read as zero.
+   * @param bits - the bit array.
+   * @param word - int - the word of the shifted array to return.
+   * @param shift - int - the number of bits to shift by, not negative.
+   * @return - a long, the requested word of the shifted array.
+   */
+  private static long shiftUp(long[] bits, int word, int shift) {
+    int source = word - (shift >>> 6);
+    int offset = shift & 63;
+    if (source < 0) {
+      return 0L;
+    }
+    long result = bits[source] << offset;
+    if (offset != 0 && source - 1 >= 0) {
+      result |= bits[source - 1] >>> (64 - offset);
+    }
+    return result;
+  }
+
+  /**
+   * The shape of the board. The geometry of a very large board is big, so it is only built
+   * when it is asked for.
+   * @return - the shared geometry of the board.
+   */
+  @Override
+  public BoardGeometry getGeometry() {
+    return SolitaireFactory.getGeometry(type, size);
+  }
+
+  /**
+   * Checks whether a space of the board has a marble on it.
+   * @param cell - int - the number of the space in the board geometry.
+   * @return - true if there is a marble on the space.
+   */
+  @Override
+  public boolean hasMarble(int cell) {
+    BoardGeometry geometry = getGeometry();
+    return testBit(marbles, index(geometry.getRow(cell), geometry.getCol(cell)));
+  }
+
+  /**
+   * A helper method that looks to see if a certain space is outside of the bounds of the game
+   * board. Does not consider if the space is empty or valid or not.
+   * @param row - int - the row in question.
+   * @param col - col - the column in question.
+   * @return - a boolean whether the space is in the bounds of the board.
+   */
+  private boolean isOutsideBounds(int row, int col) {
+    return (0 > row || sideLength <= row) || (0 > col || sideLength <= col);
+  }
+
+  /**
+   * Checks that the distance of a move is a jump that this board allows: two spaces along a
+   * row or a column, or two spaces along the diagonal of a triangular board.
+   */
+  private boolean isJump(int fromRow, int fromCol, int toRow, int toCol) {
+    int rows = toRow - fromRow;
+    int cols = toCol - fromCol;
+    return (Math.abs(rows) == 2 && cols == 0)
+            || (rows == 0 && Math.abs(cols) == 2)
+            || (shifts.length == 3 && rows == cols && Math.abs(rows) == 2);
+  }
+
+  /**
+   * Move a marble and update the board to show the new position of the marble as well as
+   * the "jumped" marble that is now gone.
+   * @param fromRow the row number of the position to be moved from
+   *                (starts at 0)
+   * @param fromCol the column number of the position to be moved from
+   *                (starts at 0)
+   * @param toRow the row number of the position to be moved to
+   *              (starts at 0)
+   * @param toCol the column number of the position to be moved to
+   *              (starts at 0)
+   * @throws IllegalArgumentException if the user attempts to make a move that is invalid.
+   */
+  @Override
+  public void move(int fromRow, int fromCol, int toRow, int toCol)
+          throws IllegalArgumentException {
+    if (isOutsideBounds(fromRow, fromCol) || isOutsideBounds(toRow, toCol)
+            || !isJump(fromRow, fromCol, toRow, toCol)) {
+      throw new IllegalArgumentException("That is not a valid move.");
+    }
+
+    int from = index(fromRow, fromCol);
+    int over = index((fromRow + toRow) / 2, (fromCol + toCol) / 2);
+    int to = index(toRow, toCol);
+
+    if (!testBit(marbles, from) || !testBit(marbles, over)
+            || !testBit(valid, to) || testBit(marbles, to)) {
+      throw new IllegalArgumentException("That is not a valid move.");
+    }
+
+    flip(fromRow, fromCol, toRow, toCol);
+    score--;
+    log.push(PackedMove.pack(fromRow, fromCol, toRow, toCol));
+  }
+
+  /**
+   * Flips the three spaces of a jump, which makes the jump or takes it back.
+   * @param fromRow - int - the row the jump starts from.
+   * @param fromCol - int - the column the jump starts from.
+   * @param toRow - int - the row the jump ends on.
+   * @param toCol - int - the column the jump ends on.
+   */
+  private void flip(int fromRow, int fromCol, int toRow, int toCol) {
+    int overRow = (fromRow + toRow) / 2;
+    int overCol = (fromCol + toCol) / 2;
+    flipBit(marbles, index(fromRow, fromCol));
+    flipBit(marbles, index(overRow, overCol));
+    flipBit(marbles, index(toRow, toCol));
+    hash ^= ZobristHashed.key(fromRow, fromCol) ^ ZobristHashed.key(overRow, overCol)
+            ^ ZobristHashed.key(toRow, toCol);
+  }
+
+  /**
+   * Takes back the last move made.
+   * @throws IllegalStateException if no moves have been made.
+   */
+  @Override
+  public void undo() throws IllegalStateException {
+    int move = log.undo();
+    flip(PackedMove.fromRow(move), PackedMove.fromCol(move),
+            PackedMove.toRow(move), PackedMove.toCol(move));
+    score++;
+  }
+
+  /**
+   * Makes the last move taken back again.
+   * @throws IllegalStateException if no moves have been taken back since the last new move.
+   */
+  @Override
+  public void redo() throws IllegalStateException {
+    int move = log.redo();
+    flip(PackedMove.fromRow(move), PackedMove.fromCol(move),
+            PackedMove.toRow(move), PackedMove.toCol(move));
+    score--;
+  }
+
+  @Override
+  public boolean canUndo() {
+    return log.canUndo();
+  }
+
+  @Override
+  public boolean canRedo() {
+    return log.canRedo();
+  }
+
+  /**
+   * The hash of the current position, kept up to date by every move. The keys of the three
+   * spaces a move changes are worked out when the move is made, rather than stored for every
+   * space of a board that may be very large.
+   * @return - a long, the XOR of the keys of every space with a marble.
+   */
+  @Override
+  public long positionHash() {
+    return hash;
+  }
+
+  /**
+   * Checks to see if there are any available moves to be made. Works one word at a time: for
+   * each direction, a marble can move if the next space over has a marble and the space after
+   * that is a valid empty space.
+   * @return true if there are no more moves, false if there are still some available moves.
+   */
+  @Override
+  public boolean isGameOver() {
+    for (int w = 0; w < marbles.length; w++) {
+      long here = marbles[w];
+      if (here == 0) {
+        continue;
+      }
+      for (int shift : shifts) {
+        long forward = shiftDown(marbles, w, shift)
+                & shiftDown(valid, w, 2 * shift) & ~shiftDown(marbles, w, 2 * shift);
+        long backward = shiftUp(marbles, w, shift)
+                & shiftUp(valid, w, 2 * shift) & ~shiftUp(marbles, w, 2 * shift);
+        if ((here & (forward | backward)) != 0) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Writes every move that can be made right now into a buffer. Finds the marbles that can
+   * move one word at a time, the same way as isGameOver, then reads them off one bit at a
+   * time.
+   * @param moves - an int array to write the packed moves into.
+   * @return - an int, the number of moves that can be made.
+   * @throws IllegalArgumentException if the board is too large for its moves to be packed.
+   */
+  @Override
+  public int legalMoves(int[] moves) throws IllegalArgumentException {
+    if (sideLength >= PackedMove.MAX_SPACES) {
+      throw new IllegalArgumentException("The moves of a board with " + sideLength
+              + " rows cannot be packed.");
+    }
+    int found = 0;
+    for (int w = 0; w < marbles.length; w++) {
+      long here = marbles[w];
+      if (here == 0) {
+        continue;
+      }
+      for (int shift : shifts) {
+        long forward = here & shiftDown(marbles, w, shift)
+                & shiftDown(valid, w, 2 * shift) & ~shiftDown(marbles, w, 2 * shift);
+        long backward = here & shiftUp(marbles, w, shift)
+                & shiftUp(valid, w, 2 * shift) & ~shiftUp(marbles, w, 2 * shift);
+        found = addMoves(moves, found, w, forward, 2 * shift);
+        found = addMoves(moves, found, w, backward, -2 * shift);
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Writes one packed move for each marble in one word of marbles that can all jump the same
+   * distance.
+   * @return - an int, the number of moves found so far.
+   */
+  private int addMoves(int[] moves, int found, int word, long movable, int distance) {
+    while (movable != 0) {
+      long index = (long) word * 64 + Long.numberOfTrailingZeros(movable);
+      movable &= movable - 1;
+      if (found < moves.length) {
+        long to = index + distance;
+        moves[found] = PackedMove.pack((int) (index / stride), (int) (index % stride),
+                (int) (to / stride), (int) (to % stride));
+      }
+      found++;
+    }
+    return found;
+  }
+
+  /**
+   * Returns the state of the current board in String form. Rows of a triangular board are
+   * padded on the left so that the board is drawn as a triangle.
+   * @return - a String - the current state of the board.
+   */
+  @Override
+  public String getGameState() {
+    StringBuilder gameState = new StringBuilder(
+            (int) Math.min((long) sideLength * (3 * sideLength + 1), Integer.MAX_VALUE - 8));
+    try {
+      renderGameState(gameState);
+    } catch (IOException e) {
+      throw new IllegalStateException("A StringBuilder cannot fail to append.");
+    }
+    return gameState.toString();
+  }
+
+  /**
+   * Writes the state of the current board, exactly as getGameState returns it. Rows of a
+   * triangular board are padded on the left.
+   * @param out - where to write the board.
+   * @throws IOException if the appendable cannot be written to.
+   */
+  @Override
+  public void renderGameState(Appendable out) throws IOException {
+    boolean triangular = "triangular".equals(type);
+    for (int i = 0; i < sideLength; i++) {
+      if (i > 0) {
+        out.append('\n');
+      }
+      if (triangular) {
+        for (int s = sideLength - i - 1; s > 0; s--) {
+          out.append(' ');
+        }
+      }
+      int last = sideLength - 1;
+      while (last >= 0 && !testBit(valid, index(i, last))) {
+        last--;
+      }
+      for (int j = 0; j <= last; j++) {
+        if (j > 0) {
+          out.append(' ');
+        }
+        int space = index(i, j);
+        if (!testBit(valid, space)) {
+          out.append(' ');
+        } else if (!testBit(marbles, space)) {
+          out.append('_');
+        } else {
+          out.append('O');
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the number of "marbles" still on the board as the score. A lower score
+   * means you did better!!
+   *
+   * @return - the score, an int.
+   */
+  @Override
+  public int getScore() {
+    return score;
+  }
+}
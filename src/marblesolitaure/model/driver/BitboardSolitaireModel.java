@@ -0,0 +1,383 @@
+package marblesolitaure.model.driver;
+
+import marblesolitaure.model.GameStateRenderer;
+import marblesolitaure.model.MarbleSolitaireModel;
+import marblesolitaure.model.MoveGenerator;
+import marblesolitaure.model.MoveLog;
+import marblesolitaure.model.PackedMove;
+import marblesolitaure.model.Undoable;
+import marblesolitaure.model.ZobristHashed;
+
+import java.io.IOException;
+
+/**
+ * A game of Marble Solitaire on an English or European board that keeps the whole board in
+ * two 64-bit masks instead of an array of spaces. Each row of the board takes up eight bits of
+ * the mask, so boards with a side length of up to seven (an arm thickness of up to three) fit.
+ * The eighth bit of every row is never a valid space, which keeps jumps from wrapping around
+ * from one row into the next.
+ */
+public class BitboardSolitaireModel implements MarbleSolitaireModel, MoveGenerator,
+        BoardPosition, ZobristHashed, Undoable, GameStateRenderer {
+  private static final int STRIDE = 8;
+  private static final int MAX_SIDE_LENGTH = 7;
+  // KEYS[row * STRIDE + col] is the position hash key of a space.
+  private static final long[] KEYS = new long[64];
+
+  static {
+    for (int index = 0; index < KEYS.length; index++) {
+      KEYS[index] = ZobristHashed.key(index / STRIDE, index % STRIDE);
+    }
+  }
+
+  private final String type;
+  private final int armThickness;
+  private final int sideLength;
+  private final long valid;
+  private long marbles;
+  private long hash;
+  private final MoveLog log = new MoveLog();
+
+  /**
+   * Constructor that makes a default board of the given type with arm thickness of 3 and
+   * side length of seven.
+   * @param type - a string, english or european.
+   * @throws IllegalArgumentException if the type is not english or european.
+   */
+  public BitboardSolitaireModel(String type) throws IllegalArgumentException {
+    this(type, 3);
+  }
+
+  /**
+   * Constructor that makes a default board of the given type but allows the user to input
+   * where the beginning empty space is.
+   * @param type - a string, english or european.
+   * @param sRow - an int, the row of the empty space
+   * @param sCol - an int, the column of the empty space
+   * @throws IllegalArgumentException if the type is not english or european, or the user
+   *         attempts to enter a space that is invalid or out of bounds.
+   */
+  public BitboardSolitaireModel(String type, int sRow, int sCol)
+          throws IllegalArgumentException {
+    this(type, 3, sRow, sCol);
+  }
+
+  /**
+   * Constructor that makes a board of the given type with a user-entered arm thickness.
+   * @param type - a string, english or european.
+   * @param armThickness - int - the thickness of each arm of the board.
+   * @throws IllegalArgumentException if the type is not english or european, or the arm
+   *         thickness is not a positive odd number that fits in a 64-bit board.
+   */
+  public BitboardSolitaireModel(String type, int armThickness)
+          throws IllegalArgumentException {
+    this(type, armThickness, (3 * armThickness - 2) / 2, (3 * armThickness - 2) / 2);
+  }
+
+  /**
+   * The Complete custom board. Allows user to enter the board type, a custom arm thickness
+   * as well as starting empty space.
+   * @param type - a string, english or european.
+   * @param armThickness - int - the thickness of each arm of the board.
+   * @param sRow - int - the row of the empty space.
+   * @param sCol - int - the column of the empty space.
+   * @throws IllegalArgumentException if the type is not english or european, the arm
+   *     thickness is not a positive odd number that fits in a 64-bit board, or the user
+   *     chooses an invalid starting empty space.
+   */
+  public BitboardSolitaireModel(String type, int armThickness, int sRow, int sCol)
+          throws IllegalArgumentException {
+    if (armThickness % 2 != 1) {
+      throw new IllegalArgumentException("Please enter a positive, "
+              + "odd number as the arm thickness");
+    }
+    this.type = type;
+    this.armThickness = armThickness;
+    sideLength = 3 * armThickness - 2;
+    if (sideLength > MAX_SIDE_LENGTH) {
+      throw new IllegalArgumentException("A board with arm thickness " + armThickness
+              + " does not fit in a 64-bit board.");
+    }
+
+    valid = generateValidMask(type, armThickness, sideLength);
+
+    if (isOutsideBounds(sRow, sCol) || (valid & bit(sRow, sCol)) == 0) {
+      throw new IllegalArgumentException("Invalid empty cell position ("
+              + sRow + "," + sCol + ").");
+    }
+    marbles = valid & ~bit(sRow, sCol);
+    for (long rest = marbles; rest != 0; rest &= rest - 1) {
+      hash ^= KEYS[Long.numberOfTrailingZeros(rest)];
+    }
+  }
+
+  /**
+   * A helper method that builds the mask of valid spaces for a board.
+   * @param type - a string, english or european.
+   * @param armThickness - int - the thickness of each arm.
+   * @param sideLength - int - the length of the side of the board.
+   * @return - a mask with a bit set for every valid space.
+   * @throws IllegalArgumentException if the type is not english or european.
+   */
+  private static long generateValidMask(String type, int armThickness, int sideLength)
+          throws IllegalArgumentException {
+    if (!"english".equals(type) && !"european".equals(type)) {
+      throw new IllegalArgumentException("A bitboard can only be made for an english "
+              + "or european board.");
+    }
+
+    long mask = 0L;
+    for (int i = 0; i < sideLength; i++) {
+      for (int j = 0; j < sideLength; j++) {
+        if (BoardShapes.isValidSpace(type, armThickness, i, j)) {
+          mask |= bit(i, j);
+        }
+      }
+    }
+    return mask;
+  }
+
+  /**
+   * Returns the single bit of the board masks that stands for a space.
+   * @param row - int - the row of the space.
+   * @param col - int - the column of the space.
+   * @return - a mask with only that space's bit set.
+   */
+  private static long bit(int row, int col) {
+    return 1L << (row * STRIDE + col);
+  }
+
+  /**
+   * The shape of the board.
+   * @return - the shared geometry of the board.
+   */
+  @Override
+  public BoardGeometry getGeometry() {
+    return SolitaireFactory.getGeometry(type, armThickness);
+  }
+
+  /**
+   * Checks whether a space of the board has a marble on it.
+   * @param cell - int - the number of the space in the board geometry.
+   * @return - true if there is a marble on the space.
+   */
+  @Override
+  public boolean hasMarble(int cell) {
+    BoardGeometry geometry = getGeometry();
+    return (marbles & bit(geometry.getRow(cell), geometry.getCol(cell))) != 0;
+  }
+
+  /**
+   * A helper method that looks to see if a certain space is outside of the bounds of the game
+   * board. Does not consider if the space is empty or valid or not.
+   * @param row - int - the row in question.
+   * @param col - col - the column in question.
+   * @return - a boolean whether the space is in the bounds of the board.
+   */
+  private boolean isOutsideBounds(int row, int col) {
+    return (0 > row || sideLength <= row) || (0 > col || sideLength <= col);
+  }
+
+  /**
+   * Move a marble and update the board to show the new position of the marble as well as
+   * the "jumped" marble that is now gone.
+   * @param fromRow the row number of the position to be moved from
+   *                (starts at 0)
+   * @param fromCol the column number of the position to be moved from
+   *                (starts at 0)
+   * @param toRow the row number of the position to be moved to
+   *              (starts at 0)
+   * @param toCol the column number of the position to be moved to
+   *              (starts at 0)
+   * @throws IllegalArgumentException if the user attempts to make a move that is invalid.
+   */
+  @Override
+  public void move(int fromRow, int fromCol, int toRow, int toCol)
+          throws IllegalArgumentException {
+    if (isOutsideBounds(fromRow, fromCol) || isOutsideBounds(toRow, toCol)
+            || !(Math.abs(fromRow - toRow) == 2 && fromCol == toCol)
+            && !(fromRow == toRow && Math.abs(fromCol - toCol) == 2)) {
+      throw new IllegalArgumentException("That is not a valid move.");
+    }
+
+    long from = bit(fromRow, fromCol);
+    long over = bit((fromRow + toRow) / 2, (fromCol + toCol) / 2);
+    long to = bit(toRow, toCol);
+
+    if ((marbles & from) == 0 || (marbles & over) == 0
+            || (valid & to) == 0 || (marbles & to) != 0) {
+      throw new IllegalArgumentException("That is not a valid move.");
+    }
+
+    flip(fromRow, fromCol, toRow, toCol);
+    log.push(PackedMove.pack(fromRow, fromCol, toRow, toCol));
+  }
+
+  /**
+   * Flips the three spaces of a jump, which makes the jump or takes it back.
+   * @param fromRow - int - the row the jump starts from.
+   * @param fromCol - int - the column the jump starts from.
+   * @param toRow - int - the row the jump ends on.
+   * @param toCol - int - the column the jump ends on.
+   */
+  private void flip(int fromRow, int fromCol, int toRow, int toCol) {
+    int from = fromRow * STRIDE + fromCol;
+    int over = (fromRow + toRow) / 2 * STRIDE + (fromCol + toCol) / 2;
+    int to = toRow * STRIDE + toCol;
+    marbles ^= (1L << from) | (1L << over) | (1L << to);
+    hash ^= KEYS[from] ^ KEYS[over] ^ KEYS[to];
+  }
+
+  /**
+   * Takes back the last move made.
+   * @throws IllegalStateException if no moves have been made.
+   */
+  @Override
+  public void undo() throws IllegalStateException {
+    int move = log.undo();
+    flip(PackedMove.fromRow(move), PackedMove.fromCol(move),
+            PackedMove.toRow(move), PackedMove.toCol(move));
+  }
+
+  /**
+   * Makes the last move taken back again.
+   * @throws IllegalStateException if no moves have been taken back since the last new move.
+   */
+  @Override
+  public void redo() throws IllegalStateException {
+    int move = log.redo();
+    flip(PackedMove.fromRow(move), PackedMove.fromCol(move),
+            PackedMove.toRow(move), PackedMove.toCol(move));
+  }
+
+  @Override
+  public boolean canUndo() {
+    return log.canUndo();
+  }
+
+  @Override
+  public boolean canRedo() {
+    return log.canRedo();
+  }
+
+  /**
+   * The hash of the current position, kept up to date by every move.
+   * @return - a long, the XOR of the keys of every space with a marble.
+   */
+  @Override
+  public long positionHash() {
+    return hash;
+  }
+
+  /**
+   * Checks to see if there are any available moves to be made. For each direction, a marble
+   * can move if the next space over has a marble and the space after that is empty, which is
+   * two shifts and two ANDs of the masks.
+   * @return true if there are no more moves, false if there are still some available moves.
+   */
+  @Override
+  public boolean isGameOver() {
+    long empty = valid & ~marbles;
+    long right = marbles & (marbles >>> 1) & (empty >>> 2);
+    long left = marbles & (marbles << 1) & (empty << 2);
+    long down = marbles & (marbles >>> STRIDE) & (empty >>> 2 * STRIDE);
+    long up = marbles & (marbles << STRIDE) & (empty << 2 * STRIDE);
+    return (right | left | down | up) == 0;
+  }
+
+  /**
+   * Writes every move that can be made right now into a buffer. The marbles that can move in
+   * each direction are found with the same masks as isGameOver, then read off one bit at a
+   * time.
+   * @param moves - an int array to write the packed moves into.
+   * @return - an int, the number of moves that can be made.
+   */
+  @Override
+  public int legalMoves(int[] moves) {
+    long empty = valid & ~marbles;
+    int found = 0;
+    found = addMoves(moves, found, marbles & (marbles >>> 1) & (empty >>> 2), 0, 1);
+    found = addMoves(moves, found, marbles & (marbles << 1) & (empty << 2), 0, -1);
+    found = addMoves(moves, found,
+            marbles & (marbles >>> STRIDE) & (empty >>> 2 * STRIDE), 1, 0);
+    found = addMoves(moves, found,
+            marbles & (marbles << STRIDE) & (empty << 2 * STRIDE), -1, 0);
+    return found;
+  }
+
+  /**
+   * Writes one packed move for each marble in a mask of marbles that can all jump in the same
+   * direction.
+   * @return - an int, the number of moves found so far.
+   */
+  private static int addMoves(int[] moves, int found, long movable, int rowStep, int colStep) {
+    while (movable != 0) {
+      int index = Long.numberOfTrailingZeros(movable);
+      movable &= movable - 1;
+      if (found < moves.length) {
+        int row = index / STRIDE;
+        int col = index % STRIDE;
+        moves[found] = PackedMove.pack(row, col, row + 2 * rowStep, col + 2 * colStep);
+      }
+      found++;
+    }
+    return found;
+  }
+
+  /**
+   * Returns the state of the current board in String form.
+   * @return - a String - the current state of the board.
+   */
+  @Override
+  public String getGameState() {
+    StringBuilder gameState = new StringBuilder(sideLength * (3 * sideLength + 1));
+    try {
+      renderGameState(gameState);
+    } catch (IOException e) {
+      throw new IllegalStateException("A StringBuilder cannot fail to append.");
+    }
+    return gameState.toString();
+  }
+
+  /**
+   * Writes the state of the current board, exactly as getGameState returns it.
+   * @param out - where to write the board.
+   * @throws IOException if the appendable cannot be written to.
+   */
+  @Override
+  public void renderGameState(Appendable out) throws IOException {
+    for (int i = 0; i < sideLength; i++) {
+      if (i > 0) {
+        out.append('\n');
+      }
+      int last = sideLength - 1;
+      while (last >= 0 && (valid & bit(i, last)) == 0) {
+        last--;
+      }
+      for (int j = 0; j <= last; j++) {
+        if (j > 0) {
+          out.append(' ');
+        }
+        long space = bit(i, j);
+        if ((valid & space) == 0) {
+          out.append(' ');
+        } else if ((marbles & space) == 0) {
+          out.append('_');
+        } else {
+          out.append('O');
+        }
+      }
+    }
+  }
+
+  /**
+   * Counts the number of "marbles" still on the board and returns that as the score. A lower score
+   * means you did better!!
+   *
+   * @return - the score, an int.
+   */
+  @Override
+  public int getScore() {
+    return Long.bitCount(marbles);
+  }
+}
@@ -0,0 +1,342 @@
+package marblesolitaure.model.driver;
+
+import marblesolitaure.model.ZobristHashed;
+
+/**
+ * The shape of one kind of game board: which spaces are in play and every jump a marble could
+ * ever make on it. Valid spaces are numbered 0, 1, 2... row by row, and every jump is stored
+ * once as a triple of those numbers (from, over, to). A geometry never changes once built,
+ * so one instance is shared by every game of the same board type and size. Get one from
+ * SolitaireFactory.getGeometry.
+ */
+public final class BoardGeometry {
+  private static final int[][] ORTHOGONAL_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+  private static final int[][] TRIANGLE_DIRECTIONS =
+          {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {-1, -1}};
+  private static final int[][] TRIANGLE_SIDE_ORDERS =
+          {{0, 1, 2}, {1, 2, 0}, {2, 0, 1}, {1, 0, 2}, {0, 2, 1}, {2, 1, 0}};
+
+  private final String type;
+  private final int size;
+  private final int sideLength;
+  private final int[][] directions;
+
+  // cellAt[row * sideLength + col] is the number of a space, or -1 if it is not in play.
+  // Triangular boards have no table: their spaces are packed row by row, row i holding its
+  // i + 1 spaces, so the number of a space is worked out as i * (i + 1) / 2 + j.
+  private final int[] cellAt;
+  private final boolean triangular;
+  private final int[] cellRow;
+  private final int[] cellCol;
+  private final long[] cellKey;
+
+  // jumpAt[cell * directions + direction] is the number of the jump, or -1 if there is none.
+  private final int[] jumpAt;
+  private final int[] jumpFrom;
+  private final int[] jumpOver;
+  private final int[] jumpTo;
+
+  // symmetries[s][cell] is the space a rotation or reflection s of the board moves cell to.
+  private final int[][] symmetries;
+
+  /**
+   * Builds the geometry of a board.
+   * @param type - a string, english european or triangular.
+   * @param size - an int, the arm thickness of an english or european board or the
+   *             dimension of a triangular board.
+   * @throws IllegalArgumentException if the type is not known or the size is not allowed
+   *         for that type.
+   */
+  BoardGeometry(String type, int size) throws IllegalArgumentException {
+    this.type = BoardShapes.checkType(type);
+    BoardShapes.checkSize(type, size);
+    this.size = size;
+    this.sideLength = BoardShapes.sideLength(type, size);
+    this.triangular = "triangular".equals(type);
+    this.directions = triangular ? TRIANGLE_DIRECTIONS : ORTHOGONAL_DIRECTIONS;
+
+    int cells = 0;
+    if (triangular) {
+      this.cellAt = null;
+      cells = sideLength * (sideLength + 1) / 2;
+    } else {
+      this.cellAt = new int[sideLength * sideLength];
+      for (int i = 0; i < sideLength; i++) {
+        for (int j = 0; j < sideLength; j++) {
+          cellAt[i * sideLength + j] = BoardShapes.isValidSpace(type, size, i, j) ? cells++ : -1;
+        }
+      }
+    }
+
+    this.cellRow = new int[cells];
+    this.cellCol = new int[cells];
+    this.cellKey = new long[cells];
+    for (int i = 0; i < sideLength; i++) {
+      for (int j = 0; j < sideLength; j++) {
+        int cell = getCell(i, j);
+        if (cell >= 0) {
+          cellRow[cell] = i;
+          cellCol[cell] = j;
+          cellKey[cell] = ZobristHashed.key(i, j);
+        }
+      }
+    }
+
+    this.jumpAt = new int[cells * directions.length];
+    int jumps = 0;
+    for (int cell = 0; cell < cells; cell++) {
+      for (int d = 0; d < directions.length; d++) {
+        int over = getCell(cellRow[cell] + directions[d][0], cellCol[cell] + directions[d][1]);
+        int to = getCell(cellRow[cell] + 2 * directions[d][0],
+                cellCol[cell] + 2 * directions[d][1]);
+        jumpAt[cell * directions.length + d] = over >= 0 && to >= 0 ? jumps++ : -1;
+      }
+    }
+
+    this.jumpFrom = new int[jumps];
+    this.jumpOver = new int[jumps];
+    this.jumpTo = new int[jumps];
+    for (int cell = 0; cell < cells; cell++) {
+      for (int d = 0; d < directions.length; d++) {
+        int jump = jumpAt[cell * directions.length + d];
+        if (jump >= 0) {
+          jumpFrom[jump] = cell;
+          jumpOver[jump] = getCell(cellRow[cell] + directions[d][0],
+                  cellCol[cell] + directions[d][1]);
+          jumpTo[jump] = getCell(cellRow[cell] + 2 * directions[d][0],
+                  cellCol[cell] + 2 * directions[d][1]);
+        }
+      }
+    }
+
+    this.symmetries = findSymmetries();
+  }
+
+  /**
+   * Works out which rotations and reflections map the board onto itself. English and european
+   * boards have the 8 symmetries of a square and triangular boards the 6 of a triangle. The
+   * first symmetry is always the identity.
+   * @return - a table of the spaces each symmetry moves every space to.
+   */
+  private int[][] findSymmetries() {
+    int n = sideLength - 1;
+    int cells = getCellCount();
+    int count = triangular ? 6 : 8;
+    int[][] found = new int[count][cells];
+    int kept = 0;
+    for (int s = 0; s < count; s++) {
+      boolean valid = true;
+      for (int cell = 0; cell < cells && valid; cell++) {
+        int i = cellRow[cell];
+        int j = cellCol[cell];
+        int image;
+        if (triangular) {
+          // Permute the distances of the space from the three sides of the triangle.
+          int[] sides = {j, i - j, n - i};
+          int[] order = TRIANGLE_SIDE_ORDERS[s];
+          image = getCell(n - sides[order[2]], sides[order[0]]);
+        } else {
+          int row = (s & 4) == 0 ? i : j;
+          int col = (s & 4) == 0 ? j : i;
+          image = getCell((s & 1) == 0 ? row : n - row, (s & 2) == 0 ? col : n - col);
+        }
+        found[kept][cell] = image;
+        valid = image >= 0;
+      }
+      if (valid) {
+        kept++;
+      }
+    }
+    int[][] symmetries = new int[kept][];
+    System.arraycopy(found, 0, symmetries, 0, kept);
+    return symmetries;
+  }
+
+  /**
+   * The type of board.
+   * @return - a string, english european or triangular.
+   */
+  public String getType() {
+    return type;
+  }
+
+  /**
+   * The size of the board.
+   * @return - an int, the arm thickness or the dimension of the board.
+   */
+  public int getSize() {
+    return size;
+  }
+
+  /**
+   * The number of rows and columns of the square the board is drawn in.
+   * @return - an int, the side length.
+   */
+  public int getSideLength() {
+    return sideLength;
+  }
+
+  /**
+   * The number of valid spaces of the board.
+   * @return - an int, one more than the highest space number.
+   */
+  public int getCellCount() {
+    return cellRow.length;
+  }
+
+  /**
+   * Finds the number of a space.
+   * @param row - int - the row of the space.
+   * @param col - int - the column of the space.
+   * @return - an int, the number of the space, or -1 if it is out of bounds or not in play.
+   */
+  public int getCell(int row, int col) {
+    if (row < 0 || row >= sideLength || col < 0 || col >= sideLength) {
+      return -1;
+    }
+    if (triangular) {
+      // The spaces of the rows above fill the first i * (i + 1) / 2 numbers. A jump along a
+      // diagonal, from (i, j) to (i + 2, j + 2), goes from that number to the one 2i + 5
+      // further on.
+      return col <= row ? row * (row + 1) / 2 + col : -1;
+    }
+    return cellAt[row * sideLength + col];
+  }
+
+  /**
+   * The row of a space.
+   * @param cell - int - the number of the space.
+   * @return - an int, its row.
+   */
+  public int getRow(int cell) {
+    return cellRow[cell];
+  }
+
+  /**
+   * The column of a space.
+   * @param cell - int - the number of the space.
+   * @return - an int, its column.
+   */
+  public int getCol(int cell) {
+    return cellCol[cell];
+  }
+
+  /**
+   * The position hash key of a space.
+   * @param cell - int - the number of the space.
+   * @return - a long, ZobristHashed.key of its row and column.
+   */
+  public long getKey(int cell) {
+    return cellKey[cell];
+  }
+
+  /**
+   * The number of directions a marble can jump in: 4 for english and european boards and 6
+   * for triangular boards, which add the two diagonals. Directions come in pairs, so the
+   * opposite of direction d is d ^ 1.
+   * @return - an int, the number of directions.
+   */
+  public int getDirectionCount() {
+    return directions.length;
+  }
+
+  /**
+   * One step in a direction, in rows.
+   * @param direction - int - the direction.
+   * @return - an int, -1, 0 or 1.
+   */
+  public int getRowStep(int direction) {
+    return directions[direction][0];
+  }
+
+  /**
+   * One step in a direction, in columns.
+   * @param direction - int - the direction.
+   * @return - an int, -1, 0 or 1.
+   */
+  public int getColStep(int direction) {
+    return directions[direction][1];
+  }
+
+  /**
+   * The number of jumps on the board. Jumps are numbered in order of the space they start
+   * from, then of their direction.
+   * @return - an int, one more than the highest jump number.
+   */
+  public int getJumpCount() {
+    return jumpFrom.length;
+  }
+
+  /**
+   * The jump from a space in a direction.
+   * @param cell - int - the number of the space the jump starts from.
+   * @param direction - int - the direction of the jump.
+   * @return - an int, the number of the jump, or -1 if the board has no such jump.
+   */
+  public int getJump(int cell, int direction) {
+    return jumpAt[cell * directions.length + direction];
+  }
+
+  /**
+   * Finds the jump between two spaces.
+   * @param from - int - the number of the space the jump starts from.
+   * @param to - int - the number of the space the jump ends on.
+   * @return - an int, the number of the jump, or -1 if the board has no such jump.
+   */
+  public int findJump(int from, int to) {
+    int first = from * directions.length;
+    for (int k = first; k < first + directions.length; k++) {
+      int jump = jumpAt[k];
+      if (jump >= 0 && jumpTo[jump] == to) {
+        return jump;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * The space a jump starts from.
+   * @param jump - int - the number of the jump.
+   * @return - an int, the number of the space.
+   */
+  public int getJumpFrom(int jump) {
+    return jumpFrom[jump];
+  }
+
+  /**
+   * The space a jump passes over.
+   * @param jump - int - the number of the jump.
+   * @return - an int, the number of the space.
+   */
+  public int getJumpOver(int jump) {
+    return jumpOver[jump];
+  }
+
+  /**
+   * The space a jump ends on.
+   * @param jump - int - the number of the jump.
+   * @return - an int, the number of the space.
+   */
+  public int getJumpTo(int jump) {
+    return jumpTo[jump];
+  }
+
+  /**
+   * The number of rotations and reflections that map the board onto itself, counting the
+   * identity: 8 for english and european boards and 6 for triangular boards.
+   * @return - an int, the number of symmetries.
+   */
+  public int getSymmetryCount() {
+    return symmetries.length;
+  }
+
+  /**
+   * The space a symmetry of the board moves a space to.
+   * @param symmetry - int - the number of the symmetry, 0 being the identity.
+   * @param cell - int - the number of the space.
+   * @return - an int, the number of the space it is moved to.
+   */
+  public int getSymmetricCell(int symmetry, int cell) {
+    return symmetries[symmetry][cell];
+  }
+}
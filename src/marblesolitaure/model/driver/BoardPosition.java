@@ -0,0 +1,21 @@
+package marblesolitaure.model.driver;
+
+/**
+ * An optional interface for marble solitaire models that can describe their board as a board
+ * geometry and the spaces of that geometry holding a marble. Tools that work on positions
+ * rather than on one game, such as solvers, read the board through this interface.
+ */
+public interface BoardPosition {
+  /**
+   * The shape of the board.
+   * @return - the shared geometry of the board.
+   */
+  BoardGeometry getGeometry();
+
+  /**
+   * Checks whether a space of the board has a marble on it.
+   * @param cell - int - the number of the space in the board geometry.
+   * @return - true if there is a marble on the space.
+   */
+  boolean hasMarble(int cell);
+}
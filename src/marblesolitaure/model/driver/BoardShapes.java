@@ -0,0 +1,156 @@
+package marblesolitaure.model.driver;
+
+/**
+ * A helper class describing the shapes of the three kinds of game board without building a
+ * board. Used by the models that do not keep an array of spaces. The shapes are the same as
+ * the ones built by MarbleSolitaireModelImpl, EuropeanSolitaireModelImpl and
+ * TriangleSolitaireModelImpl.
+ */
+final class BoardShapes {
+
+  private BoardShapes() {
+  }
+
+  /**
+   * Checks that a board type is one of the known types.
+   * @param type - a string, english european or triangular.
+   * @return - the same type.
+   * @throws IllegalArgumentException if the type is not known.
+   */
+  static String checkType(String type) throws IllegalArgumentException {
+    if (!"english".equals(type) && !"european".equals(type) && !"triangular".equals(type)) {
+      throw new IllegalArgumentException("Unknown board type: " + type);
+    }
+    return type;
+  }
+
+  /**
+   * Checks that a size is allowed for a board type.
+   * @param type - a string, english european or triangular.
+   * @param size - an int, the arm thickness for english and european boards or the dimension
+   *             of a triangular board.
+   * @throws IllegalArgumentException if the size is not allowed.
+   */
+  static void checkSize(String type, int size) throws IllegalArgumentException {
+    if ("triangular".equals(type)) {
+      if (size < 1) {
+        throw new IllegalArgumentException("Please enter a positive "
+                + "number as the dimension of the board.");
+      }
+    } else if (size % 2 != 1) {
+      throw new IllegalArgumentException("Please enter a positive, "
+              + "odd number as the arm thickness");
+    }
+  }
+
+  /**
+   * The default size of a board type.
+   * @param type - a string, english european or triangular.
+   * @return - an int, the arm thickness or dimension of the default board.
+   */
+  static int defaultSize(String type) {
+    return "triangular".equals(type) ? 5 : 3;
+  }
+
+  /**
+   * The length of the side of the square holding a board.
+   * @param type - a string, english european or triangular.
+   * @param size - an int, the arm thickness or dimension.
+   * @return - an int, the number of rows and columns of the board.
+   */
+  static int sideLength(String type, int size) {
+    return "triangular".equals(type) ? size : 3 * size - 2;
+  }
+
+  /**
+   * The number of valid spaces of a board, worked out without building the board.
+   * @param type - a string, english european or triangular.
+   * @param size - an int, the arm thickness or dimension, which must be allowed for the type.
+   * @return - a long, the number of spaces in play.
+   */
+  static long cellCount(String type, int size) {
+    long sideLength = sideLength(type, size);
+    if ("triangular".equals(type)) {
+      return sideLength * (sideLength + 1) / 2;
+    }
+    long cells = 0;
+    for (int row = 0; row < sideLength; row++) {
+      cells += rowWidth(type, size, row);
+    }
+    return cells;
+  }
+
+  /**
+   * The number of jumps of a board, one per space a marble could jump from in each direction,
+   * worked out without building the board.
+   * @param type - a string, english european or triangular.
+   * @param size - an int, the arm thickness or dimension, which must be allowed for the type.
+   * @return - a long, the number of jumps.
+   */
+  static long jumpCount(String type, int size) {
+    long sideLength = sideLength(type, size);
+    if ("triangular".equals(type)) {
+      // Each of the three axes has one line of every length up to the side, and a line of
+      // length n has n - 2 jumps each way.
+      return 3 * Math.max(0, sideLength - 1) * Math.max(0, sideLength - 2);
+    }
+    // Every row is one run of spaces, and the columns are the rows reflected.
+    long jumps = 0;
+    for (int row = 0; row < sideLength; row++) {
+      jumps += Math.max(0, rowWidth(type, size, row) - 2);
+    }
+    return 4 * jumps;
+  }
+
+  /**
+   * The number of valid spaces in one row of an english or european board, which are all next
+   * to one another.
+   * @param type - a string, english or european.
+   * @param size - an int, the arm thickness.
+   * @param row - int - the row.
+   * @return - an int, the number of spaces in play in the row.
+   */
+  private static int rowWidth(String type, int size, int row) {
+    int sideLength = sideLength(type, size);
+    if ("english".equals(type)) {
+      return row >= size - 1 && row <= sideLength - size ? sideLength : size;
+    }
+    int first = Math.max(0, Math.max(size - 1 - row, row - 2 * size + 2));
+    int last = Math.min(sideLength - 1,
+            Math.min(sideLength + 2 * size - 3 - row, row + 2 * size - 2));
+    return Math.max(0, last - first + 1);
+  }
+
+  /**
+   * The row of the default empty space of a board.
+   * @param type - a string, english european or triangular.
+   * @param size - an int, the arm thickness or dimension.
+   * @return - an int, the row and column of the default empty space.
+   */
+  static int defaultHole(String type, int size) {
+    return "triangular".equals(type) ? 0 : sideLength(type, size) / 2;
+  }
+
+  /**
+   * Checks whether a space is a valid (in play) space of a board. Does not check bounds.
+   * @param type - a string, english european or triangular.
+   * @param size - an int, the arm thickness or dimension.
+   * @param row - int - the row of the space.
+   * @param col - int - the column of the space.
+   * @return - true if the space is in play.
+   */
+  static boolean isValidSpace(String type, int size, int row, int col) {
+    int sideLength = sideLength(type, size);
+    switch (type) {
+      case "english":
+        return !((row < size - 1 || row > sideLength - size)
+                && (col < size - 1 || col > sideLength - size));
+      case "european":
+        return !((row + col < size - 1)
+                || (row + col >= (sideLength + 2 * size - 2))
+                || (Math.abs(row - col) >= 2 * size - 1));
+      default:
+        return row >= col;
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package marblesolitaure.model.driver;
+
+import marblesolitaure.model.MarbleSolitaireModel;
+
+import java.util.StringTokenizer;
+
+/**
+ * A board as a player describes it when starting a game: the board type, then optionally
+ * "-size" and a size, then optionally "-hole" and the row and column of the empty space, in
+ * the same order MarbleSolitaire reads them.
+ */
+final class BoardSpec {
+  private final String type;
+  private final int size;
+  private final int row;
+  private final int col;
+  private final int length;
+
+  private BoardSpec(String type, int size, int row, int col, int length) {
+    this.type = type;
+    this.size = size;
+    this.row = row;
+    this.col = col;
+    this.length = length;
+  }
+
+  /**
+   * Splits a line into words at whitespace.
+   * @param line - a string, the line.
+   * @return - the words.
+   */
+  static String[] split(String line) {
+    StringTokenizer tokenizer = new StringTokenizer(line);
+    String[] words = new String[tokenizer.countTokens()];
+    for (int i = 0; i < words.length; i++) {
+      words[i] = tokenizer.nextToken();
+    }
+    return words;
+  }
+
+  /**
+   * Reads a board from the start of a list of words. Words after the board are left alone.
+   * @param words - the words.
+   * @return - the board.
+   * @throws IllegalArgumentException if there are no words, or an option is missing its
+   *         numbers.
+   */
+  static BoardSpec parse(String[] words) throws IllegalArgumentException {
+    if (words.length == 0) {
+      throw new IllegalArgumentException("No board type given.");
+    }
+    int next = 1;
+    int size = -1;
+    int row = -1;
+    int col = -1;
+    if (next < words.length && words[next].equals("-size")) {
+      size = number(words, next + 1);
+      next += 2;
+    }
+    if (next < words.length && words[next].equals("-hole")) {
+      row = number(words, next + 1);
+      col = number(words, next + 2);
+      next += 3;
+    }
+    return new BoardSpec(words[0], size, row, col, next);
+  }
+
+  /**
+   * The number of words the board took up.
+   * @return - an int, the index of the first word after the board.
+   */
+  int getLength() {
+    return length;
+  }
+
+  /**
+   * Makes a new game on this board, through SolitaireFactory.
+   * @return - the model.
+   * @throws IllegalArgumentException if the type is not known or the board cannot be made.
+   */
+  MarbleSolitaireModel createModel() throws IllegalArgumentException {
+    MarbleSolitaireModel model;
+    if (size == -1 && row == -1 && col == -1) {
+      model = SolitaireFactory.createModel(type);
+    } else if (row == -1 && col == -1) {
+      model = SolitaireFactory.createModel(type, size);
+    } else if (size == -1) {
+      model = SolitaireFactory.createModel(type, row, col);
+    } else {
+      model = SolitaireFactory.createModel(type, size, row, col);
+    }
+    if (model == null) {
+      throw new IllegalArgumentException("Unknown board type " + type + ".");
+    }
+    return model;
+  }
+
+  private static int number(String[] words, int index) throws IllegalArgumentException {
+    if (index >= words.length) {
+      throw new IllegalArgumentException("Missing number after " + words[index - 1] + ".");
+    }
+    try {
+      return Integer.parseInt(words[index]);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Not a number: " + words[index] + ".");
+    }
+  }
+}
@@ -1,8 +1,6 @@
 package marblesolitaure.model.driver;
 
 import marblesolitaure.model.ISpace;
-import marblesolitaure.model.InvalidSpace;
-import marblesolitaure.model.ValidSpace;
 
 /**
  * A class representing the implementation of a game of Marble Solitaire with a
@@ -13,27 +11,14 @@ import marblesolitaure.model.ValidSpace;
 public class EuropeanSolitaireModelImpl extends AbstractMarbleSolitaire {
 
   /**
-   * A helper method that builds a new board, an array of ISpaces with the
-   * parameters below.
+   * A helper method that builds a new board, an array of ISpaces in the shape of the
+   * european board geometry with the arm thickness below.
    *
    * @param armThickness - int - the thickness of each arm.
-   * @param sideLength - int - the length of the side of the board.
    * @return - a 2D array of ISpace objects
    */
-  private ISpace[][] generateEuropeanNewBoard(int armThickness, int sideLength) {
-    this.board = new ISpace[sideLength][sideLength];
-    for (int i = 0; i < sideLength; i++) {
-      for (int j = 0; j < sideLength; j++) {
-        if ((i + j < armThickness - 1) 
-                || (i + j >=  (sideLength + 2 * armThickness - 2))
-                || (Math.abs(i - j) >= 2 * armThickness - 1)) {
-          this.board[i][j] = new InvalidSpace();
-        } else {
-          this.board[i][j] = new ValidSpace(false);
-        }
-      }
-    }
-    return this.board;
+  private ISpace[][] generateEuropeanNewBoard(int armThickness) {
+    return generateBoard(SolitaireFactory.getGeometry("european", armThickness));
   }
 
   /**
@@ -44,7 +29,7 @@ public class EuropeanSolitaireModelImpl extends AbstractMarbleSolitaire {
     this.sideLength = 3 * this.armThickness - 2;
     int center = this.sideLength / 2;
 
-    this.board = generateEuropeanNewBoard(this.armThickness, this.sideLength);
+    this.board = generateEuropeanNewBoard(this.armThickness);
 
     this.board[center][center].toggleIsEmpty();
   }
@@ -61,7 +46,7 @@ public class EuropeanSolitaireModelImpl extends AbstractMarbleSolitaire {
     armThickness = 3;
     sideLength = 3 * armThickness - 2;
 
-    this.board = generateEuropeanNewBoard(armThickness, sideLength);
+    this.board = generateEuropeanNewBoard(armThickness);
 
     if (isOutsideBounds(sRow, sCol) || !board[sRow][sCol].isValid()) {
       throw new IllegalArgumentException("Invalid empty cell position ("
@@ -86,7 +71,7 @@ public class EuropeanSolitaireModelImpl extends AbstractMarbleSolitaire {
     sideLength = 3 * armThickness - 2;
     int center = sideLength / 2;
 
-    board = generateEuropeanNewBoard(armThickness, sideLength);
+    board = generateEuropeanNewBoard(armThickness);
 
     board[center][center].toggleIsEmpty();
   }
@@ -109,7 +94,7 @@ public class EuropeanSolitaireModelImpl extends AbstractMarbleSolitaire {
     }
     sideLength = 3 * armThickness - 2;
 
-    board = generateEuropeanNewBoard(armThickness, sideLength);
+    board = generateEuropeanNewBoard(armThickness);
 
     if (isOutsideBounds(sRow, sCol) || board[sRow][sCol].isEmpty()) {
       throw new IllegalArgumentException("Invalid empty cell position ("
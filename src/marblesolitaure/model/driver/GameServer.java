@@ -0,0 +1,252 @@
+package marblesolitaure.model.driver;
+
+import marblesolitaure.controller.ControllerMetrics;
+import marblesolitaure.controller.FlushPolicy;
+import marblesolitaure.controller.MarbleSolitaireControllerImpl;
+import marblesolitaure.model.MarbleSolitaireModel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A driver that serves games over TCP on the local machine, one controller per connection.
+ * A client first sends a line describing its board, as it would be typed to MarbleSolitaire
+ * ("european -size 5 -hole 4 4"), and then plays exactly as at the command line; the
+ * connection is closed when the game ends. A client that sends a board that cannot be made is
+ * told why and disconnected.
+ *
+ * <p>Most sessions spend their time waiting for the player, so each runs on its own virtual
+ * thread when the JVM has them. Older JVMs get a platform thread per session, with a small
+ * stack so that many thousands of them fit.
+ */
+public final class GameServer implements Closeable {
+  // The longest board line a client may send.
+  private static final int MAX_BOARD_LINE = 256;
+  // How many connections may wait to be accepted.
+  private static final int BACKLOG = 4096;
+  // The stack size of session threads when there are no virtual threads.
+  private static final long PLATFORM_STACK_SIZE = 256 * 1024;
+  // How long the acceptor waits after a failed accept, doubling while failures go on.
+  private static final long MIN_ACCEPT_BACKOFF_NANOS = 10_000_000L;
+  private static final long MAX_ACCEPT_BACKOFF_NANOS = 1_000_000_000L;
+
+  private final ServerSocket serverSocket;
+  private final ControllerMetrics metrics;
+  private final ExecutorService sessions;
+  private final boolean virtual;
+  private final Set<Socket> open = ConcurrentHashMap.newKeySet();
+  private final Thread acceptor;
+
+  /**
+   * Makes a server listening on the loopback address. It accepts no one until started.
+   * @param port - int - the port to listen on, or 0 for any free port.
+   * @param metrics - where every session records its moves and turn times, or null.
+   * @throws IOException if the port cannot be listened on.
+   */
+  public GameServer(int port, ControllerMetrics metrics) throws IOException {
+    this.serverSocket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress());
+    this.metrics = metrics;
+    ExecutorService virtualThreads = newVirtualThreadExecutor();
+    this.virtual = virtualThreads != null;
+    this.sessions = virtual ? virtualThreads : Executors.newCachedThreadPool(platformThreads());
+    this.acceptor = new Thread(this::acceptAll, "game-server-" + getPort());
+  }
+
+  /**
+   * Serves games on a local port until the program is stopped, publishing the metrics of
+   * every session through JMX.
+   * @param args - optionally -port and a port number; the default is 4000.
+   * @throws IOException if the port cannot be listened on.
+   */
+  public static void main(String[] args) throws IOException {
+    int port = 4000;
+    if (args.length == 2 && args[0].equals("-port")) {
+      port = Integer.parseInt(args[1]);
+    }
+    ControllerMetrics metrics = new ControllerMetrics();
+    GameServer server = new GameServer(port, metrics);
+    metrics.register("server-" + server.getPort());
+    server.start();
+    System.out.println("Serving marble solitaire on port " + server.getPort() + " with "
+            + (server.usesVirtualThreads() ? "virtual" : "platform") + " threads.");
+  }
+
+  /**
+   * Starts accepting connections.
+   * @throws IllegalStateException if the server was already started.
+   */
+  public void start() throws IllegalStateException {
+    acceptor.start();
+  }
+
+  /**
+   * The port the server listens on.
+   * @return - an int, the port.
+   */
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * The number of connections being served right now.
+   * @return - an int, the number of sessions.
+   */
+  public int getOpenSessions() {
+    return open.size();
+  }
+
+  /**
+   * Whether sessions run on virtual threads.
+   * @return - a boolean, true for virtual threads, false for platform threads.
+   */
+  public boolean usesVirtualThreads() {
+    return virtual;
+  }
+
+  /**
+   * Stops accepting connections and closes every open session.
+   * @throws IOException if the server socket cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+    for (Socket socket : open) {
+      closeQuietly(socket);
+    }
+    sessions.shutdownNow();
+  }
+
+  /**
+   * Accepts connections until the server is closed, handing each one to its own session.
+   * A failed accept is retried after a pause, so that an error which lasts, such as running
+   * out of file descriptors, does not keep a processor busy retrying it.
+   */
+  private void acceptAll() {
+    long backoff = MIN_ACCEPT_BACKOFF_NANOS;
+    while (!serverSocket.isClosed()) {
+      Socket socket;
+      try {
+        socket = serverSocket.accept();
+      } catch (IOException e) {
+        // Closing the server socket ends the loop; anything else only loses one connection.
+        if (!serverSocket.isClosed()) {
+          LockSupport.parkNanos(backoff);
+          backoff = Math.min(backoff * 2, MAX_ACCEPT_BACKOFF_NANOS);
+        }
+        continue;
+      }
+      backoff = MIN_ACCEPT_BACKOFF_NANOS;
+      open.add(socket);
+      try {
+        sessions.execute(() -> serve(socket));
+      } catch (RejectedExecutionException e) {
+        open.remove(socket);
+        closeQuietly(socket);
+      }
+    }
+  }
+
+  /**
+   * Plays one client's game.
+   * @param socket - the client's connection.
+   */
+  private void serve(Socket socket) {
+    try (Socket connection = socket) {
+      connection.setTcpNoDelay(true);
+      InputStream in = connection.getInputStream();
+      Writer out = new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.US_ASCII);
+      String line = readBoardLine(in);
+      if (line == null) {
+        return;
+      }
+      MarbleSolitaireModel model;
+      try {
+        model = BoardSpec.parse(BoardSpec.split(line)).createModel();
+      } catch (IllegalArgumentException e) {
+        out.write("Invalid board: " + e.getMessage() + "\n");
+        out.flush();
+        return;
+      }
+      new MarbleSolitaireControllerImpl(new InputStreamReader(in, StandardCharsets.US_ASCII),
+              out, FlushPolicy.PER_MOVE, metrics).playGame(model);
+    } catch (IOException | IllegalStateException e) {
+      // The client went away, or the server is closing; either way the session is over.
+    } finally {
+      open.remove(socket);
+    }
+  }
+
+  /**
+   * Reads the line describing the board one byte at a time, so that nothing after it is read
+   * before the controller takes over the stream.
+   * @param in - the client's input.
+   * @return - a string, the line, or null if the client disconnected first.
+   * @throws IOException if the line cannot be read or is too long.
+   */
+  private static String readBoardLine(InputStream in) throws IOException {
+    StringBuilder line = new StringBuilder();
+    for (int c = in.read(); c != '\n'; c = in.read()) {
+      if (c < 0) {
+        return null;
+      }
+      if (line.length() == MAX_BOARD_LINE) {
+        throw new IOException("Board line too long.");
+      }
+      line.append((char) c);
+    }
+    return line.toString();
+  }
+
+  private static void closeQuietly(Socket socket) {
+    try {
+      socket.close();
+    } catch (IOException e) {
+      // Already closed.
+    }
+  }
+
+  /**
+   * Makes an executor that starts a virtual thread per task, if this JVM has virtual threads.
+   * It is looked up by reflection so that the server still runs on JVMs without them.
+   * @return - the executor, or null if there are no virtual threads.
+   */
+  private static ExecutorService newVirtualThreadExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+              .invoke(null);
+    } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+      // Before Java 21, or a preview release without previews enabled.
+      return null;
+    }
+  }
+
+  /**
+   * Makes daemon platform threads with small stacks for sessions.
+   * @return - the thread factory.
+   */
+  private static ThreadFactory platformThreads() {
+    AtomicInteger count = new AtomicInteger();
+    return task -> {
+      Thread thread = new Thread(null, task, "game-session-" + count.incrementAndGet(),
+              PLATFORM_STACK_SIZE);
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
@@ -0,0 +1,402 @@
+package marblesolitaure.model.driver;
+
+import marblesolitaure.model.MarbleSolitaireModel;
+import marblesolitaure.model.MoveLog;
+import marblesolitaure.model.PackedMove;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Saves games in progress as compact binary records and loads them back. A record is a
+ * little-endian header of 14 bytes, the marbles on the board as a bitmap, and the move log
+ * with each move as the number of its jump in the board geometry. Jump numbers take 2 bytes,
+ * or 4 on boards with more than 65536 jumps, such as triangles with sides of 150 or more:
+ *
+ * <pre>
+ *   0  magic "MS"      2  version         3  board type (0 english, 1 european,
+ *   4  board size      6  moves made (4)     2 triangular)
+ *  10  moves undone (4)                  14  bitmap, one bit per space, then the moves
+ *                                            made and undone
+ * </pre>
+ *
+ * <p>A 33 space english game with 10 moves made is 39 bytes, against about 100 characters for
+ * its game state alone. Loading copies the bitmap in one bulk read rather than parsing text.
+ * Records can be written to and read from a file in bulk through memory mapping. Only models
+ * made by SolitaireFactory can be saved.
+ */
+public final class GameSnapshot {
+  /**
+   * The version of the record format written by this class.
+   */
+  public static final int VERSION = 2;
+
+  private static final short MAGIC = 0x534D;
+  private static final int HEADER_LENGTH = 14;
+  // The most jumps a board can have for their numbers to be written in 2 bytes.
+  private static final int SHORT_JUMPS = 1 << 16;
+  private static final String[] TYPES = {"english", "european", "triangular"};
+  // How much of a file is mapped at a time when reading or writing records in bulk.
+  private static final int MAP_WINDOW = 64 << 20;
+
+  private GameSnapshot() {
+  }
+
+  /**
+   * The length of the record of a game.
+   * @param model - the game.
+   * @return - an int, the number of bytes.
+   * @throws IllegalArgumentException if the game cannot be saved, or its record would not
+   *         fit in an array.
+   */
+  public static int length(MarbleSolitaireModel model) throws IllegalArgumentException {
+    AbstractMarbleSolitaire game = saveable(model);
+    MoveLog log = game.moveLog();
+    BoardGeometry geometry = game.getGeometry();
+    long length = length(geometry.getType(), geometry.getSize(),
+            (long) log.size() + log.undoneSize());
+    if (length > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("The game is too long to save.");
+    }
+    return (int) length;
+  }
+
+  /**
+   * The length of the record of a game, worked out from the shape of its board without
+   * building the board, so that a record can be checked before its board is made.
+   * @param type - a string, the board type.
+   * @param size - int - the board size, which must be allowed for the type.
+   * @param moves - long - the number of moves made and undone.
+   * @return - a long, the number of bytes.
+   */
+  private static long length(String type, int size, long moves) {
+    return HEADER_LENGTH + (BoardShapes.cellCount(type, size) + 7) / 8
+            + jumpBytes(BoardShapes.jumpCount(type, size)) * moves;
+  }
+
+  /**
+   * The number of bytes each move takes in the record of a game on a board.
+   * @param jumps - long - the number of jumps of the board.
+   * @return - an int, 2 or 4.
+   */
+  private static int jumpBytes(long jumps) {
+    return jumps <= SHORT_JUMPS ? 2 : 4;
+  }
+
+  /**
+   * Writes the record of a game at the position of a buffer, and moves the position past it.
+   * @param model - the game.
+   * @param out - the buffer, which must have length(model) bytes remaining.
+   * @throws IllegalArgumentException if the game cannot be saved.
+   * @throws java.nio.BufferOverflowException if the buffer is too small.
+   */
+  public static void write(MarbleSolitaireModel model, ByteBuffer out)
+          throws IllegalArgumentException {
+    AbstractMarbleSolitaire game = saveable(model);
+    BoardGeometry geometry = game.getGeometry();
+    if (geometry.getSize() > 0xFFFF) {
+      throw new IllegalArgumentException("Board size " + geometry.getSize()
+              + " is too large to save.");
+    }
+    MoveLog log = game.moveLog();
+    boolean shortJumps = jumpBytes(geometry.getJumpCount()) == 2;
+    ByteOrder order = out.order();
+    out.order(ByteOrder.LITTLE_ENDIAN);
+    out.putShort(MAGIC);
+    out.put((byte) VERSION);
+    out.put((byte) typeCode(geometry.getType()));
+    out.putShort((short) geometry.getSize());
+    out.putInt(log.size());
+    out.putInt(log.undoneSize());
+
+    byte[] bitmap = new byte[(geometry.getCellCount() + 7) / 8];
+    for (int cell = 0; cell < geometry.getCellCount(); cell++) {
+      if (game.hasMarble(cell)) {
+        bitmap[cell >>> 3] |= (byte) (1 << (cell & 7));
+      }
+    }
+    out.put(bitmap);
+    for (int i = 0; i < log.size(); i++) {
+      putJump(out, jumpOf(geometry, log.get(i)), shortJumps);
+    }
+    for (int i = 0; i < log.undoneSize(); i++) {
+      putJump(out, jumpOf(geometry, log.getUndone(i)), shortJumps);
+    }
+    out.order(order);
+  }
+
+  private static void putJump(ByteBuffer out, int jump, boolean shortJumps) {
+    if (shortJumps) {
+      out.putShort((short) jump);
+    } else {
+      out.putInt(jump);
+    }
+  }
+
+  /**
+   * Reads a record at the position of a buffer, and moves the position past it.
+   * @param in - the buffer.
+   * @return - the game, as it was when it was saved, with the same moves to undo and redo.
+   * @throws IllegalArgumentException if the record is not a snapshot, is of another version,
+   *         describes a board or move that does not exist, or is cut short. The board is
+   *         only made once the buffer is known to hold the whole record.
+   */
+  public static MarbleSolitaireModel read(ByteBuffer in) throws IllegalArgumentException {
+    ByteOrder order = in.order();
+    in.order(ByteOrder.LITTLE_ENDIAN);
+    try {
+      if (in.remaining() < HEADER_LENGTH || in.getShort() != MAGIC) {
+        throw new IllegalArgumentException("Not a game snapshot.");
+      }
+      int version = in.get() & 0xFF;
+      if (version != VERSION) {
+        throw new IllegalArgumentException("Unsupported snapshot version " + version + ".");
+      }
+      int type = in.get() & 0xFF;
+      if (type >= TYPES.length) {
+        throw new IllegalArgumentException("Unknown board type " + type + ".");
+      }
+      int size = in.getShort() & 0xFFFF;
+      int made = in.getInt();
+      int undone = in.getInt();
+      if (made < 0 || undone < 0) {
+        throw new IllegalArgumentException("Invalid number of moves.");
+      }
+      BoardShapes.checkSize(TYPES[type], size);
+      if (in.remaining() < length(TYPES[type], size, (long) made + undone) - HEADER_LENGTH) {
+        throw new IllegalArgumentException("The snapshot is cut short.");
+      }
+
+      AbstractMarbleSolitaire game =
+              (AbstractMarbleSolitaire) SolitaireFactory.createModel(TYPES[type], size);
+      BoardGeometry geometry = game.getGeometry();
+      byte[] bitmap = new byte[(geometry.getCellCount() + 7) / 8];
+      in.get(bitmap);
+      game.setMarbles(bitmap);
+
+      MoveLog log = game.moveLog();
+      log.clear();
+      boolean shortJumps = jumpBytes(geometry.getJumpCount()) == 2;
+      for (long i = 0; i < (long) made + undone; i++) {
+        int jump = shortJumps ? in.getShort() & 0xFFFF : in.getInt();
+        if (jump < 0 || jump >= geometry.getJumpCount()) {
+          throw new IllegalArgumentException("Unknown jump " + jump + ".");
+        }
+        int from = geometry.getJumpFrom(jump);
+        int to = geometry.getJumpTo(jump);
+        log.push(PackedMove.pack(geometry.getRow(from), geometry.getCol(from),
+                geometry.getRow(to), geometry.getCol(to)));
+      }
+      for (int i = 0; i < undone; i++) {
+        log.undo();
+      }
+      return game;
+    } finally {
+      in.order(order);
+    }
+  }
+
+  /**
+   * Saves a game as a byte array.
+   * @param model - the game.
+   * @return - the record.
+   * @throws IllegalArgumentException if the game cannot be saved.
+   */
+  public static byte[] toBytes(MarbleSolitaireModel model) throws IllegalArgumentException {
+    ByteBuffer out = ByteBuffer.allocate(length(model));
+    write(model, out);
+    return out.array();
+  }
+
+  /**
+   * Loads a game from a byte array.
+   * @param record - the record.
+   * @return - the game.
+   * @throws IllegalArgumentException if the record cannot be read.
+   */
+  public static MarbleSolitaireModel fromBytes(byte[] record) throws IllegalArgumentException {
+    return read(ByteBuffer.wrap(record));
+  }
+
+  /**
+   * Saves many games to a file, one record after another, writing through memory mapped
+   * windows of the file. Anything already in the file is replaced.
+   * @param file - the file.
+   * @param models - the games.
+   * @throws IOException if the file cannot be written.
+   * @throws IllegalArgumentException if a game cannot be saved.
+   */
+  public static void writeAll(Path file, List<? extends MarbleSolitaireModel> models)
+          throws IOException, IllegalArgumentException {
+    writeAll(file, models, MAP_WINDOW);
+  }
+
+  /**
+   * Saves many games to a file as above, mapping about a given number of bytes of the file at
+   * a time. A record longer than that is mapped whole.
+   * @param file - the file.
+   * @param models - the games.
+   * @param mapWindow - int - the most bytes of whole records to map at a time.
+   * @throws IOException if the file cannot be written.
+   * @throws IllegalArgumentException if a game cannot be saved, or the window is not positive.
+   */
+  public static void writeAll(Path file, List<? extends MarbleSolitaireModel> models,
+                              int mapWindow) throws IOException, IllegalArgumentException {
+    if (mapWindow < 1) {
+      throw new IllegalArgumentException("Invalid map window " + mapWindow + ".");
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      long position = 0;
+      int next = 0;
+      while (next < models.size()) {
+        // Map as many whole records as fit in one window, but always at least one.
+        int end = next;
+        long windowLength = 0;
+        while (end < models.size()
+                && (end == next || windowLength + length(models.get(end)) <= mapWindow)) {
+          windowLength += length(models.get(end++));
+        }
+        MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_WRITE, position,
+                windowLength);
+        for (int i = next; i < end; i++) {
+          write(models.get(i), window);
+        }
+        window.force();
+        position += windowLength;
+        next = end;
+      }
+    }
+  }
+
+  /**
+   * Loads every game saved in a file, reading through memory mapped windows of the file.
+   * @param file - the file.
+   * @return - the games, in the order they were saved.
+   * @throws IOException if the file cannot be read.
+   * @throws IllegalArgumentException if a record cannot be read.
+   */
+  public static List<MarbleSolitaireModel> readAll(Path file)
+          throws IOException, IllegalArgumentException {
+    return readAll(file, MAP_WINDOW);
+  }
+
+  /**
+   * Loads every game saved in a file as above, mapping about a given number of bytes of the
+   * file at a time. A record longer than that is mapped whole.
+   * @param file - the file.
+   * @param mapWindow - int - the most bytes to map at a time, unless one record is longer.
+   * @return - the games, in the order they were saved.
+   * @throws IOException if the file cannot be read.
+   * @throws IllegalArgumentException if a record cannot be read, or the window is not
+   *         positive.
+   */
+  public static List<MarbleSolitaireModel> readAll(Path file, int mapWindow)
+          throws IOException, IllegalArgumentException {
+    if (mapWindow < 1) {
+      throw new IllegalArgumentException("Invalid map window " + mapWindow + ".");
+    }
+    List<MarbleSolitaireModel> models = new ArrayList<>();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      long position = 0;
+      // A window always holds at least one header, so the length of its first record is known.
+      int mapLength = Math.max(mapWindow, HEADER_LENGTH);
+      long windowLength = Math.min(mapLength, size);
+      while (position < size) {
+        MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                windowLength);
+        int start = 0;
+        while (start < window.limit() && fits(window, start)) {
+          window.position(start);
+          models.add(read(window));
+          start = window.position();
+        }
+        position += start;
+        windowLength = Math.min(mapLength, size - position);
+        if (start == 0) {
+          // The first record is longer than the window: map it whole, if the file holds it.
+          long length = recordLength(window, 0);
+          if (length <= window.limit() || length > size - position
+                  || length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Snapshot file ends in the middle of a record.");
+          }
+          windowLength = length;
+        }
+      }
+    }
+    return models;
+  }
+
+  /**
+   * Checks whether the whole record starting at some point of a window is in the window, so
+   * that a record cut by the end of a window is read again from the next one.
+   * @param window - the window.
+   * @param start - int - where the record starts.
+   * @return - true if the header and the rest of the record are in the window.
+   */
+  private static boolean fits(ByteBuffer window, int start) {
+    long length = recordLength(window, start);
+    return length >= 0 && window.limit() - start >= length;
+  }
+
+  /**
+   * Works out the length of the record starting at some point of a window from its header.
+   * @param window - the window.
+   * @param start - int - where the record starts.
+   * @return - a long, the number of bytes of the record, or of its header alone if the header
+   *         is not one this class reads, so that read reports what is wrong with it; or -1 if
+   *         the header is cut short by the end of the window.
+   */
+  private static long recordLength(ByteBuffer window, int start) {
+    if (window.limit() - start < HEADER_LENGTH) {
+      return -1;
+    }
+    ByteBuffer header = window.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    int type = header.get(start + 3) & 0xFF;
+    if (header.getShort(start) != MAGIC || (header.get(start + 2) & 0xFF) != VERSION
+            || type >= TYPES.length) {
+      // Let read report what is wrong with the record.
+      return HEADER_LENGTH;
+    }
+    int size = header.getShort(start + 4) & 0xFFFF;
+    try {
+      BoardShapes.checkSize(TYPES[type], size);
+    } catch (IllegalArgumentException e) {
+      return HEADER_LENGTH;
+    }
+    long moves = (header.getInt(start + 6) & 0xFFFFFFFFL) + (header.getInt(start + 10)
+            & 0xFFFFFFFFL);
+    return length(TYPES[type], size, moves);
+  }
+
+  private static AbstractMarbleSolitaire saveable(MarbleSolitaireModel model)
+          throws IllegalArgumentException {
+    if (!(model instanceof AbstractMarbleSolitaire)) {
+      throw new IllegalArgumentException("Only games made by SolitaireFactory can be saved.");
+    }
+    return (AbstractMarbleSolitaire) model;
+  }
+
+  private static int typeCode(String type) {
+    for (int code = 0; code < TYPES.length; code++) {
+      if (TYPES[code].equals(type)) {
+        return code;
+      }
+    }
+    throw new IllegalArgumentException("Unknown board type " + type + ".");
+  }
+
+  private static int jumpOf(BoardGeometry geometry, int move) {
+    return geometry.findJump(geometry.getCell(PackedMove.fromRow(move), PackedMove.fromCol(move)),
+            geometry.getCell(PackedMove.toRow(move), PackedMove.toCol(move)));
+  }
+}
@@ -1,5 +1,6 @@
 package marblesolitaure.model.driver;
 
+import marblesolitaure.controller.FlushPolicy;
 import marblesolitaure.controller.MarbleSolitaireControllerImpl;
 import marblesolitaure.model.MarbleSolitaireModel;
 
@@ -48,7 +49,7 @@ public final class MarbleSolitaire {
     }
 
     MarbleSolitaireControllerImpl controller = new MarbleSolitaireControllerImpl(
-            new InputStreamReader(System.in), System.out);
+            new InputStreamReader(System.in), System.out, FlushPolicy.PER_MOVE);
 
     controller.playGame(model);
 
@@ -3,11 +3,66 @@ package marblesolitaure.model.driver;
 import marblesolitaure.model.MarbleSolitaireModel;
 import marblesolitaure.model.MarbleSolitaireModelImpl;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * A class used to handle constructors of game boards for the main function for a
- * game of Marble Solitaire.
+ * game of Marble Solitaire. Also keeps the board geometries, so every game of the same
+ * type and size shares one. A geometry takes over 100 bytes per space, so it is only kept
+ * while something still uses it, and is built again if it is asked for after that.
  */
 public class SolitaireFactory {
+  private static final Map<String, GeometryReference> GEOMETRIES = new ConcurrentHashMap<>();
+  private static final ReferenceQueue<BoardGeometry> CLEARED = new ReferenceQueue<>();
+
+  /**
+   * A weak reference to a shared geometry that remembers its key in the cache, so that the
+   * entry can be removed once the geometry has been collected.
+   */
+  private static final class GeometryReference extends WeakReference<BoardGeometry> {
+    private final String key;
+
+    GeometryReference(String key, BoardGeometry geometry) {
+      super(geometry, CLEARED);
+      this.key = key;
+    }
+  }
+
+  /**
+   * Returns the geometry of a board, building it if no game, solver or caller still holds
+   * the one built before.
+   * @param type - a string, english european or triangular.
+   * @param size - an int, the size of the board (dimension in the case of
+   *             a triangular board and arm thickness in the case of european or english).
+   * @return - the shared geometry of that board.
+   * @throws IllegalArgumentException if the type is not known or the size is not allowed
+   *         for that type.
+   */
+  public static BoardGeometry getGeometry(String type, int size)
+          throws IllegalArgumentException {
+    for (Reference<? extends BoardGeometry> cleared = CLEARED.poll(); cleared != null;
+         cleared = CLEARED.poll()) {
+      GEOMETRIES.remove(((GeometryReference) cleared).key, cleared);
+    }
+    String key = type + ":" + size;
+    while (true) {
+      GeometryReference reference = GEOMETRIES.get(key);
+      BoardGeometry geometry = reference == null ? null : reference.get();
+      if (geometry != null) {
+        return geometry;
+      }
+      geometry = new BoardGeometry(type, size);
+      GeometryReference built = new GeometryReference(key, geometry);
+      if (reference == null ? GEOMETRIES.putIfAbsent(key, built) == null
+              : GEOMETRIES.replace(key, reference, built)) {
+        return geometry;
+      }
+    }
+  }
 
   /**
    * Creates a default marble solitaire model.
@@ -0,0 +1,86 @@
+package marblesolitaure.solver;
+
+/**
+ * A set of positions of fixed size, which forgets positions rather than grow once it is full.
+ * Positions are hashed to buckets of four slots in one array of longs. When a bucket is full,
+ * a new position takes the place of the one with the fewest marbles among its first three
+ * slots if it has at least as many, and the fourth slot otherwise: a dead position with more
+ * marbles stands for a bigger subtree that need not be searched again, while the fourth slot
+ * keeps the latest position, which a depth first search is the likeliest to meet again. The
+ * position 0 (an empty board) cannot be stored. Not safe for use by more than one thread.
+ */
+public final class BoundedPositionTable implements PositionSet {
+  private static final int BUCKET = 4;
+
+  private final long[] slots;
+  private final int mask;
+  private long size;
+
+  /**
+   * Makes an empty table.
+   * @param capacity - int - the most positions the table can hold, rounded up to a power of
+   *                 two.
+   * @throws IllegalArgumentException if the capacity is not positive or above 2^30.
+   */
+  public BoundedPositionTable(int capacity) throws IllegalArgumentException {
+    if (capacity < 1 || capacity > (1 << 30)) {
+      throw new IllegalArgumentException("Invalid table capacity " + capacity + ".");
+    }
+    int slotCount = Math.max(BUCKET, Integer.highestOneBit(capacity - 1) << 1);
+    this.slots = new long[slotCount];
+    this.mask = slotCount / BUCKET - 1;
+  }
+
+  @Override
+  public boolean contains(long position) {
+    int base = (PositionTable.mix(position) & mask) * BUCKET;
+    for (int i = base; i < base + BUCKET; i++) {
+      if (slots[i] == position) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public void add(long position) throws IllegalArgumentException {
+    if (position == 0) {
+      throw new IllegalArgumentException("The empty position cannot be stored.");
+    }
+    int base = (PositionTable.mix(position) & mask) * BUCKET;
+    int victim = base;
+    for (int i = base; i < base + BUCKET; i++) {
+      if (slots[i] == position) {
+        return;
+      }
+      if (slots[i] == 0) {
+        slots[i] = position;
+        size++;
+        return;
+      }
+      if (i < base + BUCKET - 1 && Long.bitCount(slots[i]) < Long.bitCount(slots[victim])) {
+        victim = i;
+      }
+    }
+    if (Long.bitCount(position) < Long.bitCount(slots[victim])) {
+      victim = base + BUCKET - 1;
+    }
+    slots[victim] = position;
+  }
+
+  /**
+   * The number of positions in the table.
+   * @return - a long, the number of positions stored and not yet replaced.
+   */
+  public long size() {
+    return size;
+  }
+
+  /**
+   * The number of positions the table has room for.
+   * @return - an int, the length of the slot array.
+   */
+  public int capacity() {
+    return slots.length;
+  }
+}
@@ -0,0 +1,90 @@
+package marblesolitaure.solver;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A hash set of positions that any number of threads can add to and look up at once without
+ * locking. Positions are claimed into an open-addressed array of longs with a single compare
+ * and set. The array never grows: a position that finds no free slot within a short run of
+ * the array is not stored, which a search only pays for by repeating some work. The position
+ * 0 (an empty board) cannot be stored.
+ */
+public final class ConcurrentPositionTable implements PositionSet {
+  // The most slots a position is looked for in before giving up.
+  private static final int MAX_PROBES = 32;
+
+  private final AtomicLongArray slots;
+  private final int mask;
+  private final LongAdder size = new LongAdder();
+
+  /**
+   * Makes an empty table.
+   * @param capacity - int - the most positions the table can hold, rounded up to a power of
+   *                 two.
+   * @throws IllegalArgumentException if the capacity is not positive or above 2^30.
+   */
+  public ConcurrentPositionTable(int capacity) throws IllegalArgumentException {
+    if (capacity < 1 || capacity > (1 << 30)) {
+      throw new IllegalArgumentException("Invalid table capacity " + capacity + ".");
+    }
+    int slotCount = Math.max(16, Integer.highestOneBit(capacity - 1) << 1);
+    this.slots = new AtomicLongArray(slotCount);
+    this.mask = slotCount - 1;
+  }
+
+  @Override
+  public boolean contains(long position) {
+    int i = PositionTable.mix(position) & mask;
+    for (int probe = 0; probe < MAX_PROBES; probe++) {
+      long slot = slots.get(i);
+      if (slot == position) {
+        return true;
+      }
+      if (slot == 0) {
+        return false;
+      }
+      i = (i + 1) & mask;
+    }
+    return false;
+  }
+
+  @Override
+  public void add(long position) throws IllegalArgumentException {
+    if (position == 0) {
+      throw new IllegalArgumentException("The empty position cannot be stored.");
+    }
+    int i = PositionTable.mix(position) & mask;
+    for (int probe = 0; probe < MAX_PROBES; probe++) {
+      long slot = slots.get(i);
+      if (slot == 0) {
+        if (slots.compareAndSet(i, 0, position)) {
+          size.increment();
+          return;
+        }
+        // Another thread took the slot first; look at what it stored.
+        slot = slots.get(i);
+      }
+      if (slot == position) {
+        return;
+      }
+      i = (i + 1) & mask;
+    }
+  }
+
+  /**
+   * The number of positions in the table.
+   * @return - a long, the number of positions stored.
+   */
+  public long size() {
+    return size.sum();
+  }
+
+  /**
+   * The number of positions the table has room for.
+   * @return - an int, the length of the slot array.
+   */
+  public int capacity() {
+    return slots.length();
+  }
+}
@@ -0,0 +1,92 @@
+package marblesolitaure.solver;
+
+/**
+ * The move a hint suggests, along with how sure it is: a hint found with time to spare
+ * knows whether the move still wins, while one cut short by its deadline is only the best
+ * move found within a number of moves ahead.
+ */
+public final class Hint {
+  private final int move;
+  private final boolean winning;
+  private final boolean exact;
+  private final int depth;
+  private final long nodes;
+
+  /**
+   * Makes a hint.
+   * @param move - int - the packed move, or -1 if there is no legal move.
+   * @param winning - boolean - whether the move is known to still leave one marble.
+   * @param exact - boolean - whether the search looked all the way to the end of the game.
+   * @param depth - int - the number of moves ahead the search looked.
+   * @param nodes - long - the number of positions the search visited.
+   */
+  Hint(int move, boolean winning, boolean exact, int depth, long nodes) {
+    this.move = move;
+    this.winning = winning;
+    this.exact = exact;
+    this.depth = depth;
+    this.nodes = nodes;
+  }
+
+  /**
+   * Whether there is a move to suggest.
+   * @return - false if the game has no legal move left.
+   */
+  public boolean hasMove() {
+    return move >= 0;
+  }
+
+  /**
+   * The suggested move.
+   * @return - an int, the move packed as described in PackedMove.
+   * @throws IllegalStateException if there is no legal move.
+   */
+  public int getMove() throws IllegalStateException {
+    if (move < 0) {
+      throw new IllegalStateException("There is no move to suggest.");
+    }
+    return move;
+  }
+
+  /**
+   * Whether the suggested move is known to still leave a single marble at the end.
+   * @return - true if a way to win after the move was found.
+   */
+  public boolean isWinning() {
+    return winning;
+  }
+
+  /**
+   * Whether the hint is the result of a full search, so that a move that is not winning is
+   * known to lose.
+   * @return - true if the search reached the end of every line of play.
+   */
+  public boolean isExact() {
+    return exact;
+  }
+
+  /**
+   * How far ahead the search looked before the hint was chosen.
+   * @return - an int, the number of moves of the last finished search.
+   */
+  public int getDepth() {
+    return depth;
+  }
+
+  /**
+   * The number of positions the search visited.
+   * @return - a long, the number of search nodes.
+   */
+  public long getNodes() {
+    return nodes;
+  }
+
+  @Override
+  public String toString() {
+    if (move < 0) {
+      return "no move";
+    }
+    return "move " + move + (winning ? " wins" : exact ? " loses" : "")
+            + " at depth " + depth + " after " + nodes + " nodes";
+  }
+}
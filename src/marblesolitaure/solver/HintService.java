@@ -0,0 +1,278 @@
+package marblesolitaure.solver;
+
+import marblesolitaure.model.MarbleSolitaireModel;
+import marblesolitaure.model.driver.BoardPosition;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Suggests the next move of a game within a time limit. The search deepens one move at a
+ * time, so whenever the deadline passes or the hint is cancelled there is a best move from
+ * the last depth that was searched to the end. Moves are ranked by how many jumps they allow
+ * within the depth and then by how many jumps are left open at its end. After each depth,
+ * the moves are searched in that order to the end of the game, for as long as the ranking
+ * has taken so far, in case one of them leaves a single marble; such a move ends the search
+ * at once, and so does a depth that reaches the end of every line of play. With a
+ * RetrogradeDatabase for the board, one probe per legal move either finds a winning move or
+ * proves the game lost, and nothing is searched.
+ *
+ * <p>The game itself is never changed, and a service may be used by many threads at once.
+ */
+public final class HintService {
+  // The search reads the clock and the cancel flag once per this many positions.
+  private static final int CHECK_MASK = 255;
+  private static final int WIN = Integer.MAX_VALUE;
+  // The number of positions whose rank one search remembers, as a power of two.
+  private static final int TABLE_BITS = 16;
+
+  private final RetrogradeDatabase database;
+
+  /**
+   * Makes a service that searches for every hint.
+   */
+  public HintService() {
+    this(null);
+  }
+
+  /**
+   * Makes a service that first asks a database which moves still win.
+   * @param database - the database, used for games on its board, or null for none.
+   */
+  public HintService(RetrogradeDatabase database) {
+    this.database = database;
+  }
+
+  /**
+   * Suggests a move, searching until a deadline.
+   * @param model - the game.
+   * @param deadline - long - when to answer, as a value of System.nanoTime().
+   * @return - the hint.
+   * @throws IllegalArgumentException if the model cannot describe its board, or its board has
+   *         more than 64 valid spaces.
+   */
+  public Hint hint(MarbleSolitaireModel model, long deadline) throws IllegalArgumentException {
+    return hint(model, deadline, null);
+  }
+
+  /**
+   * Suggests a move, searching until a deadline or until another thread sets a flag, which
+   * makes the search answer as if its deadline had passed.
+   * @param model - the game.
+   * @param deadline - long - when to answer, as a value of System.nanoTime().
+   * @param cancel - a flag that ends the search when set, or null.
+   * @return - the hint.
+   * @throws IllegalArgumentException if the model cannot describe its board, or its board has
+   *         more than 64 valid spaces.
+   */
+  public Hint hint(MarbleSolitaireModel model, long deadline, AtomicBoolean cancel)
+          throws IllegalArgumentException {
+    if (!(model instanceof BoardPosition)) {
+      throw new IllegalArgumentException("The hint service cannot read this game's board.");
+    }
+    SearchBoard board = new SearchBoard(((BoardPosition) model).getGeometry());
+    long start = board.positionOf(model);
+    int[] jumps = new int[board.getJumpCount()];
+    int count = board.listJumps(start, jumps);
+    if (count == 0) {
+      return new Hint(-1, false, true, 0, 0);
+    }
+    int remaining = Long.bitCount(start) - 1;
+    if (database != null && database.getGeometry() == board.getGeometry()) {
+      for (int i = 0; i < count; i++) {
+        if (database.isWinnable(board.jump(start, jumps[i]))) {
+          return new Hint(board.toPackedMove(jumps[i]), true, true, remaining, i + 1);
+        }
+      }
+      // No move leads to a winnable position, so the game is lost whatever is played.
+      return new Hint(board.toPackedMove(jumps[0]), false, true, remaining, count);
+    }
+
+    // Until a depth is finished, the first move in the board's order is the best known.
+    Deepening search = new Deepening(board, remaining, deadline, cancel);
+    int finished = 0;
+    while (finished < remaining && !search.stopped()) {
+      int limit = finished + 1;
+      search.cutoff = false;
+      int bestValue = -1;
+      int bestIndex = 0;
+      for (int i = 0; i < count && !search.stopped; i++) {
+        int value = search.value(board.jump(start, jumps[i]), 1, limit);
+        if (value == WIN) {
+          return new Hint(board.toPackedMove(jumps[i]), true, true, limit, search.nodes);
+        }
+        if (value > bestValue) {
+          bestValue = value;
+          bestIndex = i;
+        }
+      }
+      if (search.stopped) {
+        // The depth was not finished, so its ranking is not complete.
+        break;
+      }
+      // Search the best move first at the next depth.
+      int jump = jumps[bestIndex];
+      System.arraycopy(jumps, 0, jumps, 1, bestIndex);
+      jumps[0] = jump;
+      finished = limit;
+      if (!search.cutoff) {
+        return new Hint(board.toPackedMove(jump), false, true, limit, search.nodes);
+      }
+      // A win may lie far beyond the depth, so look for one to the end of the game, best
+      // moves first, for as long again as the search has taken so far.
+      search.budget = search.nodes * 2;
+      for (int i = 0; i < count && !search.exhausted(); i++) {
+        if (search.prove(board.jump(start, jumps[i]), 1)) {
+          return new Hint(board.toPackedMove(jumps[i]), true, true, remaining, search.nodes);
+        }
+      }
+    }
+    return new Hint(board.toPackedMove(jumps[0]), false, false, finished, search.nodes);
+  }
+
+  /**
+   * The state of one hint's search, used by a single thread.
+   */
+  private static final class Deepening {
+    private final SearchBoard board;
+    private final SymmetryTable symmetry;
+    private final PositionTable dead;
+    private final PositionPruner pruner;
+    private final long deadline;
+    private final AtomicBoolean cancel;
+    private final int[][] buffers;
+    // Ranks of positions searched before, keyed by canonical position and overwritten when
+    // two positions share a slot: the moves looked ahead in the high 16 bits of each value,
+    // and the rank less 64 per move made to reach the position in the low 16.
+    private final long[] keys = new long[1 << TABLE_BITS];
+    private final int[] ranks = new int[1 << TABLE_BITS];
+    private long nodes;
+    private boolean stopped;
+    // Whether the current depth left any line unfinished.
+    private boolean cutoff;
+    // The node count at which prove gives up.
+    private long budget;
+
+    Deepening(SearchBoard board, int moves, long deadline, AtomicBoolean cancel) {
+      this.board = board;
+      this.symmetry = new SymmetryTable(board.getGeometry());
+      this.dead = new PositionTable(1 << 12);
+      this.pruner = new PositionPruner(board.getGeometry());
+      this.deadline = deadline;
+      this.cancel = cancel;
+      this.buffers = new int[moves + 1][board.getJumpCount()];
+    }
+
+    /**
+     * Checks the deadline and the cancel flag.
+     * @return - true if the search should stop.
+     */
+    boolean stopped() {
+      if (!stopped && (System.nanoTime() - deadline >= 0
+              || (cancel != null && cancel.get()))) {
+        stopped = true;
+      }
+      return stopped;
+    }
+
+    /**
+     * Checks whether prove should give up, because the search is stopped or its budget of
+     * positions is spent.
+     * @return - true if prove should give up.
+     */
+    boolean exhausted() {
+      return stopped || nodes >= budget;
+    }
+
+    /**
+     * Looks for a way to leave one marble from a position, to the end of the game, as Search
+     * does, skipping positions the pruner proves hopeless, but giving up when exhausted.
+     * @param position - a long, the position.
+     * @param moves - int - the number of moves made from the position the hint is for.
+     * @return - true if one marble can be left; false if not, or if the search gave up.
+     */
+    boolean prove(long position, int moves) {
+      if ((++nodes & CHECK_MASK) == 0 && stopped()) {
+        return false;
+      }
+      if ((position & (position - 1)) == 0) {
+        return true;
+      }
+      long key = symmetry.canonical(position);
+      if (dead.contains(key)) {
+        return false;
+      }
+      if (!pruner.canFinish(position, 0L)) {
+        dead.add(key);
+        return false;
+      }
+      int[] jumps = buffers[moves];
+      int count = board.listJumps(position, jumps);
+      for (int i = 0; i < count; i++) {
+        if (prove(board.jump(position, jumps[i]), moves + 1)) {
+          return true;
+        }
+        if (exhausted()) {
+          return false;
+        }
+      }
+      dead.add(key);
+      return false;
+    }
+
+    /**
+     * Ranks a position by searching a number of moves ahead. Positions proven to be dead ends
+     * are remembered, as in Search, and ranked as if no jumps were left. The ranks of other
+     * positions are remembered too, and used again whenever the same position, or a
+     * symmetric copy, is met with no more moves left to look ahead than it was searched with.
+     * @param position - a long, the position.
+     * @param moves - int - the number of moves made from the position the hint is for.
+     * @param limit - int - the most moves to look ahead from that position.
+     * @return - an int, WIN if one marble can be left, otherwise 64 times the most moves made
+     *         in a line plus the number of jumps open at its end.
+     */
+    int value(long position, int moves, int limit) {
+      if ((++nodes & CHECK_MASK) == 0 && stopped()) {
+        return 0;
+      }
+      if ((position & (position - 1)) == 0) {
+        return WIN;
+      }
+      long key = symmetry.canonical(position);
+      if (dead.contains(key)) {
+        return moves * 64;
+      }
+      int[] jumps = buffers[moves];
+      int count = board.listJumps(position, jumps);
+      if (moves == limit) {
+        cutoff = true;
+        return moves * 64 + Math.min(count, 63);
+      }
+      int ahead = limit - moves;
+      int slot = (int) (key * 0x9E3779B97F4A7C15L >>> (64 - TABLE_BITS));
+      if (keys[slot] == key && ranks[slot] >>> 16 >= ahead) {
+        // Only positions whose search was cut off are kept here.
+        cutoff = true;
+        return moves * 64 + (ranks[slot] & 0xFFFF);
+      }
+      boolean outer = cutoff;
+      cutoff = false;
+      int best = moves * 64;
+      for (int i = 0; i < count; i++) {
+        int value = value(board.jump(position, jumps[i]), moves + 1, limit);
+        if (value == WIN || stopped) {
+          cutoff |= outer;
+          return value;
+        }
+        best = Math.max(best, value);
+      }
+      if (!cutoff) {
+        dead.add(key);
+      } else {
+        keys[slot] = key;
+        ranks[slot] = ahead << 16 | (best - moves * 64);
+      }
+      cutoff |= outer;
+      return best;
+    }
+  }
+}
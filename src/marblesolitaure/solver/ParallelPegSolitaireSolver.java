@@ -0,0 +1,243 @@
+package marblesolitaure.solver;
+
+import marblesolitaure.model.MarbleSolitaireModel;
+import marblesolitaure.model.driver.BoardPosition;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Solves a game of marble solitaire like PegSolitaireSolver, on several threads at once. The
+ * first few moves of the search tree are split into fork join tasks, so idle threads steal
+ * whole subtrees from busy ones, and every subtree below that is searched depth first by one
+ * thread. All threads share one lock free table of dead positions, keyed by canonical
+ * position under the board's symmetries, so a dead end proven by one thread is never searched
+ * by another. Positions a PositionPruner proves hopeless are not searched at all. Once any
+ * thread finds a solution the others stop.
+ */
+public class ParallelPegSolitaireSolver {
+  // About how many subtrees to split the search into for each thread.
+  private static final int TASKS_PER_THREAD = 64;
+
+  private final SearchBoard board;
+  private final long start;
+  private final int parallelism;
+  private final int tableCapacity;
+
+  /**
+   * Makes a solver for the current position of a game that uses every available processor.
+   * The dead position table is sized to the board, up to 2^22 positions.
+   * @param model - the game to solve.
+   * @throws IllegalArgumentException if the model cannot describe its board, or its board has
+   *         more than 64 valid spaces.
+   */
+  public ParallelPegSolitaireSolver(MarbleSolitaireModel model) throws IllegalArgumentException {
+    this(model, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Makes a solver for the current position of a game that uses a given number of threads.
+   * @param model - the game to solve.
+   * @param parallelism - int - the number of threads to search with.
+   * @throws IllegalArgumentException if the model cannot describe its board, its board has
+   *         more than 64 valid spaces, or the number of threads is not positive.
+   */
+  public ParallelPegSolitaireSolver(MarbleSolitaireModel model, int parallelism)
+          throws IllegalArgumentException {
+    this(model, parallelism, PegSolitaireSolver.defaultCapacity(model));
+  }
+
+  /**
+   * Makes a solver for the current position of a game that uses a given number of threads
+   * and a dead position table of a given size.
+   * @param model - the game to solve.
+   * @param parallelism - int - the number of threads to search with.
+   * @param tableCapacity - int - the most dead positions to remember.
+   * @throws IllegalArgumentException if the model cannot describe its board, its board has
+   *         more than 64 valid spaces, or the number of threads or table capacity is not
+   *         positive.
+   */
+  public ParallelPegSolitaireSolver(MarbleSolitaireModel model, int parallelism,
+                                    int tableCapacity) throws IllegalArgumentException {
+    if (!(model instanceof BoardPosition)) {
+      throw new IllegalArgumentException("The solver cannot read this game's board.");
+    }
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Invalid number of threads " + parallelism + ".");
+    }
+    if (tableCapacity < 1) {
+      throw new IllegalArgumentException("Invalid table capacity " + tableCapacity + ".");
+    }
+    this.board = new SearchBoard(((BoardPosition) model).getGeometry());
+    this.start = board.positionOf(model);
+    this.parallelism = parallelism;
+    this.tableCapacity = tableCapacity;
+  }
+
+  /**
+   * The number of threads the solver searches with.
+   * @return - an int, the parallelism of the solver.
+   */
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  /**
+   * Looks for moves that leave a single marble anywhere on the board.
+   * @return - the solution, or a result saying there is none.
+   */
+  public Solution solve() {
+    return run(0L);
+  }
+
+  /**
+   * Looks for moves that leave a single marble on a chosen space.
+   * @param row - int - the row of the space the last marble should end on.
+   * @param col - int - the column of the space the last marble should end on.
+   * @return - the solution, or a result saying there is none.
+   * @throws IllegalArgumentException if the space is not a valid space of the board.
+   */
+  public Solution solve(int row, int col) throws IllegalArgumentException {
+    int cell = board.getGeometry().getCell(row, col);
+    if (cell < 0) {
+      throw new IllegalArgumentException("Invalid target position (" + row + "," + col + ").");
+    }
+    return run(1L << cell);
+  }
+
+  /**
+   * Runs the search on a pool of its own, which is shut down afterwards.
+   * @param target - a long, the one marble position to end on, or 0 for any.
+   * @return - the result of the search.
+   */
+  private Solution run(long target) {
+    if (start == 0) {
+      return new Solution(false, new int[0], 0);
+    }
+    Run run = new Run(target);
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    int[] jumps;
+    try {
+      jumps = pool.invoke(run.new SplitTask(start, 1));
+    } finally {
+      pool.shutdown();
+    }
+    int[] packed = new int[jumps == null ? 0 : jumps.length];
+    for (int i = 0; i < packed.length; i++) {
+      packed[i] = board.toPackedMove(jumps[i]);
+    }
+    return new Solution(jumps != null, packed, run.nodes.sum());
+  }
+
+  /**
+   * The state shared by every task of one search.
+   */
+  private final class Run {
+    private final long target;
+    private final SymmetryTable symmetry;
+    private final PositionPruner pruner = new PositionPruner(board.getGeometry());
+    private final ConcurrentPositionTable dead = new ConcurrentPositionTable(tableCapacity);
+    private final AtomicBoolean found = new AtomicBoolean();
+    private final LongAdder nodes = new LongAdder();
+
+    private Run(long target) {
+      this.target = target;
+      this.symmetry = new SymmetryTable(board.getGeometry(),
+              target == 0 ? -1 : Long.numberOfTrailingZeros(target));
+    }
+
+    /**
+     * Searches the subtree below one position. Near the top of the tree the subtree is split
+     * into a task for each move; lower down it is searched depth first on the current thread.
+     */
+    private final class SplitTask extends RecursiveTask<int[]> {
+      private static final long serialVersionUID = 1L;
+
+      private final long position;
+      private final int width;
+
+      /**
+       * Makes a task.
+       * @param position - a long, the position to search from.
+       * @param width - int - about how many tasks the tree has been split into at this depth.
+       */
+      private SplitTask(long position, int width) {
+        this.position = position;
+        this.width = width;
+      }
+
+      /**
+       * Searches the subtree.
+       * @return - the jumps from this position to a solution, or null if there is none or
+       *         another task found one first.
+       */
+      @Override
+      protected int[] compute() {
+        int[] jumps = new int[board.getJumpCount()];
+        int count = board.listJumps(position, jumps);
+        if (count == 0 || (long) width * count > (long) parallelism * TASKS_PER_THREAD) {
+          return searchHere();
+        }
+        nodes.increment();
+        long key = symmetry.canonical(position);
+        if (dead.contains(key) || found.get()) {
+          return null;
+        }
+        if (!pruner.canFinish(position, target)) {
+          dead.add(key);
+          return null;
+        }
+
+        // Moves that lead to symmetric copies of the same position are only searched once.
+        List<SplitTask> tasks = new ArrayList<>(count);
+        List<Integer> taskJumps = new ArrayList<>(count);
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+          long next = board.jump(position, jumps[i]);
+          if (seen.add(symmetry.canonical(next))) {
+            tasks.add(new SplitTask(next, width * count));
+            taskJumps.add(jumps[i]);
+          }
+        }
+        for (int i = tasks.size() - 1; i > 0; i--) {
+          tasks.get(i).fork();
+        }
+        int[] solution = null;
+        for (int i = 0; i < tasks.size(); i++) {
+          int[] rest = i == 0 ? tasks.get(0).compute() : tasks.get(i).join();
+          if (rest != null && solution == null) {
+            solution = new int[rest.length + 1];
+            solution[0] = taskJumps.get(i);
+            System.arraycopy(rest, 0, solution, 1, rest.length);
+          }
+        }
+        if (solution == null && !found.get()) {
+          dead.add(key);
+        }
+        return solution;
+      }
+
+      /**
+       * Searches the subtree depth first on the current thread.
+       * @return - the jumps from this position to a solution, or null if there is none or
+       *         another task found one first.
+       */
+      private int[] searchHere() {
+        int moves = Long.bitCount(position) - 1;
+        Search search = new Search(board, symmetry, dead, pruner, target, moves, found);
+        boolean solved = search.search(position, 0);
+        nodes.add(search.getNodes());
+        if (solved && found.compareAndSet(false, true)) {
+          return search.getPath(moves);
+        }
+        return null;
+      }
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package marblesolitaure.solver;
+
+import marblesolitaure.model.MarbleSolitaireModel;
+import marblesolitaure.model.driver.BoardPosition;
+
+/**
+ * Solves a game of marble solitaire: finds moves that leave a single marble, optionally on a
+ * chosen space, or proves that no such moves exist. Searches depth first, trying first the
+ * moves that leave the marbles least scattered, and remembers the positions it has proven to
+ * be dead ends in a table of fixed size, so that no remembered position, nor any rotation or
+ * reflection of it, is searched twice. Skips positions a PositionPruner proves can never be
+ * won. Works on any model that describes its board through BoardPosition, which includes
+ * every model made by the SolitaireFactory, as long as the board has at most 64 valid spaces.
+ */
+public class PegSolitaireSolver {
+  // Log 2 of the most dead positions a solver makes room for unless told otherwise: 2^22
+  // slots take 32 MB.
+  private static final int MAX_DEFAULT_BITS = 22;
+
+  private final SearchBoard board;
+  private final long start;
+  private final int tableCapacity;
+
+  /**
+   * Makes a solver for the current position of a game. The game itself is not changed. The
+   * dead position table is sized to the board, up to 2^22 positions.
+   * @param model - the game to solve.
+   * @throws IllegalArgumentException if the model cannot describe its board, or its board has
+   *         more than 64 valid spaces.
+   */
+  public PegSolitaireSolver(MarbleSolitaireModel model) throws IllegalArgumentException {
+    this(model, defaultCapacity(model));
+  }
+
+  /**
+   * Makes a solver for the current position of a game with a dead position table of a given
+   * size. Once the table is full, older dead positions make way for new ones.
+   * @param model - the game to solve.
+   * @param tableCapacity - int - the most dead positions to remember.
+   * @throws IllegalArgumentException if the model cannot describe its board, its board has
+   *         more than 64 valid spaces, or the table capacity is not positive.
+   */
+  public PegSolitaireSolver(MarbleSolitaireModel model, int tableCapacity)
+          throws IllegalArgumentException {
+    if (!(model instanceof BoardPosition)) {
+      throw new IllegalArgumentException("The solver cannot read this game's board.");
+    }
+    if (tableCapacity < 1) {
+      throw new IllegalArgumentException("Invalid table capacity " + tableCapacity + ".");
+    }
+    this.board = new SearchBoard(((BoardPosition) model).getGeometry());
+    this.start = board.positionOf(model);
+    this.tableCapacity = tableCapacity;
+  }
+
+  /**
+   * Picks a table size for a game from its board alone, so that solvers running side by side
+   * never claim more memory than their boards call for: room for every position of a small
+   * board, and 2^22 positions for a large one.
+   * @param model - the game to solve.
+   * @return - an int, the number of dead positions to make room for.
+   */
+  static int defaultCapacity(MarbleSolitaireModel model) {
+    int bits = MAX_DEFAULT_BITS;
+    if (model instanceof BoardPosition) {
+      bits = Math.min(bits, ((BoardPosition) model).getGeometry().getCellCount());
+    }
+    return 1 << Math.max(bits, 10);
+  }
+
+  /**
+   * Looks for moves that leave a single marble anywhere on the board.
+   * @return - the solution, or a result saying there is none.
+   */
+  public Solution solve() {
+    return run(0L);
+  }
+
+  /**
+   * Looks for moves that leave a single marble on a chosen space.
+   * @param row - int - the row of the space the last marble should end on.
+   * @param col - int - the column of the space the last marble should end on.
+   * @return - the solution, or a result saying there is none.
+   * @throws IllegalArgumentException if the space is not a valid space of the board.
+   */
+  public Solution solve(int row, int col) throws IllegalArgumentException {
+    int cell = board.getGeometry().getCell(row, col);
+    if (cell < 0) {
+      throw new IllegalArgumentException("Invalid target position (" + row + "," + col + ").");
+    }
+    return run(1L << cell);
+  }
+
+  /**
+   * Runs the search.
+   * @param target - a long, the one marble position to end on, or 0 for any.
+   * @return - the result of the search.
+   */
+  private Solution run(long target) {
+    int moves = Long.bitCount(start) - 1;
+    int targetCell = target == 0 ? -1 : Long.numberOfTrailingZeros(target);
+    SymmetryTable symmetry = new SymmetryTable(board.getGeometry(), targetCell);
+    Search search = new Search(board, symmetry, new BoundedPositionTable(tableCapacity),
+            new PositionPruner(board.getGeometry()), target, moves, null);
+    boolean solved = start != 0 && search.search(start, 0);
+    int[] jumps = solved ? search.getPath(moves) : new int[0];
+    int[] packed = new int[jumps.length];
+    for (int i = 0; i < jumps.length; i++) {
+      packed[i] = board.toPackedMove(jumps[i]);
+    }
+    return new Solution(solved, packed, search.getNodes());
+  }
+}
@@ -0,0 +1,306 @@
+package marblesolitaure.solver;
+
+import marblesolitaure.model.MarbleSolitaireModel;
+import marblesolitaure.model.MoveGenerator;
+import marblesolitaure.model.PackedMove;
+import marblesolitaure.model.Undoable;
+import marblesolitaure.model.driver.BoardGeometry;
+import marblesolitaure.model.driver.BoardPosition;
+import marblesolitaure.model.driver.SolitaireFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Plays many games from one starting position, each move picked at random among the legal
+ * ones, and counts how many marbles each game ends with. This rates how hard a board and
+ * starting hole are: the more games end with one marble, the easier it is.
+ *
+ * <p>The games are split evenly among a number of threads. Each thread makes one game of its
+ * own and plays every one of its games from it, so nothing is made after the start. On a
+ * board of up to 64 spaces a thread plays on the position of the game as a bit mask, as
+ * SearchBoard does, which takes a fraction of a microsecond a move. On larger boards it plays
+ * on the game itself, through MoveGenerator, and takes all the moves back through Undoable
+ * after each game. Each thread also has its own random numbers, split from one seed, so the
+ * results depend only on the seed, the number of games and the number of threads.
+ */
+public final class PlayoutEngine {
+
+  /**
+   * Plays random games from the command line and prints the results.
+   * @param args - optionally -playouts n, -threads n and -seed n, then the board type and
+   *             optionally its size and the row and column of its empty space, all as in
+   *             SolitaireFactory.
+   */
+  public static void main(String[] args) {
+    long playouts = 10_000_000;
+    int threads = Runtime.getRuntime().availableProcessors();
+    long seed = System.nanoTime();
+    int next = 0;
+    for (; next + 1 < args.length && args[next].startsWith("-"); next += 2) {
+      switch (args[next]) {
+        case "-playouts":
+          playouts = Long.parseLong(args[next + 1]);
+          break;
+        case "-threads":
+          threads = Integer.parseInt(args[next + 1]);
+          break;
+        case "-seed":
+          seed = Long.parseLong(args[next + 1]);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option " + args[next] + ".");
+      }
+    }
+    if (next >= args.length) {
+      System.out.println("usage: PlayoutEngine [-playouts n] [-threads n] [-seed n] "
+              + "type [size [row col]]");
+      return;
+    }
+    String[] board = new String[args.length - next];
+    System.arraycopy(args, next, board, 0, board.length);
+    System.out.print(run(() -> createModel(board), playouts, threads, seed));
+  }
+
+  /**
+   * Makes the game to play.
+   * @param args - the board type, then optionally its size and the row and column of its empty
+   *             space.
+   * @return - the game.
+   * @throws IllegalArgumentException if the board type is unknown.
+   */
+  private static MarbleSolitaireModel createModel(String[] args)
+          throws IllegalArgumentException {
+    MarbleSolitaireModel model;
+    if (args.length >= 4) {
+      model = SolitaireFactory.createModel(args[0], Integer.parseInt(args[1]),
+              Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+    } else if (args.length >= 2) {
+      model = SolitaireFactory.createModel(args[0], Integer.parseInt(args[1]));
+    } else {
+      model = SolitaireFactory.createModel(args[0]);
+    }
+    if (model == null) {
+      throw new IllegalArgumentException("Unknown board type " + args[0] + ".");
+    }
+    return model;
+  }
+
+  /**
+   * Plays random games.
+   * @param start - makes a new game in the starting position, once per thread. The games it
+   *              makes must describe their board through BoardPosition, or list their moves
+   *              through MoveGenerator and take them back through Undoable; every model made
+   *              by SolitaireFactory does both.
+   * @param playouts - long - the number of games to play.
+   * @param threads - int - the number of threads to play on.
+   * @param seed - long - the seed of the random moves.
+   * @return - the number of games that ended with each score.
+   * @throws IllegalArgumentException if the number of games is negative, the number of
+   *         threads is not positive, or the games can be played neither way.
+   */
+  public static PlayoutStats run(Supplier<? extends MarbleSolitaireModel> start, long playouts,
+                                 int threads, long seed) throws IllegalArgumentException {
+    if (playouts < 0) {
+      throw new IllegalArgumentException("Invalid number of playouts " + playouts + ".");
+    }
+    if (threads < 1) {
+      throw new IllegalArgumentException("Invalid number of threads " + threads + ".");
+    }
+    long begin = System.nanoTime();
+    // Every thread's random numbers are split off here, in order, before any thread starts.
+    SplittableRandom random = new SplittableRandom(seed);
+    List<Worker> workers = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      long share = playouts / threads + (i < playouts % threads ? 1 : 0);
+      workers.add(new Worker(start, share, random.split()));
+    }
+    long[] scores;
+    if (threads == 1) {
+      scores = workers.get(0).call();
+    } else {
+      ExecutorService pool = Executors.newFixedThreadPool(threads);
+      try {
+        scores = new long[0];
+        for (Future<long[]> result : pool.invokeAll(workers)) {
+          scores = add(scores, result.get());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while playing games.", e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw new IllegalStateException(e.getCause());
+      } finally {
+        pool.shutdownNow();
+      }
+    }
+    return new PlayoutStats(scores, System.nanoTime() - begin);
+  }
+
+  /**
+   * Adds two score counts.
+   * @param a - one count, indexed by score.
+   * @param b - the other.
+   * @return - the sum, as long as the longer of the two.
+   */
+  private static long[] add(long[] a, long[] b) {
+    long[] sum = new long[Math.max(a.length, b.length)];
+    for (int i = 0; i < sum.length; i++) {
+      sum[i] = (i < a.length ? a[i] : 0) + (i < b.length ? b[i] : 0);
+    }
+    return sum;
+  }
+
+  /**
+   * The games of one thread.
+   */
+  private static final class Worker implements Callable<long[]> {
+    private final Supplier<? extends MarbleSolitaireModel> start;
+    private final long playouts;
+    private final SplittableRandom random;
+
+    Worker(Supplier<? extends MarbleSolitaireModel> start, long playouts,
+           SplittableRandom random) {
+      this.start = start;
+      this.playouts = playouts;
+      this.random = random;
+    }
+
+    @Override
+    public long[] call() {
+      MarbleSolitaireModel model = start.get();
+      long[] scores = new long[model.getScore() + 1];
+      if (model instanceof BoardPosition
+              && ((BoardPosition) model).getGeometry().getCellCount() <= 64) {
+        playBits(new SearchBoard(((BoardPosition) model).getGeometry()), model, scores);
+      } else if (model instanceof MoveGenerator && model instanceof Undoable) {
+        playModel(model, scores);
+      } else {
+        throw new IllegalArgumentException("Random games need a model that describes its "
+                + "board, or lists and takes back its moves.");
+      }
+      return scores;
+    }
+
+    /**
+     * Plays the games on a bit mask of the starting position. The legal jumps are found from
+     * whichever are fewer, the marbles or the empty spaces: the jumps that start at each
+     * marble, or the jumps that end at each empty space.
+     * @param board - the board of the game.
+     * @param model - the game in its starting position.
+     * @param scores - the number of games that ended with each score, to add to.
+     */
+    private void playBits(SearchBoard board, MarbleSolitaireModel model, long[] scores) {
+      BoardGeometry geometry = board.getGeometry();
+      int cells = geometry.getCellCount();
+      long full = board.getFullPosition();
+      // starts[cell] holds, for each jump starting at the cell, the mask of its start and
+      // middle and then the mask of its end; landings[cell] the same for jumps ending there.
+      long[][] starts = new long[cells][];
+      long[][] landings = new long[cells][];
+      for (int cell = 0; cell < cells; cell++) {
+        starts[cell] = jumpMasks(geometry, cell, true);
+        landings[cell] = jumpMasks(geometry, cell, false);
+      }
+      long first = board.positionOf(model);
+      long[] needs = new long[board.getJumpCount()];
+      long[] ends = new long[board.getJumpCount()];
+      for (long game = 0; game < playouts; game++) {
+        scores[Long.bitCount(playout(first, full, starts, landings, needs, ends))]++;
+      }
+    }
+
+    /**
+     * Plays one game on a bit mask.
+     * @param position - a long, the starting position.
+     * @param full - a long, the position with every space full.
+     * @param starts - the masks of the jumps that start at each space, as from jumpMasks.
+     * @param landings - the masks of the jumps that end at each space.
+     * @param needs - room for the start and middle masks of every legal jump.
+     * @param ends - room for the end masks of every legal jump.
+     * @return - a long, the position the game ends in.
+     */
+    private long playout(long position, long full, long[][] starts, long[][] landings,
+                         long[] needs, long[] ends) {
+      int half = Long.bitCount(full) / 2;
+      while (true) {
+        int count = 0;
+        boolean fromMarbles = Long.bitCount(position) <= half;
+        long spaces = fromMarbles ? position : full & ~position;
+        long[][] lists = fromMarbles ? starts : landings;
+        for (; spaces != 0; spaces &= spaces - 1) {
+          long[] masks = lists[Long.numberOfTrailingZeros(spaces)];
+          for (int i = 0; i < masks.length; i += 2) {
+            if ((position & masks[i]) == masks[i] && (position & masks[i + 1]) == 0) {
+              needs[count] = masks[i];
+              ends[count++] = masks[i + 1];
+            }
+          }
+        }
+        if (count == 0) {
+          return position;
+        }
+        int jump = random.nextInt(count);
+        position ^= needs[jump] ^ ends[jump];
+      }
+    }
+
+    /**
+     * The masks of every jump that starts, or ends, at a space.
+     * @param geometry - the shape of the board.
+     * @param cell - int - the number of the space.
+     * @param start - boolean - true for jumps that start at the space, false for jumps that
+     *              end there.
+     * @return - for each jump, the mask of its start and middle followed by the mask of its
+     *         end.
+     */
+    private static long[] jumpMasks(BoardGeometry geometry, int cell, boolean start) {
+      long[] masks = new long[2 * geometry.getJumpCount()];
+      int length = 0;
+      for (int jump = 0; jump < geometry.getJumpCount(); jump++) {
+        int from = geometry.getJumpFrom(jump);
+        int to = geometry.getJumpTo(jump);
+        if ((start ? from : to) == cell) {
+          masks[length++] = 1L << from | 1L << geometry.getJumpOver(jump);
+          masks[length++] = 1L << to;
+        }
+      }
+      return Arrays.copyOf(masks, length);
+    }
+
+    /**
+     * Plays the games on the model itself, taking every move back after each game.
+     * @param model - the game in its starting position.
+     * @param scores - the number of games that ended with each score, to add to.
+     */
+    private void playModel(MarbleSolitaireModel model, long[] scores) {
+      MoveGenerator generator = (MoveGenerator) model;
+      Undoable undoable = (Undoable) model;
+      // Each marble starts at most one jump in each of up to six directions.
+      int[] moves = new int[6 * model.getScore() + 1];
+      for (long game = 0; game < playouts; game++) {
+        int made = 0;
+        for (int count = generator.legalMoves(moves); count > 0;
+             count = generator.legalMoves(moves)) {
+          PackedMove.apply(model, moves[random.nextInt(count)]);
+          made++;
+        }
+        scores[model.getScore()]++;
+        for (; made > 0; made--) {
+          undoable.undo();
+        }
+      }
+    }
+  }
+}
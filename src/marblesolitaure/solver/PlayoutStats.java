@@ -0,0 +1,95 @@
+package marblesolitaure.solver;
+
+/**
+ * The results of many random playouts of one starting position: how many games ended with
+ * each number of marbles left.
+ */
+public final class PlayoutStats {
+  private final long[] scores;
+  private final long playouts;
+  private final long nanos;
+
+  /**
+   * Makes the results.
+   * @param scores - the number of games that ended with each score, indexed by score.
+   * @param nanos - long - how long the playouts took.
+   */
+  PlayoutStats(long[] scores, long nanos) {
+    this.scores = scores.clone();
+    long total = 0;
+    for (long count : scores) {
+      total += count;
+    }
+    this.playouts = total;
+    this.nanos = nanos;
+  }
+
+  /**
+   * The number of games played.
+   * @return - a long, the number of playouts.
+   */
+  public long getPlayouts() {
+    return playouts;
+  }
+
+  /**
+   * The number of games that ended with a given number of marbles left.
+   * @param score - int - the number of marbles.
+   * @return - a long, the number of games, 0 for a score no game could end with.
+   */
+  public long getCount(int score) {
+    return score >= 0 && score < scores.length ? scores[score] : 0;
+  }
+
+  /**
+   * The highest score any game could have ended with, the score of the starting position.
+   * @return - an int, the largest score getCount can be asked about with a nonzero answer.
+   */
+  public int getMaxScore() {
+    return scores.length - 1;
+  }
+
+  /**
+   * The share of games that ended with a single marble.
+   * @return - a double between 0 and 1.
+   */
+  public double getOnePegRate() {
+    return playouts == 0 ? 0 : (double) getCount(1) / playouts;
+  }
+
+  /**
+   * The average number of marbles left at the end of a game.
+   * @return - a double, the mean score.
+   */
+  public double getMeanScore() {
+    if (playouts == 0) {
+      return 0;
+    }
+    double sum = 0;
+    for (int score = 0; score < scores.length; score++) {
+      sum += (double) score * scores[score];
+    }
+    return sum / playouts;
+  }
+
+  /**
+   * How long the playouts took, from the first game started to the last game finished.
+   * @return - a long, the time in nanoseconds.
+   */
+  public long getNanos() {
+    return nanos;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder text = new StringBuilder();
+    text.append(String.format("%d playouts in %d ms, one peg %.4f%%, mean score %.3f%n",
+            playouts, nanos / 1_000_000, 100 * getOnePegRate(), getMeanScore()));
+    for (int score = 1; score < scores.length; score++) {
+      if (scores[score] != 0) {
+        text.append(String.format("%4d %12d%n", score, scores[score]));
+      }
+    }
+    return text.toString();
+  }
+}
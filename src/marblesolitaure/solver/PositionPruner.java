@@ -0,0 +1,226 @@
+package marblesolitaure.solver;
+
+import marblesolitaure.model.MarbleSolitaireModel;
+import marblesolitaure.model.driver.BoardGeometry;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+
+/**
+ * Proves, without searching, that some positions can never be brought down to one marble,
+ * using two invariants of the game.
+ *
+ * <p>Position classes: color the spaces with the value of a * row + b * col modulo 3, for a
+ * choice of a and b under which the three spaces of every jump get three different colors
+ * (both diagonals of the square boards, and one direction on the triangle). A jump takes a
+ * marble off two colors and puts one on the third, so it changes the parity of every color's
+ * count, and the parity of the sum of any two colors' counts never changes. Those parities
+ * split the positions into classes that no jump leaves, so a position can only end with its
+ * last marble on a space whose lone marble is in the same class.
+ *
+ * <p>Pagoda functions: give every space a weight with the weights of the start and middle of
+ * any jump adding up to at least the weight of its end. The total weight of the marbles can
+ * then never go up. For each target space the weight of a space here is s^d, d being the
+ * number of steps between them on the board and s = (sqrt(5) - 1) / 2, so s^(d + 2) +
+ * s^(d + 1) = s^d. A position whose marbles weigh less than 1, the weight of the target, can
+ * never end with one marble on it.
+ *
+ * <p>Checking the class of a position takes a few bit counts. Checking a pagoda function takes
+ * one addition per marble, for each space the last marble could end on.
+ */
+public final class PositionPruner {
+  private static final double SIGMA = (Math.sqrt(5) - 1) / 2;
+  // Below 1 by this much is short of the target's weight; anything closer counts as equal.
+  private static final double EPSILON = 1e-9;
+  // Every coloring a * row + b * col modulo 3, leaving out multiples of one another.
+  private static final int[][] COLORINGS = {{1, 0}, {0, 1}, {1, 1}, {1, 2}};
+
+  private final SearchBoard board;
+  private final int cells;
+  // The position class is the parity of the marbles on each of these masks.
+  private final long[] parityMasks;
+  // classCells[c] holds the spaces whose lone marble is in class c.
+  private final long[] classCells;
+  // weights[t * cells + c] is the weight of space c in the pagoda function of target t.
+  private final double[] weights;
+
+  /**
+   * Works out the classes and pagoda functions of a board.
+   * @param geometry - the shape of the board.
+   * @throws IllegalArgumentException if the board has more than 64 valid spaces.
+   */
+  public PositionPruner(BoardGeometry geometry) throws IllegalArgumentException {
+    this.board = new SearchBoard(geometry);
+    this.cells = geometry.getCellCount();
+
+    long[] masks = new long[2 * COLORINGS.length];
+    int count = 0;
+    for (int[] coloring : COLORINGS) {
+      if (!colorsEveryJump(geometry, coloring[0], coloring[1])) {
+        continue;
+      }
+      long[] colors = new long[3];
+      for (int cell = 0; cell < cells; cell++) {
+        colors[Math.floorMod(coloring[0] * geometry.getRow(cell)
+                + coloring[1] * geometry.getCol(cell), 3)] |= 1L << cell;
+      }
+      masks[count++] = colors[0] | colors[1];
+      masks[count++] = colors[1] | colors[2];
+    }
+    this.parityMasks = Arrays.copyOf(masks, count);
+    this.classCells = new long[1 << count];
+    for (int cell = 0; cell < cells; cell++) {
+      classCells[positionClass(1L << cell)] |= 1L << cell;
+    }
+
+    this.weights = new double[cells * cells];
+    for (int target = 0; target < cells; target++) {
+      int[] steps = distances(geometry, target);
+      for (int cell = 0; cell < cells; cell++) {
+        weights[target * cells + cell] = steps[cell] < 0 ? 0 : Math.pow(SIGMA, steps[cell]);
+      }
+    }
+  }
+
+  /**
+   * Checks whether a coloring gives the three spaces of every jump three different colors,
+   * which is when no direction of the board moves along a line of one color.
+   * @param geometry - the shape of the board.
+   * @param a - int - the weight of the row in the color.
+   * @param b - int - the weight of the column in the color.
+   * @return - true if every direction changes the color.
+   */
+  private static boolean colorsEveryJump(BoardGeometry geometry, int a, int b) {
+    for (int d = 0; d < geometry.getDirectionCount(); d++) {
+      if (Math.floorMod(a * geometry.getRowStep(d) + b * geometry.getColStep(d), 3) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Counts the steps from one space to every other, a step being a move to a neighboring
+   * space in one of the board's directions.
+   * @param geometry - the shape of the board.
+   * @param from - int - the number of the space to count from.
+   * @return - the number of steps to each space, -1 for a space that cannot be reached.
+   */
+  private static int[] distances(BoardGeometry geometry, int from) {
+    int[] steps = new int[geometry.getCellCount()];
+    Arrays.fill(steps, -1);
+    steps[from] = 0;
+    Queue<Integer> queue = new ArrayDeque<>();
+    queue.add(from);
+    while (!queue.isEmpty()) {
+      int cell = queue.remove();
+      for (int d = 0; d < geometry.getDirectionCount(); d++) {
+        int next = geometry.getCell(geometry.getRow(cell) + geometry.getRowStep(d),
+                geometry.getCol(cell) + geometry.getColStep(d));
+        if (next >= 0 && steps[next] < 0) {
+          steps[next] = steps[cell] + 1;
+          queue.add(next);
+        }
+      }
+    }
+    return steps;
+  }
+
+  /**
+   * The shape of the board the pruner is for.
+   * @return - the shared geometry of the board.
+   */
+  public BoardGeometry getGeometry() {
+    return board.getGeometry();
+  }
+
+  /**
+   * The class of a position. Jumps never change it.
+   * @param position - a long, one bit per space with a marble, as in SearchBoard.
+   * @return - an int, the class, one bit per parity.
+   */
+  public int positionClass(long position) {
+    int positionClass = 0;
+    for (int i = 0; i < parityMasks.length; i++) {
+      positionClass |= (Long.bitCount(position & parityMasks[i]) & 1) << i;
+    }
+    return positionClass;
+  }
+
+  /**
+   * The spaces a position could end with its last marble on, as far as its class tells.
+   * @param position - a long, the position.
+   * @return - a long, one bit per space whose lone marble is in the position's class.
+   */
+  public long finishingCells(long position) {
+    return classCells[positionClass(position)];
+  }
+
+  /**
+   * The total weight of the marbles of a position, under the pagoda function of a target
+   * space. Jumps never make it bigger, and a lone marble on the target weighs 1.
+   * @param target - int - the number of the target space.
+   * @param position - a long, the position.
+   * @return - a double, the weight.
+   */
+  public double pagoda(int target, long position) {
+    double sum = 0;
+    int base = target * cells;
+    for (long rest = position; rest != 0; rest &= rest - 1) {
+      sum += weights[base + Long.numberOfTrailingZeros(rest)];
+    }
+    return sum;
+  }
+
+  /**
+   * Checks whether a position might still end with one marble. False is a proof that it
+   * cannot; true only means neither invariant rules it out.
+   * @param position - a long, the position.
+   * @param target - a long, the one marble position to end on, or 0 for any.
+   * @return - false if the position can be proven never to end as wanted.
+   */
+  public boolean canFinish(long position, long target) {
+    if (position == 0) {
+      return false;
+    }
+    long candidates = finishingCells(position);
+    if (target != 0) {
+      candidates &= target;
+    }
+    for (; candidates != 0; candidates &= candidates - 1) {
+      if (pagoda(Long.numberOfTrailingZeros(candidates), position) > 1 - EPSILON) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Checks whether a game might still end with one marble anywhere.
+   * @param model - the game, which must be played on this pruner's board.
+   * @return - false if the game can be proven never to end with one marble.
+   * @throws IllegalArgumentException if the game is played on another board.
+   */
+  public boolean canFinish(MarbleSolitaireModel model) throws IllegalArgumentException {
+    return canFinish(board.positionOf(model), 0L);
+  }
+
+  /**
+   * Checks whether a game might still end with one marble on a chosen space.
+   * @param model - the game, which must be played on this pruner's board.
+   * @param row - int - the row of the space the last marble should end on.
+   * @param col - int - the column of the space the last marble should end on.
+   * @return - false if the game can be proven never to end with one marble there.
+   * @throws IllegalArgumentException if the game is played on another board or the space is
+   *         not a valid space of the board.
+   */
+  public boolean canFinish(MarbleSolitaireModel model, int row, int col)
+          throws IllegalArgumentException {
+    int cell = board.getGeometry().getCell(row, col);
+    if (cell < 0) {
+      throw new IllegalArgumentException("Invalid target position (" + row + "," + col + ").");
+    }
+    return canFinish(board.positionOf(model), 1L << cell);
+  }
+}
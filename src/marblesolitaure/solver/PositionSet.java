@@ -0,0 +1,21 @@
+package marblesolitaure.solver;
+
+/**
+ * A set of positions a search has proven to be dead ends. A set may forget positions it has
+ * no room for, since a search that meets a forgotten position again only repeats work.
+ */
+interface PositionSet {
+  /**
+   * Checks whether a position is in the set.
+   * @param position - a long, the position.
+   * @return - true if the position was added before and not forgotten.
+   */
+  boolean contains(long position);
+
+  /**
+   * Adds a position to the set.
+   * @param position - a long, the position, not 0.
+   * @throws IllegalArgumentException if the position is 0.
+   */
+  void add(long position) throws IllegalArgumentException;
+}
@@ -0,0 +1,99 @@
+package marblesolitaure.solver;
+
+/**
+ * A hash set of positions, stored as longs in one open-addressed array so that adding and
+ * looking up positions allocates nothing. The position 0 (an empty board) cannot be stored.
+ * Not safe for use by more than one thread.
+ */
+public final class PositionTable implements PositionSet {
+  private long[] slots;
+  private int size;
+
+  /**
+   * Makes an empty table.
+   * @param expected - int - about how many positions the table will hold. It grows when it
+   *                 gets fuller than that.
+   */
+  public PositionTable(int expected) {
+    int capacity = 16;
+    while (capacity < 2L * expected && capacity < (1 << 30)) {
+      capacity <<= 1;
+    }
+    slots = new long[capacity];
+  }
+
+  /**
+   * Spreads the bits of a position so that similar positions land far apart.
+   * @param position - a long, the position.
+   * @return - an int, a well mixed hash of the position.
+   */
+  static int mix(long position) {
+    long h = position * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  /**
+   * Checks whether a position is in the table.
+   * @param position - a long, the position.
+   * @return - true if the position was added before.
+   */
+  @Override
+  public boolean contains(long position) {
+    int mask = slots.length - 1;
+    for (int i = mix(position) & mask; slots[i] != 0; i = (i + 1) & mask) {
+      if (slots[i] == position) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Adds a position to the table.
+   * @param position - a long, the position, not 0.
+   * @throws IllegalArgumentException if the position is 0.
+   */
+  @Override
+  public void add(long position) throws IllegalArgumentException {
+    if (position == 0) {
+      throw new IllegalArgumentException("The empty position cannot be stored.");
+    }
+    if (2 * (size + 1) > slots.length) {
+      grow();
+    }
+    if (insert(slots, position)) {
+      size++;
+    }
+  }
+
+  /**
+   * The number of positions in the table.
+   * @return - an int, the number of positions added.
+   */
+  public int size() {
+    return size;
+  }
+
+  private static boolean insert(long[] slots, long position) {
+    int mask = slots.length - 1;
+    int i = mix(position) & mask;
+    while (slots[i] != 0) {
+      if (slots[i] == position) {
+        return false;
+      }
+      i = (i + 1) & mask;
+    }
+    slots[i] = position;
+    return true;
+  }
+
+  private void grow() {
+    long[] bigger = new long[slots.length * 2];
+    for (long position : slots) {
+      if (position != 0) {
+        insert(bigger, position);
+      }
+    }
+    slots = bigger;
+  }
+}
@@ -0,0 +1,270 @@
+package marblesolitaure.solver;
+
+import marblesolitaure.model.MarbleSolitaireModel;
+import marblesolitaure.model.driver.BoardGeometry;
+import marblesolitaure.model.driver.SolitaireFactory;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Which positions of a board can still be won, worked out once for every position and kept
+ * in a memory mapped file. The file is a bitmap with one bit per position, the position's
+ * marbles taken as a number, set when the position is canonical (see SymmetryTable) and one
+ * marble can be left on the board from it. Asking about a position is one canonicalization
+ * and one read of mapped memory.
+ *
+ * <p>The bitmap is built backwards from the end of the game. Every position with one marble
+ * is won. A position with k marbles can be won exactly when one jump leads to a position
+ * with k - 1 marbles that can be won, so the positions with k marbles are found by taking
+ * back every possible jump from each winnable position with k - 1 marbles. Only canonical
+ * positions are kept, which is enough because taking back a jump commutes with the
+ * symmetries of the board.
+ *
+ * <p>A board of n spaces needs a file of 2^n bits: 256 KB for a triangle of size 6 and 1 GB
+ * for the 33 space english board. Boards of more than 34 spaces are not supported.
+ */
+public final class RetrogradeDatabase {
+  /**
+   * The most spaces a board may have.
+   */
+  public static final int MAX_CELLS = 34;
+
+  private static final int MAGIC = 0x4452534D;
+  private static final int VERSION = 1;
+  private static final int HEADER_LENGTH = 32;
+  private static final String[] TYPES = {"english", "european", "triangular"};
+  // Each window maps this many bytes of the file; a power of two, so no word crosses windows.
+  private static final int WINDOW_BITS = 30;
+
+  private final BoardGeometry geometry;
+  private final SearchBoard board;
+  private final SymmetryTable symmetry;
+  private final MappedByteBuffer[] windows;
+
+  private RetrogradeDatabase(BoardGeometry geometry, MappedByteBuffer[] windows) {
+    this.geometry = geometry;
+    this.board = new SearchBoard(geometry);
+    this.symmetry = new SymmetryTable(geometry);
+    this.windows = windows;
+  }
+
+  /**
+   * Builds the database of a board, from the command line.
+   * @param args - the board type, its size and the file to write.
+   * @throws IOException if the file cannot be written.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 3) {
+      System.out.println("usage: RetrogradeDatabase type size file");
+      return;
+    }
+    BoardGeometry geometry = SolitaireFactory.getGeometry(args[0], Integer.parseInt(args[1]));
+    long start = System.nanoTime();
+    long[] counts = build(geometry, Paths.get(args[2]));
+    for (int marbles = 1; marbles < counts.length; marbles++) {
+      System.out.println(marbles + " marbles: " + counts[marbles] + " winnable positions");
+    }
+    System.out.println("built in " + (System.nanoTime() - start) / 1000000 + " ms");
+  }
+
+  /**
+   * Works out which positions of a board can be won and writes them to a file, replacing
+   * anything already in it.
+   * @param geometry - the shape of the board.
+   * @param file - the file to write.
+   * @return - the number of winnable canonical positions with each number of marbles.
+   * @throws IOException if the file cannot be written.
+   * @throws IllegalArgumentException if the board has more than MAX_CELLS spaces.
+   */
+  public static long[] build(BoardGeometry geometry, Path file)
+          throws IOException, IllegalArgumentException {
+    int cells = geometry.getCellCount();
+    if (cells > MAX_CELLS) {
+      throw new IllegalArgumentException("A board with " + cells
+              + " spaces is too large for a database.");
+    }
+    long words = Math.max(1, (1L << cells) / 64);
+    MappedByteBuffer[] windows;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      windows = map(channel, FileChannel.MapMode.READ_WRITE, HEADER_LENGTH + 8 * words);
+    }
+    MappedByteBuffer header = windows[0];
+    header.putInt(0, MAGIC);
+    header.putInt(4, VERSION);
+    header.putInt(8, typeCode(geometry.getType()));
+    header.putInt(12, geometry.getSize());
+    header.putInt(16, cells);
+
+    RetrogradeDatabase database = new RetrogradeDatabase(geometry, windows);
+    long[] counts = new long[cells + 1];
+    for (int cell = 0; cell < cells; cell++) {
+      long position = database.symmetry.canonical(1L << cell);
+      if (!database.get(position)) {
+        database.set(position);
+        counts[1]++;
+      }
+    }
+    for (int marbles = 2; marbles <= cells; marbles++) {
+      counts[marbles] = database.takeBackJumps(marbles - 1, words);
+    }
+    for (MappedByteBuffer window : windows) {
+      window.force();
+    }
+    return counts;
+  }
+
+  /**
+   * Finds the winnable positions with one more marble than a set of winnable positions, by
+   * taking back every jump that could have led to each of them.
+   * @param marbles - int - the number of marbles of the positions already found.
+   * @param words - long - the length of the bitmap in longs.
+   * @return - a long, the number of new canonical positions found.
+   */
+  private long takeBackJumps(int marbles, long words) {
+    long found = 0;
+    int jumps = board.getJumpCount();
+    for (long w = 0; w < words; w++) {
+      long bits = word(w);
+      while (bits != 0) {
+        long position = (w << 6) | Long.numberOfTrailingZeros(bits);
+        bits &= bits - 1;
+        if (Long.bitCount(position) != marbles) {
+          continue;
+        }
+        for (int jump = 0; jump < jumps; jump++) {
+          // A jump can be taken back when its end has a marble and its start and middle are
+          // empty, which is when the reversed jump could be made.
+          long before = board.jump(position, jump);
+          if (board.canJump(before, jump)) {
+            long canonical = symmetry.canonical(before);
+            if (!get(canonical)) {
+              set(canonical);
+              found++;
+            }
+          }
+        }
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Opens a database built earlier.
+   * @param file - the file.
+   * @return - the database, reading the file through memory mapping.
+   * @throws IOException if the file cannot be read.
+   * @throws IllegalArgumentException if the file is not a database or is cut short.
+   */
+  public static RetrogradeDatabase open(Path file) throws IOException, IllegalArgumentException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() < HEADER_LENGTH) {
+        throw new IllegalArgumentException("Not a position database.");
+      }
+      MappedByteBuffer[] windows = map(channel, FileChannel.MapMode.READ_ONLY, channel.size());
+      MappedByteBuffer header = windows[0];
+      int type = header.getInt(8);
+      if (header.getInt(0) != MAGIC || type < 0 || type >= TYPES.length) {
+        throw new IllegalArgumentException("Not a position database.");
+      }
+      if (header.getInt(4) != VERSION) {
+        throw new IllegalArgumentException("Unsupported database version "
+                + header.getInt(4) + ".");
+      }
+      BoardGeometry geometry = SolitaireFactory.getGeometry(TYPES[type], header.getInt(12));
+      int cells = geometry.getCellCount();
+      if (header.getInt(16) != cells
+              || channel.size() != HEADER_LENGTH + 8 * Math.max(1, (1L << cells) / 64)) {
+        throw new IllegalArgumentException("Position database is cut short.");
+      }
+      return new RetrogradeDatabase(geometry, windows);
+    }
+  }
+
+  /**
+   * The shape of the board the database is for.
+   * @return - the shared geometry of the board.
+   */
+  public BoardGeometry getGeometry() {
+    return geometry;
+  }
+
+  /**
+   * Checks whether one marble can still be left on the board from a position.
+   * @param position - a long, one bit per space with a marble, as in SearchBoard.
+   * @return - true if the position can be won.
+   */
+  public boolean isWinnable(long position) {
+    return get(symmetry.canonical(position));
+  }
+
+  /**
+   * Checks whether one marble can still be left on the board of a game.
+   * @param model - the game, which must be played on this database's board.
+   * @return - true if the game can be won.
+   * @throws IllegalArgumentException if the game is played on another board.
+   */
+  public boolean isWinnable(MarbleSolitaireModel model) throws IllegalArgumentException {
+    return isWinnable(board.positionOf(model));
+  }
+
+  private boolean get(long position) {
+    long offset = HEADER_LENGTH + (position >>> 3);
+    return (windows[(int) (offset >>> WINDOW_BITS)].get((int) (offset & ((1 << WINDOW_BITS) - 1)))
+            & (1 << (position & 7))) != 0;
+  }
+
+  private void set(long position) {
+    long offset = HEADER_LENGTH + (position >>> 3);
+    MappedByteBuffer window = windows[(int) (offset >>> WINDOW_BITS)];
+    int index = (int) (offset & ((1 << WINDOW_BITS) - 1));
+    window.put(index, (byte) (window.get(index) | (1 << (position & 7))));
+  }
+
+  /**
+   * One long of the bitmap, holding the bits of positions 64w to 64w + 63.
+   * @param w - long - the number of the long.
+   * @return - a long, the bits, position 64w in the lowest.
+   */
+  private long word(long w) {
+    long offset = HEADER_LENGTH + 8 * w;
+    return windows[(int) (offset >>> WINDOW_BITS)].getLong(
+            (int) (offset & ((1 << WINDOW_BITS) - 1)));
+  }
+
+  /**
+   * Maps a file in windows of 2^WINDOW_BITS bytes, the last one shorter.
+   * @param channel - the file.
+   * @param mode - whether to map it for reading or writing.
+   * @param length - long - the length to map; a file opened for writing grows to it.
+   * @return - the windows, in order, all little-endian.
+   * @throws IOException if the file cannot be mapped.
+   */
+  private static MappedByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode,
+                                        long length) throws IOException {
+    int count = (int) ((length + (1L << WINDOW_BITS) - 1) >>> WINDOW_BITS);
+    MappedByteBuffer[] windows = new MappedByteBuffer[count];
+    for (int i = 0; i < count; i++) {
+      long start = (long) i << WINDOW_BITS;
+      windows[i] = channel.map(mode, start, Math.min(1L << WINDOW_BITS, length - start));
+      windows[i].order(ByteOrder.LITTLE_ENDIAN);
+    }
+    return windows;
+  }
+
+  private static int typeCode(String type) {
+    for (int code = 0; code < TYPES.length; code++) {
+      if (TYPES[code].equals(type)) {
+        return code;
+      }
+    }
+    throw new IllegalArgumentException("Unknown board type " + type + ".");
+  }
+}
@@ -0,0 +1,124 @@
+package marblesolitaure.solver;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One depth first search, run by a single thread. Every position proven to be a dead end is
+ * added, as its canonical copy under the board's symmetries, to a set of dead positions,
+ * which may be shared with other searches. Positions a PositionPruner proves hopeless are
+ * marked dead without being searched. The moves of each position are tried in order of how
+ * scattered they leave the marbles, least first, as measured by SearchBoard.scatter. A search
+ * can be told to stop through a flag, in which case it gives up without marking anything
+ * dead.
+ */
+final class Search {
+  private final SearchBoard board;
+  private final SymmetryTable symmetry;
+  private final PositionSet dead;
+  private final PositionPruner pruner;
+  private final long target;
+  private final AtomicBoolean stop;
+  private final int[][] buffers;
+  private final long[][] keys;
+  private final int[] path;
+  private long nodes;
+
+  /**
+   * Prepares a search.
+   * @param board - the board to search on.
+   * @param symmetry - the symmetries under which positions are the same, which must fix the
+   *                 target space if there is one.
+   * @param dead - the set of dead positions to use and add to.
+   * @param pruner - the invariants to prune positions with, or null to search them all.
+   * @param target - a long, the one marble position to end on, or 0 for any.
+   * @param moves - int - the most moves the search will need to make.
+   * @param stop - a flag that ends the search when set, or null if it runs to the end.
+   */
+  Search(SearchBoard board, SymmetryTable symmetry, PositionSet dead, PositionPruner pruner,
+         long target, int moves, AtomicBoolean stop) {
+    this.board = board;
+    this.symmetry = symmetry;
+    this.dead = dead;
+    this.pruner = pruner;
+    this.target = target;
+    this.stop = stop;
+    this.buffers = new int[Math.max(moves, 1)][board.getJumpCount()];
+    this.keys = new long[Math.max(moves, 1)][board.getJumpCount()];
+    this.path = new int[Math.max(moves, 1)];
+  }
+
+  /**
+   * Searches from one position.
+   * @param position - a long, the position to search from.
+   * @param depth - int - the number of moves made so far by this search.
+   * @return - true if a solution was found, in which case its jumps are in getPath.
+   */
+  boolean search(long position, int depth) {
+    nodes++;
+    if ((position & (position - 1)) == 0) {
+      return target == 0 || position == target;
+    }
+    long key = symmetry.canonical(position);
+    if (dead.contains(key) || (stop != null && stop.get())) {
+      return false;
+    }
+    if (pruner != null && !pruner.canFinish(position, target)) {
+      dead.add(key);
+      return false;
+    }
+    int[] jumps = buffers[depth];
+    int count = board.listJumps(position, jumps);
+    order(position, jumps, count, keys[depth]);
+    for (int i = 0; i < count; i++) {
+      path[depth] = jumps[i];
+      if (search(board.jump(position, jumps[i]), depth + 1)) {
+        return true;
+      }
+    }
+    if (stop == null || !stop.get()) {
+      dead.add(key);
+    }
+    return false;
+  }
+
+  /**
+   * Sorts the jumps of a position by how scattered they leave the marbles, keeping the order
+   * of SearchBoard.listJumps between jumps that score the same. This finds solutions in a
+   * small part of the tree that trying the outer jumps first searches: the european board
+   * with (2, 3) empty is solved after about 30 thousand positions instead of 380 million.
+   * @param position - a long, the position.
+   * @param jumps - the jumps that can be made in the position, sorted in place.
+   * @param count - int - the number of jumps.
+   * @param sortKeys - a buffer with room for count keys.
+   */
+  private void order(long position, int[] jumps, int count, long[] sortKeys) {
+    for (int i = 0; i < count; i++) {
+      long score = board.scatter(board.jump(position, jumps[i]));
+      sortKeys[i] = score << 40 | (long) i << 20 | jumps[i];
+    }
+    Arrays.sort(sortKeys, 0, count);
+    for (int i = 0; i < count; i++) {
+      jumps[i] = (int) (sortKeys[i] & 0xFFFFF);
+    }
+  }
+
+  /**
+   * The jumps of the solution found by the last search.
+   * @param length - int - the number of jumps in the solution.
+   * @return - an array of jump numbers.
+   */
+  int[] getPath(int length) {
+    int[] jumps = new int[length];
+    System.arraycopy(path, 0, jumps, 0, length);
+    return jumps;
+  }
+
+  /**
+   * The number of positions visited so far.
+   * @return - a long, the number of search nodes.
+   */
+  long getNodes() {
+    return nodes;
+  }
+}
@@ -0,0 +1,202 @@
+package marblesolitaure.solver;
+
+import marblesolitaure.model.MarbleSolitaireModel;
+import marblesolitaure.model.PackedMove;
+import marblesolitaure.model.driver.BoardGeometry;
+import marblesolitaure.model.driver.BoardPosition;
+
+import java.util.Arrays;
+
+/**
+ * A board geometry prepared for searching. A position is a single long with one bit per space
+ * of the geometry, set when the space has a marble, so boards can have at most 64 valid
+ * spaces. Every jump of the geometry becomes a pair of masks, so checking and making a jump
+ * are one AND, one compare and one XOR.
+ */
+public final class SearchBoard {
+  private final BoardGeometry geometry;
+  private final long full;
+  // jumpNeeds[j] has the start and middle spaces of jump j, jumpTo[j] its end space.
+  private final long[] jumpNeeds;
+  private final long[] jumpTo;
+  // Every jump, with the jumps out of the spaces farthest from the middle of the board first.
+  private final int[] order;
+  // neighbors[c] has the spaces one step from space c; edge has the spaces on the rim.
+  private final long[] neighbors;
+  private final long edge;
+
+  /**
+   * Prepares a board geometry for searching.
+   * @param geometry - the shape of the board.
+   * @throws IllegalArgumentException if the board has more than 64 valid spaces.
+   */
+  public SearchBoard(BoardGeometry geometry) throws IllegalArgumentException {
+    int cells = geometry.getCellCount();
+    if (cells > 64) {
+      throw new IllegalArgumentException("A board with " + cells
+              + " spaces is too large to search.");
+    }
+    this.geometry = geometry;
+    this.full = cells == 64 ? -1L : (1L << cells) - 1;
+
+    int jumps = geometry.getJumpCount();
+    this.jumpNeeds = new long[jumps];
+    this.jumpTo = new long[jumps];
+    for (int j = 0; j < jumps; j++) {
+      jumpNeeds[j] = (1L << geometry.getJumpFrom(j)) | (1L << geometry.getJumpOver(j));
+      jumpTo[j] = 1L << geometry.getJumpTo(j);
+    }
+
+    // Moving the outer marbles in first keeps the marbles together, which finds solutions
+    // much sooner than trying the jumps in board order.
+    long rowSum = 0;
+    long colSum = 0;
+    for (int cell = 0; cell < cells; cell++) {
+      rowSum += geometry.getRow(cell);
+      colSum += geometry.getCol(cell);
+    }
+    long[] keys = new long[jumps];
+    for (int j = 0; j < jumps; j++) {
+      int from = geometry.getJumpFrom(j);
+      long rows = geometry.getRow(from) * (long) cells - rowSum;
+      long cols = geometry.getCol(from) * (long) cells - colSum;
+      // Farthest first, then by jump number.
+      keys[j] = -(rows * rows + cols * cols) * jumps + j;
+    }
+    Arrays.sort(keys);
+    this.order = new int[jumps];
+    for (int j = 0; j < jumps; j++) {
+      order[j] = (int) Math.floorMod(keys[j], (long) jumps);
+    }
+
+    this.neighbors = new long[cells];
+    long rim = 0L;
+    for (int cell = 0; cell < cells; cell++) {
+      for (int d = 0; d < geometry.getDirectionCount(); d++) {
+        int next = geometry.getCell(geometry.getRow(cell) + geometry.getRowStep(d),
+                geometry.getCol(cell) + geometry.getColStep(d));
+        if (next >= 0) {
+          neighbors[cell] |= 1L << next;
+        }
+      }
+      if (Long.bitCount(neighbors[cell]) < geometry.getDirectionCount()) {
+        rim |= 1L << cell;
+      }
+    }
+    this.edge = rim;
+  }
+
+  /**
+   * The shape of the board.
+   * @return - the geometry this board was prepared from.
+   */
+  public BoardGeometry getGeometry() {
+    return geometry;
+  }
+
+  /**
+   * A position with a marble on every space.
+   * @return - a long with one bit set for every valid space.
+   */
+  public long getFullPosition() {
+    return full;
+  }
+
+  /**
+   * The number of jumps on the board, which is also the most moves any position can have.
+   * @return - an int, the number of jumps of the geometry.
+   */
+  public int getJumpCount() {
+    return jumpTo.length;
+  }
+
+  /**
+   * Reads the position of a game.
+   * @param model - a game whose board has this board's geometry.
+   * @return - a long, the position of the game.
+   * @throws IllegalArgumentException if the model cannot describe its board, or its board has
+   *         a different shape.
+   */
+  public long positionOf(MarbleSolitaireModel model) throws IllegalArgumentException {
+    if (!(model instanceof BoardPosition)
+            || ((BoardPosition) model).getGeometry() != geometry) {
+      throw new IllegalArgumentException("The game is not played on this board.");
+    }
+    BoardPosition board = (BoardPosition) model;
+    long position = 0L;
+    for (int cell = 0; cell < geometry.getCellCount(); cell++) {
+      if (board.hasMarble(cell)) {
+        position |= 1L << cell;
+      }
+    }
+    return position;
+  }
+
+  /**
+   * Checks whether a jump can be made in a position.
+   * @param position - a long, the position.
+   * @param jump - int - the number of the jump in the geometry.
+   * @return - true if the jump can be made.
+   */
+  public boolean canJump(long position, int jump) {
+    return (position & jumpNeeds[jump]) == jumpNeeds[jump] && (position & jumpTo[jump]) == 0;
+  }
+
+  /**
+   * Makes a jump, or takes it back: the three spaces of the jump are flipped.
+   * @param position - a long, the position.
+   * @param jump - int - the number of the jump in the geometry.
+   * @return - a long, the position after the jump.
+   */
+  public long jump(long position, int jump) {
+    return position ^ jumpNeeds[jump] ^ jumpTo[jump];
+  }
+
+  /**
+   * Writes the numbers of every jump that can be made in a position into a buffer, which
+   * must have room for getJumpCount() jumps. Jumps out of the spaces farthest from the middle
+   * of the board come first.
+   * @param position - a long, the position.
+   * @param jumps - an int array to write jump numbers into.
+   * @return - an int, the number of jumps written.
+   */
+  public int listJumps(long position, int[] jumps) {
+    int count = 0;
+    for (int jump : order) {
+      if ((position & jumpNeeds[jump]) == jumpNeeds[jump] && (position & jumpTo[jump]) == 0) {
+        jumps[count++] = jump;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Measures how scattered the marbles of a position are, as the number of marbles on the
+   * edge of the board, which can only be jumped over along the edge, plus the number of
+   * marbles with no marble next to them, which cannot be cleared until another comes near.
+   * Positions that score less are closer to being cleared.
+   * @param position - a long, the position.
+   * @return - an int, the score.
+   */
+  public int scatter(long position) {
+    int score = Long.bitCount(position & edge);
+    for (long rest = position; rest != 0; rest &= rest - 1) {
+      if ((position & neighbors[Long.numberOfTrailingZeros(rest)]) == 0) {
+        score++;
+      }
+    }
+    return score;
+  }
+
+  /**
+   * Turns a jump number into a packed move.
+   * @param jump - int - the number of the jump in the geometry.
+   * @return - an int, the move packed as described in PackedMove.
+   */
+  public int toPackedMove(int jump) {
+    int from = geometry.getJumpFrom(jump);
+    int to = geometry.getJumpTo(jump);
+    return PackedMove.pack(geometry.getRow(from), geometry.getCol(from),
+            geometry.getRow(to), geometry.getCol(to));
+  }
+}
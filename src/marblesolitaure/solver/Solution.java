@@ -0,0 +1,54 @@
+package marblesolitaure.solver;
+
+/**
+ * The result of solving a game: either the moves that leave one marble, or a proof that there
+ * are none, along with how much searching it took.
+ */
+public final class Solution {
+  private final boolean solved;
+  private final int[] moves;
+  private final long nodes;
+
+  /**
+   * Makes a result.
+   * @param solved - boolean - whether a solution was found.
+   * @param moves - the packed moves of the solution, empty if there is none.
+   * @param nodes - long - the number of positions the search visited.
+   */
+  Solution(boolean solved, int[] moves, long nodes) {
+    this.solved = solved;
+    this.moves = moves.clone();
+    this.nodes = nodes;
+  }
+
+  /**
+   * Whether the game can be solved.
+   * @return - true if a solution was found, false if the search proved there is none.
+   */
+  public boolean isSolved() {
+    return solved;
+  }
+
+  /**
+   * The moves of the solution, in order.
+   * @return - an array of moves packed as described in PackedMove, empty if there is no
+   *         solution.
+   */
+  public int[] getMoves() {
+    return moves.clone();
+  }
+
+  /**
+   * The number of positions the search visited.
+   * @return - a long, the number of search nodes.
+   */
+  public long getNodes() {
+    return nodes;
+  }
+
+  @Override
+  public String toString() {
+    return (solved ? "solved in " + moves.length + " moves" : "no solution")
+            + " after " + nodes + " nodes";
+  }
+}
@@ -0,0 +1,200 @@
+package marblesolitaure.solver;
+
+import marblesolitaure.model.MarbleSolitaireModel;
+import marblesolitaure.model.driver.BoardGeometry;
+import marblesolitaure.model.driver.BoardPosition;
+import marblesolitaure.model.driver.SolitaireFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Finds out which starting holes can be solved, for every board of some types and a range of
+ * sizes, and writes the results as CSV with one line per hole:
+ *
+ * <pre>type,size,row,col,solvable,millis,nodes,solved_row,solved_col</pre>
+ *
+ * <p>The holes of a board are every space its (size, row, col) constructor accepts, and rows
+ * and columns are 0-based. Holes that are rotations or reflections of each other have the
+ * same answer, so only the first hole of each such group is solved, and the other holes copy
+ * its line; solved_row and solved_col name the hole that was solved. Every hole is solved on
+ * its own by a PegSolitaireSolver, as one task of a fork join pool, so the holes of all the
+ * boards are spread over the threads of the pool. Boards of more than 64 spaces, which the
+ * solver cannot search, are written with "unsupported" and no time or nodes.
+ */
+public final class SolvabilityReport {
+  private static final String[] TYPES = {"english", "european", "triangular"};
+
+  /**
+   * Writes the report for a range of sizes.
+   * @param args - optionally -threads n and -out file, then the smallest and largest size,
+   *             then the board types, all three if none are given.
+   * @throws IOException if the report cannot be written.
+   */
+  public static void main(String[] args) throws IOException {
+    int threads = Runtime.getRuntime().availableProcessors();
+    String file = null;
+    int next = 0;
+    for (; next + 1 < args.length && args[next].startsWith("-"); next += 2) {
+      if ("-threads".equals(args[next])) {
+        threads = Integer.parseInt(args[next + 1]);
+      } else if ("-out".equals(args[next])) {
+        file = args[next + 1];
+      } else {
+        throw new IllegalArgumentException("Unknown option " + args[next] + ".");
+      }
+    }
+    if (args.length - next < 2) {
+      System.out.println("usage: SolvabilityReport [-threads n] [-out file] minSize maxSize "
+              + "[type...]");
+      return;
+    }
+    int minSize = Integer.parseInt(args[next]);
+    int maxSize = Integer.parseInt(args[next + 1]);
+    List<String> types = args.length - next > 2
+            ? Arrays.asList(args).subList(next + 2, args.length) : Arrays.asList(TYPES);
+    try (Writer out = file == null
+            ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+            : Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8)) {
+      report(types, minSize, maxSize, threads, out);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Writes the report.
+   * @param types - the board types, each english, european or triangular.
+   * @param minSize - int - the smallest size.
+   * @param maxSize - int - the largest size.
+   * @param threads - int - the number of threads to solve on.
+   * @param out - where to write the CSV, header line first.
+   * @throws IOException if the report cannot be written.
+   * @throws IllegalArgumentException if a type is unknown or the number of threads is not
+   *         positive.
+   */
+  public static void report(List<String> types, int minSize, int maxSize, int threads,
+                            Appendable out) throws IOException, IllegalArgumentException {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Invalid number of threads " + threads + ".");
+    }
+    for (String type : types) {
+      if (SolitaireFactory.createModel(type) == null) {
+        throw new IllegalArgumentException("Unknown board type " + type + ".");
+      }
+    }
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      // Every hole is started before any line is written, so all boards are solved at once.
+      List<HoleTask> holes = new ArrayList<>();
+      for (String type : types) {
+        for (int size = minSize; size <= maxSize; size++) {
+          addHoles(type, size, holes, pool);
+        }
+      }
+      out.append("type,size,row,col,solvable,millis,nodes,solved_row,solved_col\n");
+      for (HoleTask hole : holes) {
+        String answer = hole.solved.join();
+        out.append(hole.type).append(',').append(String.valueOf(hole.size)).append(',')
+                .append(String.valueOf(hole.row)).append(',').append(String.valueOf(hole.col))
+                .append(',').append(answer).append(',')
+                .append(String.valueOf(hole.solved.row)).append(',')
+                .append(String.valueOf(hole.solved.col)).append('\n');
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Finds the holes of one board and starts solving the first hole of each symmetric group.
+   * @param type - a string, the board type.
+   * @param size - int - the size of the board.
+   * @param holes - the holes found so far, to add to in row and column order.
+   * @param pool - the pool to solve on.
+   */
+  private static void addHoles(String type, int size, List<HoleTask> holes, ForkJoinPool pool) {
+    BoardGeometry geometry = null;
+    HoleTask[] solved = null;
+    // The board is drawn in a square no wider than 3 times its size.
+    for (int row = 0; row < 3 * size; row++) {
+      for (int col = 0; col < 3 * size; col++) {
+        MarbleSolitaireModel model;
+        try {
+          model = SolitaireFactory.createModel(type, size, row, col);
+        } catch (IllegalArgumentException e) {
+          // Not a hole the constructor accepts, or not a size the board comes in.
+          continue;
+        }
+        if (geometry == null) {
+          geometry = ((BoardPosition) model).getGeometry();
+          solved = new HoleTask[geometry.getCellCount()];
+        }
+        int first = geometry.getCell(row, col);
+        for (int s = 0; s < geometry.getSymmetryCount(); s++) {
+          first = Math.min(first, geometry.getSymmetricCell(s, geometry.getCell(row, col)));
+        }
+        HoleTask hole = new HoleTask(type, size, row, col);
+        if (solved[first] == null) {
+          solved[first] = hole;
+          hole.solved = hole;
+          pool.execute(hole);
+        } else {
+          hole.solved = solved[first];
+        }
+        holes.add(hole);
+      }
+    }
+  }
+
+  /**
+   * One hole of one board, which solves itself when run. The game is only made when the hole
+   * is solved, so holes waiting for their line to be written hold no board.
+   */
+  private static final class HoleTask extends RecursiveTask<String> {
+    private static final long serialVersionUID = 1L;
+
+    private final String type;
+    private final int size;
+    private final int row;
+    private final int col;
+    // The hole whose answer this hole has, itself if it is solved.
+    private HoleTask solved;
+
+    HoleTask(String type, int size, int row, int col) {
+      this.type = type;
+      this.size = size;
+      this.row = row;
+      this.col = col;
+    }
+
+    /**
+     * Solves the hole.
+     * @return - a string, the solvable, millis and nodes columns.
+     */
+    @Override
+    protected String compute() {
+      MarbleSolitaireModel model = SolitaireFactory.createModel(type, size, row, col);
+      if (((BoardPosition) model).getGeometry().getCellCount() > 64) {
+        return "unsupported,,";
+      }
+      long start = System.nanoTime();
+      Solution solution = new PegSolitaireSolver(model).solve();
+      long nanos = System.nanoTime() - start;
+      return solution.isSolved() + "," + String.format(Locale.ROOT, "%.3f", nanos / 1e6)
+              + "," + solution.getNodes();
+    }
+  }
+}
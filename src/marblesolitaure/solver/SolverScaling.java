@@ -0,0 +1,102 @@
+package marblesolitaure.solver;
+
+import marblesolitaure.model.MarbleSolitaireModel;
+import marblesolitaure.model.driver.SolitaireFactory;
+
+import java.io.PrintStream;
+
+/**
+ * Reports how the parallel solver speeds up with the number of threads. Solves one game with
+ * the single threaded solver, then with the parallel solver on 1, 2, 4 and so on threads up to
+ * the number of available processors, and prints one line per run with its time, the
+ * positions it visited and its speed-up over the single threaded solver.
+ */
+public final class SolverScaling {
+
+  /**
+   * Runs the report.
+   * @param args - the board type, then optionally its size, the row and column of its empty
+   *             space and the most threads to try, all as in SolitaireFactory.
+   */
+  public static void main(String[] args) {
+    if (args.length == 0) {
+      System.out.println("usage: SolverScaling type [size [row col [threads]]]");
+      return;
+    }
+    int maxThreads = args.length > 4 ? Integer.parseInt(args[4])
+            : Runtime.getRuntime().availableProcessors();
+    report(args, maxThreads, System.out);
+  }
+
+  /**
+   * Runs the report on one game.
+   * @param args - the board type, then optionally its size and the row and column of its empty
+   *             space.
+   * @param maxThreads - int - the most threads to try.
+   * @param out - where to print the report.
+   * @throws IllegalArgumentException if the game cannot be made or solved.
+   */
+  public static void report(String[] args, int maxThreads, PrintStream out)
+          throws IllegalArgumentException {
+    out.println("board " + String.join(" ", args) + ", "
+            + Runtime.getRuntime().availableProcessors() + " processors");
+    long start = System.nanoTime();
+    Solution solution = new PegSolitaireSolver(createModel(args)).solve();
+    long baseline = System.nanoTime() - start;
+    out.println(line("sequential", baseline, solution, baseline));
+
+    for (int threads = 1; threads <= maxThreads; threads = nextThreads(threads, maxThreads)) {
+      start = System.nanoTime();
+      solution = new ParallelPegSolitaireSolver(createModel(args), threads).solve();
+      out.println(line(threads + " threads", System.nanoTime() - start, solution, baseline));
+    }
+  }
+
+  /**
+   * Doubles a thread count, stopping at the most threads to try.
+   * @param threads - int - the thread count just tried.
+   * @param maxThreads - int - the most threads to try.
+   * @return - an int, the next thread count, or more than maxThreads when done.
+   */
+  private static int nextThreads(int threads, int maxThreads) {
+    return threads < maxThreads && threads * 2 > maxThreads ? maxThreads : threads * 2;
+  }
+
+  /**
+   * Makes the game to solve.
+   * @param args - the board type, then optionally its size and the row and column of its empty
+   *             space.
+   * @return - the game.
+   * @throws IllegalArgumentException if the board type is unknown.
+   */
+  private static MarbleSolitaireModel createModel(String[] args)
+          throws IllegalArgumentException {
+    MarbleSolitaireModel model;
+    if (args.length >= 4) {
+      model = SolitaireFactory.createModel(args[0], Integer.parseInt(args[1]),
+              Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+    } else if (args.length >= 2) {
+      model = SolitaireFactory.createModel(args[0], Integer.parseInt(args[1]));
+    } else {
+      model = SolitaireFactory.createModel(args[0]);
+    }
+    if (model == null) {
+      throw new IllegalArgumentException("Unknown board type " + args[0] + ".");
+    }
+    return model;
+  }
+
+  /**
+   * Formats one line of the report.
+   * @param name - a string, what was run.
+   * @param nanos - long - how long the run took.
+   * @param solution - the result of the run.
+   * @param baseline - long - how long the single threaded solver took.
+   * @return - a string, the line.
+   */
+  private static String line(String name, long nanos, Solution solution, long baseline) {
+    return String.format("%-12s %8d ms %14d nodes  %5.2fx  %s", name, nanos / 1_000_000,
+            solution.getNodes(), (double) baseline / Math.max(nanos, 1),
+            solution.isSolved() ? "solved" : "no solution");
+  }
+}
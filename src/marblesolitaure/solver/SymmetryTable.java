@@ -0,0 +1,103 @@
+package marblesolitaure.solver;
+
+import marblesolitaure.model.driver.BoardGeometry;
+
+/**
+ * Maps positions to the smallest of their rotations and reflections, so that a table keyed by
+ * the canonical position stores each position once for all its symmetric copies. Each
+ * symmetry of the board is turned into lookup tables for every byte of a position, so moving a
+ * whole position takes one lookup per 8 spaces rather than one per space.
+ */
+public final class SymmetryTable {
+  private final int symmetries;
+  private final int chunks;
+  // images[(s * chunks + k) * 256 + b] is where symmetry s moves the spaces of byte k set in b.
+  private final long[] images;
+
+  /**
+   * Prepares every symmetry of a board.
+   * @param geometry - the shape of the board.
+   * @throws IllegalArgumentException if the board has more than 64 valid spaces.
+   */
+  public SymmetryTable(BoardGeometry geometry) throws IllegalArgumentException {
+    this(geometry, -1);
+  }
+
+  /**
+   * Prepares the symmetries of a board that leave one space where it is. A search for moves
+   * that end on a chosen space may only treat positions as the same under these.
+   * @param geometry - the shape of the board.
+   * @param fixedCell - int - the number of the space to leave in place, or -1 for none.
+   * @throws IllegalArgumentException if the board has more than 64 valid spaces.
+   */
+  public SymmetryTable(BoardGeometry geometry, int fixedCell) throws IllegalArgumentException {
+    int cells = geometry.getCellCount();
+    if (cells > 64) {
+      throw new IllegalArgumentException("A board with " + cells
+              + " spaces is too large to search.");
+    }
+    int[] kept = new int[geometry.getSymmetryCount()];
+    int count = 0;
+    for (int s = 0; s < kept.length; s++) {
+      if (fixedCell < 0 || geometry.getSymmetricCell(s, fixedCell) == fixedCell) {
+        kept[count++] = s;
+      }
+    }
+    this.symmetries = count;
+    this.chunks = Math.max(1, (cells + 7) / 8);
+    this.images = new long[count * chunks * 256];
+    for (int s = 0; s < count; s++) {
+      for (int cell = 0; cell < cells; cell++) {
+        long image = 1L << geometry.getSymmetricCell(kept[s], cell);
+        int base = (s * chunks + cell / 8) * 256;
+        int bit = 1 << (cell % 8);
+        for (int b = 0; b < 256; b++) {
+          if ((b & bit) != 0) {
+            images[base + b] |= image;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * The number of symmetries used, counting the identity.
+   * @return - an int, the number of symmetries.
+   */
+  public int size() {
+    return symmetries;
+  }
+
+  /**
+   * Moves a position by one symmetry.
+   * @param symmetry - int - the number of the symmetry among those used, 0 being the
+   *                 identity.
+   * @param position - a long, the position.
+   * @return - a long, the moved position.
+   */
+  public long transform(int symmetry, long position) {
+    long image = 0L;
+    int base = symmetry * chunks * 256;
+    for (int k = 0; k < chunks; k++) {
+      image |= images[base + k * 256 + (int) ((position >>> (8 * k)) & 0xFF)];
+    }
+    return image;
+  }
+
+  /**
+   * Finds the canonical copy of a position: the smallest, as an unsigned number, of the
+   * position and all its symmetric copies.
+   * @param position - a long, the position.
+   * @return - a long, the canonical position, which is the same for every symmetric copy.
+   */
+  public long canonical(long position) {
+    long best = position;
+    for (int s = 1; s < symmetries; s++) {
+      long image = transform(s, position);
+      if (Long.compareUnsigned(image, best) < 0) {
+        best = image;
+      }
+    }
+    return best;
+  }
+}
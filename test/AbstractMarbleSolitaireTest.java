@@ -0,0 +1,133 @@
+import marblesolitaure.model.MarbleSolitaireModel;
+import marblesolitaure.model.Undoable;
+import marblesolitaure.model.driver.BoardGeometry;
+import marblesolitaure.model.driver.BoardPosition;
+import marblesolitaure.model.driver.SolitaireFactory;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * A junit test suite for the marble and move counts AbstractMarbleSolitaire keeps as moves are
+ * made, undone and redone, checked against a scan of the whole board after every change.
+ */
+public class AbstractMarbleSolitaireTest {
+
+  /**
+   * Counts the marbles on the printed board.
+   * @param model - the model.
+   * @return - an int, the number of marbles.
+   */
+  private int scanScore(MarbleSolitaireModel model) {
+    int marbles = 0;
+    for (char c : model.getGameState().toCharArray()) {
+      if (c == 'O') {
+        marbles++;
+      }
+    }
+    return marbles;
+  }
+
+  /**
+   * Lists every legal jump by looking at every jump of the board.
+   * @param model - the model.
+   * @param jumps - where to write the legal jumps, as jump numbers of the board's geometry.
+   * @return - an int, the number of legal jumps.
+   */
+  private int scanJumps(MarbleSolitaireModel model, int[] jumps) {
+    BoardPosition board = (BoardPosition) model;
+    BoardGeometry geometry = board.getGeometry();
+    int count = 0;
+    for (int jump = 0; jump < geometry.getJumpCount(); jump++) {
+      if (board.hasMarble(geometry.getJumpFrom(jump))
+              && board.hasMarble(geometry.getJumpOver(jump))
+              && !board.hasMarble(geometry.getJumpTo(jump))) {
+        jumps[count++] = jump;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Checks the model's score and game over flag against a scan of the board.
+   * @param model - the model.
+   * @param step - int - how many changes have been made, for the failure message.
+   */
+  private void check(MarbleSolitaireModel model, int step) {
+    int[] jumps = new int[((BoardPosition) model).getGeometry().getJumpCount()];
+    assertEquals("score after " + step + " changes", scanScore(model), model.getScore());
+    assertEquals("game over after " + step + " changes", scanJumps(model, jumps) == 0,
+            model.isGameOver());
+  }
+
+  /**
+   * Plays random games on one board, mixing moves, undos and redos. Most games are checked
+   * after every change; some make a few moves first, so that the counts are first taken part
+   * way through a game.
+   * @param random - the source of the moves.
+   * @param type - the board type.
+   * @param size - int - the board size.
+   * @param games - int - how many games to play.
+   */
+  private void playRandomGames(Random random, String type, int size, int games) {
+    for (int game = 0; game < games; game++) {
+      MarbleSolitaireModel model = SolitaireFactory.createModel(type, size);
+      BoardGeometry geometry = ((BoardPosition) model).getGeometry();
+      Undoable undoable = (Undoable) model;
+      int[] jumps = new int[geometry.getJumpCount()];
+      int unchecked = game % 4 == 0 ? random.nextInt(4) : 0;
+      for (int step = 0; step < 400; step++) {
+        int choice = random.nextInt(10);
+        int count = scanJumps(model, jumps);
+        if (choice < 2 && undoable.canUndo()) {
+          undoable.undo();
+        } else if (choice < 4 && undoable.canRedo()) {
+          undoable.redo();
+        } else if (count > 0) {
+          int jump = jumps[random.nextInt(count)];
+          int from = geometry.getJumpFrom(jump);
+          int to = geometry.getJumpTo(jump);
+          model.move(geometry.getRow(from), geometry.getCol(from), geometry.getRow(to),
+                  geometry.getCol(to));
+        } else if (undoable.canUndo()) {
+          undoable.undo();
+        }
+        if (step >= unchecked) {
+          check(model, step + 1);
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests the counts on English boards.
+   */
+  @Test
+  public void english() {
+    Random random = new Random(3);
+    playRandomGames(random, "english", 3, 40);
+    playRandomGames(random, "english", 5, 10);
+  }
+
+  /**
+   * Tests the counts on European boards.
+   */
+  @Test
+  public void european() {
+    Random random = new Random(5);
+    playRandomGames(random, "european", 3, 40);
+    playRandomGames(random, "european", 5, 10);
+  }
+
+  /**
+   * Tests the counts on triangle boards, whose jumps also run along two diagonals.
+   */
+  @Test
+  public void triangular() {
+    Random random = new Random(7);
+    playRandomGames(random, "triangular", 5, 40);
+    playRandomGames(random, "triangular", 8, 10);
+  }
+}
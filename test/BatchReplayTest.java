@@ -0,0 +1,113 @@
+import marblesolitaure.model.driver.BatchReplay;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * A junit test suite for replaying recorded games.
+ */
+public class BatchReplayTest {
+
+  /**
+   * Tests a default game with a few legal moves.
+   */
+  @Test
+  public void legalMoves() {
+    assertEquals("score=30 gameOver=false firstIllegal=-1",
+            BatchReplay.replayGame("english 2 4 4 4 5 4 3 4"));
+    assertEquals("score=32 gameOver=false firstIllegal=-1", BatchReplay.replayGame("english"));
+  }
+
+  /**
+   * Tests that illegal moves are counted and skipped.
+   */
+  @Test
+  public void illegalMoves() {
+    assertEquals("score=30 gameOver=false firstIllegal=1",
+            BatchReplay.replayGame("english 2 4 4 4 1 1 3 1 2 4 4 4 3 6 3 4"));
+  }
+
+  /**
+   * Tests the size and hole options.
+   */
+  @Test
+  public void options() {
+    assertEquals("score=4 gameOver=false firstIllegal=-1",
+            BatchReplay.replayGame("triangular -size 3 3 1 1 1"));
+    assertEquals("score=0 gameOver=true firstIllegal=-1",
+            BatchReplay.replayGame("triangular -size 1"));
+    assertEquals("score=35 gameOver=false firstIllegal=-1",
+            BatchReplay.replayGame("european -hole 3 0 4 3 4 1"));
+    assertEquals("score=30 gameOver=false firstIllegal=-1",
+            BatchReplay.replayGame("english -size 3 -hole 3 3 2 4 4 4 5 4 3 4"));
+  }
+
+  /**
+   * Tests that moves after the game is over are ignored.
+   */
+  @Test
+  public void gameOver() {
+    assertEquals("score=2 gameOver=true firstIllegal=-1",
+            BatchReplay.replayGame("triangular -size 2 -hole 1 0 1 1 1 1 1 1 1 1"));
+  }
+
+  /**
+   * Tests lines that are not games.
+   */
+  @Test
+  public void errors() {
+    assertEquals("error=Unknown board type hexagonal.", BatchReplay.replayGame("hexagonal"));
+    assertEquals("error=Game ends in the middle of a move.",
+            BatchReplay.replayGame("english 2 4 4"));
+    assertEquals("error=Not a number: x.", BatchReplay.replayGame("english -size x"));
+    assertEquals("error=Invalid empty cell position (0,0).",
+            BatchReplay.replayGame("english -hole 0 0"));
+  }
+
+  /**
+   * Tests replaying several files on a pool of threads, with results in file order.
+   * @throws IOException if the files cannot be written.
+   */
+  @Test
+  public void files() throws IOException {
+    Path directory = Files.createTempDirectory("replay");
+    List<Path> files = new ArrayList<>();
+    StringBuilder expected = new StringBuilder();
+    for (int k = 0; k < 20; k++) {
+      Path file = directory.resolve("games" + k + ".txt");
+      List<String> lines = new ArrayList<>();
+      lines.add("# game file " + k);
+      lines.add("");
+      lines.add("english 2 4 4 4");
+      for (int i = 0; i < k; i++) {
+        lines.add("triangular -size 3 3 1 1 1");
+      }
+      Files.write(file, lines, StandardCharsets.UTF_8);
+      files.add(file);
+      expected.append(file).append(":3 score=31 gameOver=false firstIllegal=-1\n");
+      for (int i = 0; i < k; i++) {
+        expected.append(file).append(":").append(i + 4)
+                .append(" score=4 gameOver=false firstIllegal=-1\n");
+      }
+    }
+    StringBuilder out = new StringBuilder();
+    BatchReplay.replay(files, 3, out);
+    assertEquals(expected.toString(), out.toString());
+  }
+
+  /**
+   * Tests replaying with no threads.
+   * @throws IOException never.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void noThreads() throws IOException {
+    BatchReplay.replay(new ArrayList<>(), 0, new StringBuilder());
+  }
+}
@@ -0,0 +1,176 @@
+import marblesolitaure.model.MarbleSolitaireModel;
+import marblesolitaure.model.driver.BitSetSolitaireModel;
+import marblesolitaure.model.driver.SolitaireFactory;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A junit test suite for the BitSetSolitaireModel class. Most tests play the same game on a
+ * bit set board and on the array based model made by the SolitaireFactory and expect both to
+ * agree.
+ */
+public class BitSetSolitaireModelTest {
+
+  /**
+   * Tests that the constructors build the same boards as the array based models.
+   */
+  @Test
+  public void constructorTest() {
+    for (String type : new String[] {"english", "european", "triangular"}) {
+      assertEquals(SolitaireFactory.createModel(type).getGameState(),
+              new BitSetSolitaireModel(type).getGameState());
+      assertEquals(SolitaireFactory.createModel(type, 5).getGameState(),
+              new BitSetSolitaireModel(type, 5).getGameState());
+      assertEquals(SolitaireFactory.createModel(type, 4, 2).getGameState(),
+              new BitSetSolitaireModel(type, 4, 2).getGameState());
+      assertEquals(SolitaireFactory.createModel(type, 7, 6, 0).getGameState(),
+              new BitSetSolitaireModel(type, 7, 6, 0).getGameState());
+      assertEquals(SolitaireFactory.createModel(type, 1).getScore(),
+              new BitSetSolitaireModel(type, 1).getScore());
+    }
+  }
+
+  /**
+   * Tests an unknown board type.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void unknownTypeTest() {
+    new BitSetSolitaireModel("hexagonal");
+  }
+
+  /**
+   * Tests an even arm thickness.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void evenArmThicknessTest() {
+    new BitSetSolitaireModel("english", 4);
+  }
+
+  /**
+   * Tests a triangle with no rows.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void emptyTriangleTest() {
+    new BitSetSolitaireModel("triangular", 0);
+  }
+
+  /**
+   * Tests a starting space in an invalid space of a triangle.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidStartingSpotTest() {
+    new BitSetSolitaireModel("triangular", 1, 2);
+  }
+
+  /**
+   * Tests a diagonal jump on a square board.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void diagonalOnSquareBoard() {
+    MarbleSolitaireModel model = new BitSetSolitaireModel("european", 5);
+    model.move(4, 4, 6, 6);
+  }
+
+  /**
+   * Tests the diagonal jumps of a triangle.
+   */
+  @Test
+  public void triangleDiagonals() {
+    MarbleSolitaireModel model = new BitSetSolitaireModel("triangular");
+    model.move(2, 2, 0, 0);
+    model.move(4, 4, 2, 2);
+    assertEquals(12, model.getScore());
+    assertEquals("    O\n"
+            + "   O _\n"
+            + "  O O O\n"
+            + " O O O _\n"
+            + "O O O O _", model.getGameState());
+  }
+
+  /**
+   * Tests boards that are far too large for one object per space.
+   */
+  @Test
+  public void largeBoards() {
+    MarbleSolitaireModel triangle = new BitSetSolitaireModel("triangular", 2000);
+    assertEquals(2000 * 2001 / 2 - 1, triangle.getScore());
+    assertFalse(triangle.isGameOver());
+    triangle.move(2, 0, 0, 0);
+    triangle.move(2, 2, 2, 0);
+    assertEquals(2000 * 2001 / 2 - 3, triangle.getScore());
+    assertFalse(triangle.isGameOver());
+
+    MarbleSolitaireModel english = new BitSetSolitaireModel("english", 51);
+    assertEquals(5 * 51 * 51 - 4 * 51 - 1, english.getScore());
+    english.move(75, 73, 75, 75);
+    assertFalse(english.isGameOver());
+  }
+
+  /**
+   * Tests that a board with one space is over right away.
+   */
+  @Test
+  public void singleSpaceBoard() {
+    assertTrue(new BitSetSolitaireModel("triangular", 1).isGameOver());
+    assertTrue(new BitSetSolitaireModel("english", 1).isGameOver());
+  }
+
+  /**
+   * Plays random games of every type and a few sizes on both kinds of model and checks that
+   * they agree on every attempted move, the score and whether the game is over.
+   */
+  @Test
+  public void randomGamesMatchArrayModels() {
+    Random random = new Random(7);
+    String[] types = {"english", "european", "triangular"};
+    int[][] sizes = {{3, 5}, {3, 5}, {5, 6, 8}};
+    int[][] jumps = {{2, 0}, {-2, 0}, {0, 2}, {0, -2}, {2, 2}, {-2, -2}, {2, -2}};
+    for (int t = 0; t < types.length; t++) {
+      for (int size : sizes[t]) {
+        for (int game = 0; game < 5; game++) {
+          MarbleSolitaireModel expected = SolitaireFactory.createModel(types[t], size);
+          MarbleSolitaireModel actual = new BitSetSolitaireModel(types[t], size);
+          int side = types[t].equals("triangular") ? size : 3 * size - 2;
+          boolean moved = true;
+          while (moved) {
+            moved = false;
+            int start = random.nextInt(side * side * jumps.length);
+            for (int k = 0; k < side * side * jumps.length && !moved; k++) {
+              int candidate = (start + k) % (side * side * jumps.length);
+              int cell = candidate / jumps.length;
+              int[] jump = jumps[candidate % jumps.length];
+              int row = cell / side;
+              int col = cell % side;
+              moved = tryMove(expected, row, col, row + jump[0], col + jump[1]);
+              assertEquals(moved, tryMove(actual, row, col, row + jump[0], col + jump[1]));
+            }
+            assertEquals(expected.getScore(), actual.getScore());
+            assertEquals(expected.isGameOver(), actual.isGameOver());
+            if (!moved) {
+              assertTrue(actual.isGameOver());
+            }
+          }
+          assertEquals(expected.getGameState(), actual.getGameState());
+        }
+      }
+    }
+  }
+
+  /**
+   * Attempts a move and reports whether the model accepted it.
+   */
+  private static boolean tryMove(MarbleSolitaireModel model, int fromRow, int fromCol,
+                                 int toRow, int toCol) {
+    try {
+      model.move(fromRow, fromCol, toRow, toCol);
+      return true;
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+}
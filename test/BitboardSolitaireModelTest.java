@@ -0,0 +1,171 @@
+import marblesolitaure.model.MarbleSolitaireModel;
+import marblesolitaure.model.MarbleSolitaireModelImpl;
+import marblesolitaure.model.driver.BitboardSolitaireModel;
+import marblesolitaure.model.driver.EuropeanSolitaireModelImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A junit test suite for the BitboardSolitaireModel class. Most tests play the same game on a
+ * bitboard and on the matching array based model and expect both to agree.
+ */
+public class BitboardSolitaireModelTest {
+  public BitboardSolitaireModel english;
+  public BitboardSolitaireModel european;
+
+  /**
+   * Sets up a default english and european bitboard.
+   */
+  @Before
+  public void setUp() {
+    english = new BitboardSolitaireModel("english");
+    european = new BitboardSolitaireModel("european");
+  }
+
+  /**
+   * Tests that the constructors build the same boards as the array based models.
+   */
+  @Test
+  public void constructorTest() {
+    assertEquals(new MarbleSolitaireModelImpl().getGameState(), english.getGameState());
+    assertEquals(new EuropeanSolitaireModelImpl().getGameState(), european.getGameState());
+    assertEquals(new MarbleSolitaireModelImpl(3, 0).getGameState(),
+            new BitboardSolitaireModel("english", 3, 0).getGameState());
+    assertEquals(new EuropeanSolitaireModelImpl(1, 1).getGameState(),
+            new BitboardSolitaireModel("european", 1, 1).getGameState());
+    assertEquals(new MarbleSolitaireModelImpl(1).getGameState(),
+            new BitboardSolitaireModel("english", 1).getGameState());
+    assertEquals(new EuropeanSolitaireModelImpl(3, 6, 3).getGameState(),
+            new BitboardSolitaireModel("european", 3, 6, 3).getGameState());
+    assertEquals(32, english.getScore());
+    assertEquals(36, european.getScore());
+  }
+
+  /**
+   * Tests an unknown board type.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void triangularTypeTest() {
+    new BitboardSolitaireModel("triangular");
+  }
+
+  /**
+   * Tests an arm thickness that does not fit in 64 bits.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void tooLargeTest() {
+    new BitboardSolitaireModel("english", 5);
+  }
+
+  /**
+   * Tests an even arm thickness.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void evenArmThicknessTest() {
+    new BitboardSolitaireModel("european", 2);
+  }
+
+  /**
+   * Tests a starting space in an invalid space.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidStartingSpotTest() {
+    new BitboardSolitaireModel("english", 0, 0);
+  }
+
+  /**
+   * Tests a starting space out of bounds.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void outsideBoundsStartingSpotTest() {
+    new BitboardSolitaireModel("european", 3, 7);
+  }
+
+  /**
+   * Tests jumping an empty space.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void jumpEmptySpace() {
+    english.move(3, 1, 3, 3);
+    english.move(3, 3, 3, 1);
+  }
+
+  /**
+   * Tests that a jump off the right edge of a row does not wrap into the next row.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void moveAcrossRowEdge() {
+    english.move(2, 6, 2, 8);
+  }
+
+  /**
+   * Tests moving diagonally.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void moveDiagonally() {
+    english.move(5, 3, 3, 3);
+    english.move(3, 5, 5, 3);
+  }
+
+  /**
+   * Plays the short game from the english model tests and checks the end of the game.
+   */
+  @Test
+  public void validTest() {
+    english.move(1, 3, 3, 3);
+    english.move(4, 3, 2, 3);
+    english.move(6, 3, 4, 3);
+    english.move(3, 1, 3, 3);
+    english.move(3, 4, 3, 2);
+    assertFalse(english.isGameOver());
+    english.move(3, 6, 3, 4);
+    assertTrue(english.isGameOver());
+    assertEquals(26, english.getScore());
+  }
+
+  /**
+   * Plays many random games on the bitboards and the array based models and checks that the
+   * two agree after every move, including on every rejected move.
+   */
+  @Test
+  public void randomGamesMatchArrayModels() {
+    Random random = new Random(42);
+    for (int game = 0; game < 40; game++) {
+      boolean isEuropean = game % 2 == 1;
+      MarbleSolitaireModel expected = isEuropean
+              ? new EuropeanSolitaireModelImpl() : new MarbleSolitaireModelImpl();
+      MarbleSolitaireModel actual = new BitboardSolitaireModel(
+              isEuropean ? "european" : "english");
+      while (!expected.isGameOver()) {
+        int fromRow = random.nextInt(9) - 1;
+        int fromCol = random.nextInt(9) - 1;
+        int toRow = fromRow + 2 * (random.nextInt(3) - 1);
+        int toCol = fromCol + 2 * (random.nextInt(3) - 1);
+        boolean expectedMoved = tryMove(expected, fromRow, fromCol, toRow, toCol);
+        assertEquals(expectedMoved, tryMove(actual, fromRow, fromCol, toRow, toCol));
+        assertEquals(expected.getScore(), actual.getScore());
+        assertEquals(expected.isGameOver(), actual.isGameOver());
+      }
+      assertEquals(expected.getGameState(), actual.getGameState());
+    }
+  }
+
+  /**
+   * Attempts a move and reports whether the model accepted it.
+   */
+  private static boolean tryMove(MarbleSolitaireModel model, int fromRow, int fromCol,
+                                 int toRow, int toCol) {
+    try {
+      model.move(fromRow, fromCol, toRow, toCol);
+      return true;
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,217 @@
+import marblesolitaure.model.driver.BoardGeometry;
+import marblesolitaure.model.driver.SolitaireFactory;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A junit test suite for the BoardGeometry class and the geometry cache of the
+ * SolitaireFactory.
+ */
+public class BoardGeometryTest {
+
+  /**
+   * Tests the number of spaces and jumps of the three default boards.
+   */
+  @Test
+  public void defaultBoards() {
+    BoardGeometry english = SolitaireFactory.getGeometry("english", 3);
+    assertEquals(33, english.getCellCount());
+    assertEquals(76, english.getJumpCount());
+    assertEquals(4, english.getDirectionCount());
+    BoardGeometry european = SolitaireFactory.getGeometry("european", 3);
+    assertEquals(37, european.getCellCount());
+    assertEquals(92, european.getJumpCount());
+    BoardGeometry triangle = SolitaireFactory.getGeometry("triangular", 5);
+    assertEquals(15, triangle.getCellCount());
+    assertEquals(36, triangle.getJumpCount());
+    assertEquals(6, triangle.getDirectionCount());
+  }
+
+  /**
+   * Tests that spaces are numbered row by row and only valid spaces get a number.
+   */
+  @Test
+  public void cellNumbers() {
+    BoardGeometry english = SolitaireFactory.getGeometry("english", 3);
+    assertEquals(0, english.getCell(0, 2));
+    assertEquals(16, english.getCell(3, 3));
+    assertEquals(-1, english.getCell(0, 0));
+    assertEquals(-1, english.getCell(3, 7));
+    assertEquals(-1, english.getCell(-1, 3));
+    for (int cell = 0; cell < english.getCellCount(); cell++) {
+      assertEquals(cell, english.getCell(english.getRow(cell), english.getCol(cell)));
+    }
+    BoardGeometry triangle = SolitaireFactory.getGeometry("triangular", 6);
+    for (int i = 0; i < 6; i++) {
+      for (int j = 0; j <= i; j++) {
+        assertEquals(i * (i + 1) / 2 + j, triangle.getCell(i, j));
+      }
+      assertEquals(-1, triangle.getCell(i, i + 1));
+    }
+  }
+
+  /**
+   * Tests that every jump moves two spaces in a straight line and that every jump can be
+   * found again from its two ends.
+   */
+  @Test
+  public void jumpTriples() {
+    for (String type : new String[] {"english", "european", "triangular"}) {
+      BoardGeometry geometry = SolitaireFactory.getGeometry(type, 5);
+      for (int jump = 0; jump < geometry.getJumpCount(); jump++) {
+        int from = geometry.getJumpFrom(jump);
+        int over = geometry.getJumpOver(jump);
+        int to = geometry.getJumpTo(jump);
+        assertEquals(2 * geometry.getRow(over), geometry.getRow(from) + geometry.getRow(to));
+        assertEquals(2 * geometry.getCol(over), geometry.getCol(from) + geometry.getCol(to));
+        assertEquals(jump, geometry.findJump(from, to));
+        assertTrue(geometry.findJump(to, from) >= 0);
+      }
+      assertEquals(-1, geometry.findJump(0, 0));
+    }
+  }
+
+  /**
+   * Tests the diagonal jumps of a triangle.
+   */
+  @Test
+  public void triangleDiagonals() {
+    BoardGeometry triangle = SolitaireFactory.getGeometry("triangular", 5);
+    int jump = triangle.findJump(triangle.getCell(2, 2), triangle.getCell(0, 0));
+    assertEquals(triangle.getCell(1, 1), triangle.getJumpOver(jump));
+    assertEquals(-1, triangle.findJump(triangle.getCell(2, 0), triangle.getCell(0, 2)));
+  }
+
+  /**
+   * Tests that the factory builds each geometry once and shares it.
+   */
+  @Test
+  public void geometriesAreShared() {
+    assertSame(SolitaireFactory.getGeometry("european", 5),
+            SolitaireFactory.getGeometry("european", 5));
+    assertNotSame(SolitaireFactory.getGeometry("english", 5),
+            SolitaireFactory.getGeometry("european", 5));
+    assertNotSame(SolitaireFactory.getGeometry("english", 5),
+            SolitaireFactory.getGeometry("english", 3));
+  }
+
+  /**
+   * Tests that the factory does not keep a geometry that nothing uses any more, and builds it
+   * again when it is next asked for.
+   */
+  @Test
+  public void unusedGeometriesAreDropped() {
+    WeakReference<BoardGeometry> dropped =
+            new WeakReference<>(SolitaireFactory.getGeometry("triangular", 301));
+    for (int tries = 0; tries < 50 && dropped.get() != null; tries++) {
+      System.gc();
+    }
+    assertNull(dropped.get());
+    assertEquals(301 * 302 / 2, SolitaireFactory.getGeometry("triangular", 301).getCellCount());
+  }
+
+  /**
+   * Tests that every symmetry of every board is a permutation of its spaces that maps jumps
+   * onto jumps, and that the first is the identity.
+   */
+  @Test
+  public void symmetries() {
+    BoardGeometry[] geometries = {SolitaireFactory.getGeometry("english", 3),
+        SolitaireFactory.getGeometry("european", 5), SolitaireFactory.getGeometry("triangular", 6)};
+    int[] counts = {8, 8, 6};
+    for (int g = 0; g < geometries.length; g++) {
+      BoardGeometry geometry = geometries[g];
+      assertEquals(counts[g], geometry.getSymmetryCount());
+      for (int s = 0; s < geometry.getSymmetryCount(); s++) {
+        boolean[] hit = new boolean[geometry.getCellCount()];
+        for (int cell = 0; cell < geometry.getCellCount(); cell++) {
+          int image = geometry.getSymmetricCell(s, cell);
+          assertTrue(!hit[image]);
+          hit[image] = true;
+          if (s == 0) {
+            assertEquals(cell, image);
+          }
+        }
+        for (int jump = 0; jump < geometry.getJumpCount(); jump++) {
+          int image = geometry.findJump(geometry.getSymmetricCell(s, geometry.getJumpFrom(jump)),
+                  geometry.getSymmetricCell(s, geometry.getJumpTo(jump)));
+          assertTrue(image >= 0);
+          assertEquals(geometry.getSymmetricCell(s, geometry.getJumpOver(jump)),
+                  geometry.getJumpOver(image));
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests a rotation of the triangle, which moves its corners onto each other.
+   */
+  @Test
+  public void triangleCorners() {
+    BoardGeometry geometry = SolitaireFactory.getGeometry("triangular", 5);
+    int top = geometry.getCell(0, 0);
+    int left = geometry.getCell(4, 0);
+    int right = geometry.getCell(4, 4);
+    for (int s = 1; s < geometry.getSymmetryCount(); s++) {
+      int image = geometry.getSymmetricCell(s, top);
+      assertTrue(image == top || image == left || image == right);
+    }
+    assertEquals(geometry.getCell(2, 1), geometry.getSymmetricCell(3, geometry.getCell(2, 1)));
+  }
+
+  /**
+   * Tests that triangle spaces are packed row by row at i * (i + 1) / 2 + j, and that every
+   * jump moves the same distance in that numbering as the closed form says.
+   */
+  @Test
+  public void packedTriangle() {
+    int side = 40;
+    BoardGeometry geometry = SolitaireFactory.getGeometry("triangular", side);
+    assertEquals(side * (side + 1) / 2, geometry.getCellCount());
+    for (int i = 0; i < side; i++) {
+      for (int j = 0; j < side; j++) {
+        assertEquals(j <= i ? i * (i + 1) / 2 + j : -1, geometry.getCell(i, j));
+      }
+    }
+    int[] rowSteps = {1, -1, 0, 0, 1, -1};
+    int[] colSteps = {0, 0, 1, -1, 1, -1};
+    for (int jump = 0; jump < geometry.getJumpCount(); jump++) {
+      int from = geometry.getJumpFrom(jump);
+      int i = geometry.getRow(from);
+      int j = geometry.getCol(from);
+      int d = 0;
+      while (geometry.getJump(from, d) != jump) {
+        d++;
+      }
+      int toRow = i + 2 * rowSteps[d];
+      assertEquals(toRow * (toRow + 1) / 2 + j + 2 * colSteps[d], geometry.getJumpTo(jump));
+      int overRow = i + rowSteps[d];
+      assertEquals(overRow * (overRow + 1) / 2 + j + colSteps[d], geometry.getJumpOver(jump));
+    }
+    assertEquals(geometry.getCell(5, 3) + 2 * 5 + 5,
+            geometry.getJumpTo(geometry.findJump(geometry.getCell(5, 3), geometry.getCell(7, 5))));
+  }
+
+  /**
+   * Tests an unknown board type.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void unknownType() {
+    SolitaireFactory.getGeometry("square", 3);
+  }
+
+  /**
+   * Tests an even arm thickness.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void evenArmThickness() {
+    SolitaireFactory.getGeometry("english", 2);
+  }
+}
@@ -0,0 +1,191 @@
+import marblesolitaure.controller.CommandTokenizer;
+import marblesolitaure.controller.FlushPolicy;
+import marblesolitaure.controller.MarbleSolitaireControllerImpl;
+import marblesolitaure.model.MarbleSolitaireModelImpl;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.Scanner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * A junit test suite for the CommandTokenizer.
+ */
+public class CommandTokenizerTest {
+
+  /**
+   * Reads every token of an input and describes them.
+   * @param tokenizer - the tokenizer to read.
+   * @return - a string with one word per token.
+   */
+  private String describe(CommandTokenizer tokenizer) {
+    StringBuilder tokens = new StringBuilder();
+    for (int token = tokenizer.next(); token != CommandTokenizer.EOF; token = tokenizer.next()) {
+      if (token == CommandTokenizer.INT) {
+        tokens.append(tokenizer.intValue());
+      } else {
+        tokens.append(token == CommandTokenizer.QUIT ? "quit" : "other");
+      }
+      tokens.append(' ');
+    }
+    return tokens.toString();
+  }
+
+  /**
+   * Describes the tokens of an input the way the controller used to read them, with a
+   * Scanner.
+   * @param input - the input.
+   * @return - a string with one word per token.
+   */
+  private String describeWithScanner(String input) {
+    StringBuilder tokens = new StringBuilder();
+    Scanner scanner = new Scanner(input);
+    while (scanner.hasNext()) {
+      if (scanner.hasNext("q") || scanner.hasNext("Q")) {
+        tokens.append("quit");
+        scanner.next();
+      } else if (scanner.hasNextInt()) {
+        tokens.append(scanner.nextInt());
+      } else {
+        tokens.append("other");
+        scanner.next();
+      }
+      tokens.append(' ');
+    }
+    return tokens.toString();
+  }
+
+  /**
+   * Tests each kind of token.
+   */
+  @Test
+  public void tokens() {
+    CommandTokenizer tokenizer = new CommandTokenizer(
+            new StringReader("  4 -3 +7 q Q qq x 2x 2147483647 2147483648 -2147483648 - \n"));
+    assertEquals("4 -3 7 quit quit other other other 2147483647 other -2147483648 other ",
+            describe(tokenizer));
+    assertEquals(CommandTokenizer.EOF, tokenizer.next());
+  }
+
+  /**
+   * Tests reading from a CharBuffer and from a channel of bytes.
+   */
+  @Test
+  public void sources() {
+    String input = "1 2 3 4\tq\r\n9";
+    assertEquals("1 2 3 4 quit 9 ", describe(new CommandTokenizer(CharBuffer.wrap(input))));
+    assertEquals("1 2 3 4 quit 9 ", describe(new CommandTokenizer(Channels.newChannel(
+            new ByteArrayInputStream(input.getBytes(StandardCharsets.US_ASCII))))));
+  }
+
+  /**
+   * Tests tokens that straddle the blocks the input is read in.
+   */
+  @Test
+  public void longInput() {
+    StringBuilder input = new StringBuilder();
+    StringBuilder expected = new StringBuilder();
+    for (int k = 0; k < 20000; k++) {
+      input.append(k).append(k % 7 == 0 ? "\n" : " ");
+      expected.append(k).append(' ');
+    }
+    assertEquals(expected.toString(), describe(new CommandTokenizer(
+            new StringReader(input.toString()))));
+    assertEquals(expected.toString(), describe(new CommandTokenizer(Channels.newChannel(
+            new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.US_ASCII))))));
+  }
+
+  /**
+   * Tests that random input is split and classified the same way a Scanner does it.
+   */
+  @Test
+  public void matchesScanner() {
+    Random random = new Random(12);
+    String[] pieces = {"1", "7", "0", "-", "+", "q", "Q", "x", "99999999999", " ", " ", "\n",
+        "\t"};
+    for (int k = 0; k < 500; k++) {
+      StringBuilder input = new StringBuilder();
+      int length = random.nextInt(30);
+      for (int i = 0; i < length; i++) {
+        input.append(pieces[random.nextInt(pieces.length)]);
+      }
+      assertEquals(input.toString(), describeWithScanner(input.toString()),
+              describe(new CommandTokenizer(new StringReader(input.toString()))));
+    }
+  }
+
+  /**
+   * Tests a controller reading a game from a channel.
+   */
+  @Test
+  public void controllerReadsChannel() {
+    StringBuilder fromChannel = new StringBuilder();
+    String input = "2 4 4 4 x 0 3 2 3 4 q";
+    new MarbleSolitaireControllerImpl(Channels.newChannel(new ByteArrayInputStream(
+            input.getBytes(StandardCharsets.US_ASCII))), fromChannel, FlushPolicy.ON_EXIT)
+            .playGame(new MarbleSolitaireModelImpl());
+    StringBuilder fromReader = new StringBuilder();
+    new MarbleSolitaireControllerImpl(new StringReader(input), fromReader, FlushPolicy.ON_EXIT)
+            .playGame(new MarbleSolitaireModelImpl());
+    assertEquals(fromReader.toString(), fromChannel.toString());
+    assertTrue(fromChannel.toString().contains("Please enter a valid source row.\n"
+            + "Please enter a positive integer for board position.\n"));
+  }
+
+  /**
+   * Tests a null channel.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void nullChannel() {
+    new CommandTokenizer((ReadableByteChannel) null);
+  }
+
+  /**
+   * Tests that a channel in non-blocking mode is turned away rather than polled.
+   */
+  @Test
+  public void nonBlockingChannel() throws IOException {
+    Pipe pipe = Pipe.open();
+    try {
+      pipe.source().configureBlocking(false);
+      try {
+        new CommandTokenizer(pipe.source());
+        fail("A non-blocking channel was accepted.");
+      } catch (IllegalArgumentException e) {
+        assertEquals("Channel is in non-blocking mode.", e.getMessage());
+      }
+      try {
+        new MarbleSolitaireControllerImpl(pipe.source(), new StringBuilder(),
+                FlushPolicy.ON_EXIT);
+        fail("A non-blocking channel was accepted.");
+      } catch (IllegalArgumentException e) {
+        assertEquals("Channel is in non-blocking mode.", e.getMessage());
+      }
+
+      // A channel switched to non-blocking mode later fails on its first empty read.
+      pipe.source().configureBlocking(true);
+      CommandTokenizer tokenizer = new CommandTokenizer(pipe.source());
+      pipe.source().configureBlocking(false);
+      try {
+        tokenizer.next();
+        fail("An empty non-blocking read was retried.");
+      } catch (IllegalStateException e) {
+        assertEquals("Channel is in non-blocking mode.", e.getMessage());
+      }
+    } finally {
+      pipe.source().close();
+      pipe.sink().close();
+    }
+  }
+}
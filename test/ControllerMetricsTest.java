@@ -0,0 +1,239 @@
+import marblesolitaure.controller.ControllerMetrics;
+import marblesolitaure.controller.FlushPolicy;
+import marblesolitaure.controller.LatencyHistogram;
+import marblesolitaure.controller.MarbleSolitaireControllerImpl;
+import marblesolitaure.controller.TurnPhase;
+import marblesolitaure.model.MarbleSolitaireModelImpl;
+import marblesolitaure.model.driver.SolitaireFactory;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A junit test suite for the controller metrics and the latency histogram.
+ */
+public class ControllerMetricsTest {
+
+  /**
+   * Plays a game through a controller that records into the given metrics.
+   * @param input - the player's input.
+   * @param metrics - the metrics.
+   */
+  private void play(String input, ControllerMetrics metrics) {
+    new MarbleSolitaireControllerImpl(new StringReader(input), new StringBuilder(),
+            FlushPolicy.ON_EXIT, metrics).playGame(new MarbleSolitaireModelImpl());
+  }
+
+  /**
+   * Tests the counters of a quit game.
+   */
+  @Test
+  public void countsQuitGame() {
+    ControllerMetrics metrics = new ControllerMetrics();
+    play("2 4 4 4 x 0 3 2 3 4 1 1 1 1 q", metrics);
+    ControllerMetrics.Snapshot snapshot = metrics.snapshot();
+    assertEquals(2, snapshot.getMovesApplied());
+    assertEquals(1, snapshot.getInvalidMoves());
+    assertEquals(2, snapshot.getParseErrors());
+    assertEquals(1, snapshot.getQuits());
+    assertEquals(0, snapshot.getGameOvers());
+    assertEquals(3, snapshot.getLatency(TurnPhase.TURN).getCount());
+    assertEquals(3, snapshot.getLatency(TurnPhase.PARSE).getCount());
+    assertEquals(3, snapshot.getLatency(TurnPhase.INPUT_WAIT).getCount());
+    assertEquals(3, snapshot.getLatency(TurnPhase.MOVE).getCount());
+    assertEquals(3, snapshot.getLatency(TurnPhase.GAME_OVER).getCount());
+    assertEquals(5, snapshot.getLatency(TurnPhase.RENDER).getCount());
+    assertTrue(snapshot.getLatency(TurnPhase.TURN).getTotal()
+            >= snapshot.getLatency(TurnPhase.MOVE).getTotal());
+  }
+
+  /**
+   * Tests that time spent waiting for input is recorded apart from parsing and the turn.
+   */
+  @Test
+  public void inputWaitLeftOutOfTurn() {
+    String[] chunks = {"2 4 ", "4 4\n", "q"};
+    Readable slowPlayer = new Readable() {
+      private int next;
+
+      @Override
+      public int read(CharBuffer cb) {
+        if (next == chunks.length) {
+          return -1;
+        }
+        try {
+          Thread.sleep(50);
+        } catch (InterruptedException e) {
+          throw new AssertionError(e);
+        }
+        cb.put(chunks[next]);
+        return chunks[next++].length();
+      }
+    };
+    ControllerMetrics metrics = new ControllerMetrics();
+    new MarbleSolitaireControllerImpl(slowPlayer, new StringBuilder(), FlushPolicy.ON_EXIT,
+            metrics).playGame(new MarbleSolitaireModelImpl());
+    ControllerMetrics.Snapshot snapshot = metrics.snapshot();
+    assertEquals(1, snapshot.getLatency(TurnPhase.INPUT_WAIT).getCount());
+    long waited = snapshot.getLatency(TurnPhase.INPUT_WAIT).getTotal();
+    assertTrue(waited >= 100_000_000L);
+    assertTrue(snapshot.getLatency(TurnPhase.PARSE).getTotal() < waited / 2);
+    assertTrue(snapshot.getLatency(TurnPhase.TURN).getTotal() < waited / 2);
+  }
+
+  /**
+   * Tests the counters of games that end, shared between several games.
+   */
+  @Test
+  public void countsGameOvers() {
+    ControllerMetrics metrics = new ControllerMetrics();
+    for (int game = 0; game < 3; game++) {
+      new MarbleSolitaireControllerImpl(new StringReader("1 1 1 1"), new StringBuilder(),
+              FlushPolicy.PER_MOVE, metrics).playGame(SolitaireFactory.createModel("triangular",
+              1));
+    }
+    assertEquals(0, metrics.getMovesApplied());
+    assertEquals(3, metrics.getInvalidMoves());
+    assertEquals(3, metrics.getGameOvers());
+  }
+
+  /**
+   * Tests that a controller without metrics plays as before.
+   */
+  @Test
+  public void noMetrics() {
+    StringBuilder with = new StringBuilder();
+    StringBuilder without = new StringBuilder();
+    String input = "2 4 4 4 x 0 3 2 3 4 q";
+    new MarbleSolitaireControllerImpl(new StringReader(input), with, FlushPolicy.ON_EXIT,
+            new ControllerMetrics()).playGame(new MarbleSolitaireModelImpl());
+    new MarbleSolitaireControllerImpl(new StringReader(input), without, FlushPolicy.ON_EXIT,
+            null).playGame(new MarbleSolitaireModelImpl());
+    assertEquals(without.toString(), with.toString());
+  }
+
+  /**
+   * Tests the percentiles of a histogram against the exact percentiles of the same times.
+   */
+  @Test
+  public void percentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long value = 1; value <= 100000; value++) {
+      histogram.record(value * 37);
+    }
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(100000, snapshot.getCount());
+    assertEquals(3700000, snapshot.getMax());
+    assertEquals(37 * 50000.5, snapshot.getMean(), 0.001);
+    for (double percentile : new double[] {1, 10, 50, 90, 99, 99.9, 100}) {
+      long exact = (long) Math.ceil(percentile * 1000) * 37;
+      long reported = snapshot.getPercentile(percentile);
+      assertTrue(percentile + ": " + reported, reported >= exact);
+      assertTrue(percentile + ": " + reported, reported <= exact + exact / 16);
+    }
+  }
+
+  /**
+   * Tests small, negative and huge times.
+   */
+  @Test
+  public void edges() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.snapshot().getPercentile(50));
+    assertEquals(0.0, histogram.snapshot().getMean(), 0);
+    histogram.record(-5);
+    histogram.record(3);
+    histogram.record(Long.MAX_VALUE);
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(0, snapshot.getPercentile(0));
+    assertEquals(3, snapshot.getPercentile(50));
+    assertEquals(LatencyHistogram.MAX_VALUE, snapshot.getPercentile(100));
+    assertEquals(LatencyHistogram.MAX_VALUE, snapshot.getMax());
+  }
+
+  /**
+   * Tests a percentile out of range.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void badPercentile() {
+    new LatencyHistogram().snapshot().getPercentile(101);
+  }
+
+  /**
+   * Tests many threads recording into one histogram at once.
+   * @throws InterruptedException if the test is interrupted.
+   */
+  @Test
+  public void concurrentRecording() throws InterruptedException {
+    LatencyHistogram histogram = new LatencyHistogram();
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      Thread thread = new Thread(() -> {
+        for (int i = 0; i < 50000; i++) {
+          histogram.record(i % 1000);
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(200000, snapshot.getCount());
+    assertEquals(4L * 50 * (999 * 1000 / 2), snapshot.getTotal());
+    assertEquals(999, snapshot.getMax());
+  }
+
+  /**
+   * Tests reading the metrics through JMX.
+   * @throws Exception if JMX fails.
+   */
+  @Test
+  public void jmx() throws Exception {
+    ControllerMetrics metrics = new ControllerMetrics();
+    play("2 4 4 4 q", metrics);
+    ObjectName name = metrics.register("jmx test");
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      assertEquals(1L, server.getAttribute(name, "MovesApplied"));
+      assertEquals(1L, server.getAttribute(name, "Quits"));
+      TabularData counts = (TabularData) server.getAttribute(name, "Counts");
+      assertEquals(TurnPhase.values().length, counts.size());
+      Map<String, Long> p99 = metrics.getP99Nanos();
+      assertEquals(TurnPhase.values().length, p99.size());
+      assertTrue(p99.get("TURN") > 0);
+    } finally {
+      server.unregisterMBean(name);
+    }
+  }
+
+  /**
+   * Tests registering two metrics under one name.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void duplicateName() {
+    ControllerMetrics first = new ControllerMetrics();
+    ObjectName name = first.register("duplicate");
+    try {
+      new ControllerMetrics().register("duplicate");
+    } finally {
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+      } catch (Exception e) {
+        throw new AssertionError(e);
+      }
+    }
+  }
+}
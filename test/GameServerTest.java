@@ -0,0 +1,165 @@
+import marblesolitaure.controller.ControllerMetrics;
+import marblesolitaure.controller.FlushPolicy;
+import marblesolitaure.controller.MarbleSolitaireControllerImpl;
+import marblesolitaure.model.driver.GameServer;
+import marblesolitaure.model.driver.SolitaireFactory;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A junit test suite for the game server, played by socket clients on this machine.
+ */
+public class GameServerTest {
+
+  /**
+   * Connects to a server and sends some input.
+   * @param server - the server.
+   * @param input - what to send.
+   * @return - the connection.
+   * @throws IOException if the connection fails.
+   */
+  private Socket connect(GameServer server, String input) throws IOException {
+    Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+    send(socket, input);
+    return socket;
+  }
+
+  private void send(Socket socket, String input) throws IOException {
+    OutputStream out = socket.getOutputStream();
+    out.write(input.getBytes(StandardCharsets.US_ASCII));
+    out.flush();
+  }
+
+  /**
+   * Reads everything the server sends until it closes the connection.
+   * @param socket - the connection.
+   * @return - a string, what was sent.
+   * @throws IOException if the connection fails.
+   */
+  private String readAll(Socket socket) throws IOException {
+    ByteArrayOutputStream received = new ByteArrayOutputStream();
+    InputStream in = socket.getInputStream();
+    byte[] block = new byte[4096];
+    for (int count = in.read(block); count >= 0; count = in.read(block)) {
+      received.write(block, 0, count);
+    }
+    socket.close();
+    return new String(received.toByteArray(), StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * What a controller writes for a game played from a string.
+   * @param type - a string, the board type.
+   * @param size - an int, the board size.
+   * @param input - the moves.
+   * @return - a string, the transcript.
+   */
+  private String transcript(String type, int size, String input) {
+    StringBuilder out = new StringBuilder();
+    new MarbleSolitaireControllerImpl(new StringReader(input), out, FlushPolicy.PER_MOVE)
+            .playGame(SolitaireFactory.createModel(type, size));
+    return out.toString();
+  }
+
+  /**
+   * Waits for the server to see a number of open sessions.
+   * @param server - the server.
+   * @param sessions - int - the number to wait for.
+   * @throws InterruptedException if the test is interrupted.
+   */
+  private void awaitSessions(GameServer server, int sessions) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10000;
+    while (server.getOpenSessions() != sessions && System.currentTimeMillis() < deadline) {
+      Thread.sleep(5);
+    }
+    assertEquals(sessions, server.getOpenSessions());
+  }
+
+  /**
+   * Tests one game played over a connection, against the same game played from a string.
+   * @throws IOException if the connection fails.
+   */
+  @Test
+  public void playsOneGame() throws IOException {
+    try (GameServer server = new GameServer(0, null)) {
+      server.start();
+      String moves = "2 4 4 4\nx\n5 4 3 4\nq\n";
+      Socket socket = connect(server, "english -size 3\n" + moves);
+      assertEquals(transcript("english", 3, moves), readAll(socket));
+    }
+  }
+
+  /**
+   * Tests a board that cannot be made.
+   * @throws IOException if the connection fails.
+   */
+  @Test
+  public void invalidBoard() throws IOException {
+    try (GameServer server = new GameServer(0, null)) {
+      server.start();
+      assertEquals("Invalid board: Unknown board type hexagonal.\n",
+              readAll(connect(server, "hexagonal\n")));
+      assertEquals("Invalid board: Missing number after -size.\n",
+              readAll(connect(server, "english -size\n")));
+    }
+  }
+
+  /**
+   * A small load test: many clients connect and sit idle at the same time, then all play
+   * their games to the end, sharing one set of metrics.
+   * @throws Exception if a connection fails or the test is interrupted.
+   */
+  @Test
+  public void manyIdleSessions() throws Exception {
+    int clients = 300;
+    ControllerMetrics metrics = new ControllerMetrics();
+    try (GameServer server = new GameServer(0, metrics)) {
+      server.start();
+      String[] boards = {"english", "european -size 3", "triangular -size 6"};
+      List<Socket> sockets = new ArrayList<>();
+      for (int i = 0; i < clients; i++) {
+        sockets.add(connect(server, boards[i % boards.length] + "\n"));
+      }
+      awaitSessions(server, clients);
+
+      for (Socket socket : sockets) {
+        send(socket, "q\n");
+      }
+      for (int i = 0; i < clients; i++) {
+        String received = readAll(sockets.get(i));
+        assertTrue(received, received.contains("Game quit!"));
+      }
+      awaitSessions(server, 0);
+      assertEquals(clients, metrics.getQuits());
+    }
+  }
+
+  /**
+   * Tests that closing the server ends the sessions still open.
+   * @throws Exception if a connection fails or the test is interrupted.
+   */
+  @Test
+  public void closeEndsSessions() throws Exception {
+    GameServer server = new GameServer(0, null);
+    server.start();
+    Socket socket = connect(server, "triangular\n");
+    awaitSessions(server, 1);
+    server.close();
+    String received = readAll(socket);
+    assertTrue(received, received.isEmpty() || received.startsWith("    _"));
+    awaitSessions(server, 0);
+  }
+}
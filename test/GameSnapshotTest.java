@@ -0,0 +1,323 @@
+import marblesolitaure.model.MarbleSolitaireModel;
+import marblesolitaure.model.MoveGenerator;
+import marblesolitaure.model.PackedMove;
+import marblesolitaure.model.Undoable;
+import marblesolitaure.model.ZobristHashed;
+import marblesolitaure.model.driver.BitboardSolitaireModel;
+import marblesolitaure.model.driver.BoardGeometry;
+import marblesolitaure.model.driver.BoardPosition;
+import marblesolitaure.model.driver.GameSnapshot;
+import marblesolitaure.model.driver.SolitaireFactory;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A junit test suite for saving and loading games as binary snapshots.
+ */
+public class GameSnapshotTest {
+
+  /**
+   * Everything a model says about its game, to compare games by.
+   * @param model - the model.
+   * @return - a string describing the game.
+   */
+  private String describe(MarbleSolitaireModel model) {
+    Undoable undoable = (Undoable) model;
+    return model.getGameState() + "\n" + model.getScore() + " " + model.isGameOver() + " "
+            + ((ZobristHashed) model).positionHash() + " " + undoable.canUndo() + " "
+            + undoable.canRedo();
+  }
+
+  /**
+   * Checks that a loaded game is the same as the saved one, including every move that can be
+   * undone and redone. Both games are left as they were.
+   * @param expected - the saved game.
+   * @param actual - the loaded game.
+   */
+  private void assertSameGame(MarbleSolitaireModel expected, MarbleSolitaireModel actual) {
+    assertEquals(describe(expected), describe(actual));
+    Undoable from = (Undoable) expected;
+    Undoable to = (Undoable) actual;
+    int redone = 0;
+    while (from.canRedo()) {
+      from.redo();
+      to.redo();
+      redone++;
+      assertEquals(describe(expected), describe(actual));
+    }
+    int undone = 0;
+    while (from.canUndo()) {
+      from.undo();
+      to.undo();
+      undone++;
+      assertEquals(describe(expected), describe(actual));
+    }
+    for (int i = 0; i < undone - redone; i++) {
+      from.redo();
+      to.redo();
+    }
+  }
+
+  /**
+   * Plays a random game partway, and takes some moves back.
+   * @param random - the source of the moves.
+   * @param model - a new game.
+   * @return - the same model.
+   */
+  private MarbleSolitaireModel randomGame(Random random, MarbleSolitaireModel model) {
+    int[] moves = new int[256];
+    int steps = random.nextInt(40);
+    for (int count = ((MoveGenerator) model).legalMoves(moves); count > 0 && steps > 0;
+         count = ((MoveGenerator) model).legalMoves(moves), steps--) {
+      PackedMove.apply(model, moves[random.nextInt(count)]);
+    }
+    for (int undo = random.nextInt(4); undo > 0 && ((Undoable) model).canUndo(); undo--) {
+      ((Undoable) model).undo();
+    }
+    return model;
+  }
+
+  private List<MarbleSolitaireModel> randomGames(int count) {
+    Random random = new Random(19);
+    String[] types = {"english", "european", "triangular"};
+    int[] sizes = {3, 5, 7};
+    List<MarbleSolitaireModel> games = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      games.add(randomGame(random, SolitaireFactory.createModel(types[i % 3],
+              sizes[random.nextInt(3)])));
+    }
+    return games;
+  }
+
+  /**
+   * Tests saving and loading games of every type.
+   */
+  @Test
+  public void roundTrip() {
+    for (MarbleSolitaireModel game : randomGames(60)) {
+      byte[] record = GameSnapshot.toBytes(game);
+      assertEquals(GameSnapshot.length(game), record.length);
+      assertSameGame(game, GameSnapshot.fromBytes(record));
+    }
+  }
+
+  /**
+   * Tests the size of a record against the format.
+   */
+  @Test
+  public void length() {
+    MarbleSolitaireModel game = SolitaireFactory.createModel("english");
+    assertEquals(19, GameSnapshot.toBytes(game).length);
+    game.move(1, 3, 3, 3);
+    game.move(2, 1, 2, 3);
+    ((Undoable) game).undo();
+    assertEquals(23, GameSnapshot.toBytes(game).length);
+  }
+
+  /**
+   * Tests saving and loading a game on a board with too many jumps to number in 2 bytes, with
+   * hundreds of moves to undo and redo.
+   */
+  @Test
+  public void largeBoard() {
+    MarbleSolitaireModel game = SolitaireFactory.createModel("triangular", 160);
+    BoardGeometry geometry = ((BoardPosition) game).getGeometry();
+    assertTrue(geometry.getJumpCount() > 1 << 16);
+    Random random = new Random(160);
+    int[] moves = new int[geometry.getJumpCount()];
+    int made = 0;
+    for (int count = ((MoveGenerator) game).legalMoves(moves); count > 0 && made < 600;
+         count = ((MoveGenerator) game).legalMoves(moves), made++) {
+      PackedMove.apply(game, moves[random.nextInt(count)]);
+    }
+    for (int undo = 0; undo < 50; undo++) {
+      ((Undoable) game).undo();
+    }
+
+    byte[] record = GameSnapshot.toBytes(game);
+    assertEquals(14 + (geometry.getCellCount() + 7) / 8 + 4 * made, record.length);
+    assertSameGame(game, GameSnapshot.fromBytes(record));
+
+    // The smaller board just below the limit still numbers its jumps in 2 bytes.
+    MarbleSolitaireModel small = SolitaireFactory.createModel("triangular", 149);
+    small.move(2, 0, 0, 0);
+    BoardGeometry smallGeometry = ((BoardPosition) small).getGeometry();
+    assertEquals(14 + (smallGeometry.getCellCount() + 7) / 8 + 2,
+            GameSnapshot.toBytes(small).length);
+    assertSameGame(small, GameSnapshot.fromBytes(GameSnapshot.toBytes(small)));
+  }
+
+  /**
+   * Tests several records one after another in one buffer, which keeps its byte order.
+   */
+  @Test
+  public void sharedBuffer() {
+    List<MarbleSolitaireModel> games = randomGames(10);
+    ByteBuffer buffer = ByteBuffer.allocate(4096);
+    for (MarbleSolitaireModel game : games) {
+      GameSnapshot.write(game, buffer);
+    }
+    buffer.flip();
+    for (MarbleSolitaireModel game : games) {
+      assertSameGame(game, GameSnapshot.read(buffer));
+    }
+    assertEquals(0, buffer.remaining());
+    assertEquals(ByteOrder.BIG_ENDIAN, buffer.order());
+  }
+
+  /**
+   * Tests saving and loading many games through a memory mapped file.
+   * @throws IOException if the file cannot be used.
+   */
+  @Test
+  public void mappedFile() throws IOException {
+    List<MarbleSolitaireModel> games = randomGames(3000);
+    Path file = Files.createTempFile("snapshots", ".bin");
+    try {
+      GameSnapshot.writeAll(file, games);
+      long total = 0;
+      for (MarbleSolitaireModel game : games) {
+        total += GameSnapshot.length(game);
+      }
+      assertEquals(total, Files.size(file));
+      List<MarbleSolitaireModel> loaded = GameSnapshot.readAll(file);
+      assertEquals(games.size(), loaded.size());
+      for (int i = 0; i < games.size(); i++) {
+        assertSameGame(games.get(i), loaded.get(i));
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Tests a file read and written through windows far smaller than the file, so that records
+   * are cut by the ends of windows, and a record longer than a whole window.
+   * @throws IOException if the file cannot be used.
+   */
+  @Test
+  public void smallWindows() throws IOException {
+    List<MarbleSolitaireModel> games = randomGames(300);
+    MarbleSolitaireModel large = SolitaireFactory.createModel("triangular", 160);
+    int[] moves = new int[((BoardPosition) large).getGeometry().getJumpCount()];
+    Random random = new Random(64);
+    for (int made = 0; made < 300; made++) {
+      int count = ((MoveGenerator) large).legalMoves(moves);
+      PackedMove.apply(large, moves[random.nextInt(count)]);
+    }
+    games.add(150, large);
+    assertTrue(GameSnapshot.length(large) > 1000);
+
+    Path file = Files.createTempFile("snapshots", ".bin");
+    try {
+      GameSnapshot.writeAll(file, games, 1000);
+      for (int window : new int[] {1, 97, 1000, 4096}) {
+        List<MarbleSolitaireModel> loaded = GameSnapshot.readAll(file, window);
+        assertEquals(games.size(), loaded.size());
+        for (int i = 0; i < games.size(); i++) {
+          assertSameGame(games.get(i), loaded.get(i));
+        }
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Tests a record of another version.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void otherVersion() {
+    byte[] record = GameSnapshot.toBytes(SolitaireFactory.createModel("triangular"));
+    record[2] = 1;
+    GameSnapshot.fromBytes(record);
+  }
+
+  /**
+   * Tests bytes that are not a record.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void notASnapshot() {
+    GameSnapshot.fromBytes("english 3 3".getBytes());
+  }
+
+  /**
+   * Tests a record whose board size was corrupted to one too big for the bytes that follow,
+   * which must be turned down before a board of that size is built.
+   */
+  @Test(expected = IllegalArgumentException.class, timeout = 1000)
+  public void corruptSize() {
+    byte[] record = GameSnapshot.toBytes(SolitaireFactory.createModel("triangular"));
+    record[4] = (byte) 0xFF;
+    record[5] = (byte) 0xFF;
+    GameSnapshot.fromBytes(record);
+  }
+
+  /**
+   * Tests a record that ends in the middle of its moves.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void truncatedRecord() {
+    MarbleSolitaireModel game = SolitaireFactory.createModel("english");
+    game.move(1, 3, 3, 3);
+    byte[] record = GameSnapshot.toBytes(game);
+    GameSnapshot.fromBytes(Arrays.copyOf(record, record.length - 1));
+  }
+
+  /**
+   * Tests a file holding a record whose board size was corrupted, which must be found to run
+   * past the end of the file without building the board.
+   * @throws IOException if the file cannot be used.
+   */
+  @Test(expected = IllegalArgumentException.class, timeout = 1000)
+  public void corruptSizeInFile() throws IOException {
+    Path file = Files.createTempFile("snapshots", ".bin");
+    try {
+      byte[] record = GameSnapshot.toBytes(SolitaireFactory.createModel("triangular"));
+      record[4] = (byte) 0xFF;
+      record[5] = (byte) 0xFF;
+      Files.write(file, record);
+      GameSnapshot.readAll(file);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Tests a file that ends in the middle of a record.
+   * @throws IOException if the file cannot be used.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void truncatedFile() throws IOException {
+    Path file = Files.createTempFile("snapshots", ".bin");
+    try {
+      MarbleSolitaireModel game = SolitaireFactory.createModel("english");
+      game.move(1, 3, 3, 3);
+      byte[] record = GameSnapshot.toBytes(game);
+      Files.write(file, Arrays.copyOf(record, record.length - 1));
+      GameSnapshot.readAll(file);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Tests saving a model that was not made by the factory.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void unsupportedModel() {
+    GameSnapshot.toBytes(new BitboardSolitaireModel("english"));
+  }
+}
@@ -0,0 +1,132 @@
+import marblesolitaure.model.GameStateRenderer;
+import marblesolitaure.model.MarbleSolitaireModel;
+import marblesolitaure.model.MoveGenerator;
+import marblesolitaure.model.PackedMove;
+import marblesolitaure.model.Undoable;
+import marblesolitaure.model.driver.BitSetSolitaireModel;
+import marblesolitaure.model.driver.BitboardSolitaireModel;
+import marblesolitaure.model.driver.BoardGeometry;
+import marblesolitaure.model.driver.BoardPosition;
+import marblesolitaure.model.driver.SolitaireFactory;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * A junit test suite for rendering the game state straight into an Appendable.
+ */
+public class GameStateRendererTest {
+
+  /**
+   * Draws a board the way getGameState always has: every space followed by a space, rows of
+   * a triangle padded on the left, then the trailing spaces of each row stripped.
+   * @param model - a model that can describe its board.
+   * @return - the expected game state.
+   */
+  private String reference(MarbleSolitaireModel model) {
+    BoardGeometry geometry = ((BoardPosition) model).getGeometry();
+    int side = geometry.getSideLength();
+    StringBuilder state = new StringBuilder();
+    for (int i = 0; i < side; i++) {
+      StringBuilder row = new StringBuilder();
+      if (geometry.getType().equals("triangular")) {
+        for (int s = side - i - 1; s > 0; s--) {
+          row.append(" ");
+        }
+      }
+      for (int j = 0; j < side; j++) {
+        int cell = geometry.getCell(i, j);
+        row.append(cell < 0 ? " " : ((BoardPosition) model).hasMarble(cell) ? "O" : "_");
+        row.append(" ");
+      }
+      state.append(row.toString().replaceAll(" +$", "")).append("\n");
+    }
+    return state.substring(0, state.length() - 1);
+  }
+
+  /**
+   * Renders a model into a StringBuilder and into a CharBuffer, and checks both against the
+   * reference and against getGameState.
+   * @param model - the model to render.
+   * @throws IOException never, for these appendables.
+   */
+  private void checkRendering(MarbleSolitaireModel model) throws IOException {
+    String expected = reference(model);
+    assertEquals(expected, model.getGameState());
+    StringBuilder builder = new StringBuilder("before\n");
+    ((GameStateRenderer) model).renderGameState(builder);
+    assertEquals("before\n" + expected, builder.toString());
+    CharBuffer buffer = CharBuffer.allocate(expected.length());
+    ((GameStateRenderer) model).renderGameState(buffer);
+    buffer.flip();
+    assertEquals(expected, buffer.toString());
+  }
+
+  /**
+   * Tests rendering every kind of model through random games.
+   * @throws IOException never.
+   */
+  @Test
+  public void matchesReference() throws IOException {
+    Random random = new Random(13);
+    MarbleSolitaireModel[] models = {SolitaireFactory.createModel("english"),
+        SolitaireFactory.createModel("english", 5, 0, 4),
+        SolitaireFactory.createModel("european", 3, 2, 0),
+        SolitaireFactory.createModel("triangular", 1),
+        SolitaireFactory.createModel("triangular", 7, 5, 2),
+        new BitboardSolitaireModel("european"),
+        new BitSetSolitaireModel("triangular", 6),
+        new BitSetSolitaireModel("english", 5)};
+    int[] moves = new int[256];
+    for (MarbleSolitaireModel model : models) {
+      checkRendering(model);
+      for (int count = ((MoveGenerator) model).legalMoves(moves); count > 0;
+           count = ((MoveGenerator) model).legalMoves(moves)) {
+        PackedMove.apply(model, moves[random.nextInt(count)]);
+        checkRendering(model);
+      }
+    }
+  }
+
+  /**
+   * Tests the rendering of the default triangle.
+   * @throws IOException never.
+   */
+  @Test
+  public void triangle() throws IOException {
+    StringBuilder out = new StringBuilder();
+    ((GameStateRenderer) SolitaireFactory.createModel("triangular")).renderGameState(out);
+    assertEquals("    _\n   O O\n  O O O\n O O O O\nO O O O O", out.toString());
+  }
+
+  /**
+   * Tests that the rows kept between renders are drawn again after moves are made, taken back
+   * and made again, including vertical and diagonal jumps that change three rows.
+   * @throws IOException never.
+   */
+  @Test
+  public void cachedRowsFollowUndoAndRedo() throws IOException {
+    Random random = new Random(14);
+    MarbleSolitaireModel[] models = {SolitaireFactory.createModel("european", 5),
+        SolitaireFactory.createModel("triangular", 8)};
+    int[] moves = new int[256];
+    for (MarbleSolitaireModel model : models) {
+      Undoable undoable = (Undoable) model;
+      for (int step = 0; step < 200; step++) {
+        int count = ((MoveGenerator) model).legalMoves(moves);
+        if (count > 0 && random.nextInt(3) > 0) {
+          PackedMove.apply(model, moves[random.nextInt(count)]);
+        } else if (undoable.canRedo() && random.nextBoolean()) {
+          undoable.redo();
+        } else if (undoable.canUndo()) {
+          undoable.undo();
+        }
+        checkRendering(model);
+      }
+    }
+  }
+}
@@ -0,0 +1,200 @@
+import marblesolitaure.model.MarbleSolitaireModel;
+import marblesolitaure.model.MoveGenerator;
+import marblesolitaure.model.PackedMove;
+import marblesolitaure.model.driver.SolitaireFactory;
+import marblesolitaure.solver.Hint;
+import marblesolitaure.solver.HintService;
+import marblesolitaure.solver.PegSolitaireSolver;
+import marblesolitaure.solver.RetrogradeDatabase;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A junit test suite for HintService.
+ */
+public class HintServiceTest {
+
+  /**
+   * A deadline some time from now.
+   * @param millis - long - the number of milliseconds until the deadline.
+   * @return - a long, the deadline as a value of System.nanoTime().
+   */
+  private long in(long millis) {
+    return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+  }
+
+  /**
+   * Tests that with time to spare a winning move is found, and that it still wins.
+   */
+  @Test
+  public void findsWinningMove() {
+    MarbleSolitaireModel model = SolitaireFactory.createModel("triangular");
+    String before = model.getGameState();
+    Hint hint = new HintService().hint(model, in(10000));
+    assertEquals(before, model.getGameState());
+    assertTrue(hint.isWinning());
+    assertTrue(hint.isExact());
+    PackedMove.apply(model, hint.getMove());
+    assertTrue(new PegSolitaireSolver(model).solve().isSolved());
+  }
+
+  /**
+   * Tests following hints to the end of a game.
+   */
+  @Test
+  public void hintsWinGame() {
+    MarbleSolitaireModel model = SolitaireFactory.createModel("triangular", 6, 2, 1);
+    HintService service = new HintService();
+    while (!model.isGameOver()) {
+      Hint hint = service.hint(model, in(10000));
+      assertTrue(hint.isWinning());
+      PackedMove.apply(model, hint.getMove());
+    }
+    assertEquals(1, model.getScore());
+  }
+
+  /**
+   * Tests a game that cannot be won: the search finishes and still suggests a move.
+   */
+  @Test
+  public void losingGame() {
+    MarbleSolitaireModel model = SolitaireFactory.createModel("triangular", 4);
+    Hint hint = new HintService().hint(model, in(10000));
+    assertTrue(hint.hasMove());
+    assertTrue(hint.isExact());
+    assertFalse(hint.isWinning());
+    PackedMove.apply(model, hint.getMove());
+  }
+
+  /**
+   * Tests that a short deadline on a large board is met with a legal move.
+   */
+  @Test
+  public void meetsDeadline() {
+    MarbleSolitaireModel model = SolitaireFactory.createModel("european", 3, 2, 3);
+    long start = System.nanoTime();
+    Hint hint = new HintService().hint(model, in(20));
+    long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    assertTrue("took " + elapsed + " ms", elapsed < 500);
+    assertTrue(hint.hasMove());
+    assertFalse(hint.isExact());
+    PackedMove.apply(model, hint.getMove());
+  }
+
+  /**
+   * Tests that a deadline already passed still gets an answer.
+   */
+  @Test
+  public void pastDeadline() {
+    MarbleSolitaireModel model = SolitaireFactory.createModel("english");
+    Hint hint = new HintService().hint(model, System.nanoTime() - 1);
+    assertEquals(0, hint.getDepth());
+    PackedMove.apply(model, hint.getMove());
+    assertEquals(31, model.getScore());
+  }
+
+  /**
+   * Tests cancelling a hint from another thread.
+   * @throws InterruptedException if the test is interrupted.
+   */
+  @Test
+  public void cancelFromAnotherThread() throws InterruptedException {
+    MarbleSolitaireModel model = SolitaireFactory.createModel("european", 3, 2, 3);
+    AtomicBoolean cancel = new AtomicBoolean();
+    Thread canceller = new Thread(() -> {
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException e) {
+        return;
+      }
+      cancel.set(true);
+    });
+    long start = System.nanoTime();
+    canceller.start();
+    Hint hint = new HintService().hint(model, in(60000), cancel);
+    long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    canceller.join();
+    assertTrue("took " + elapsed + " ms", elapsed < 5000);
+    assertFalse(hint.isExact());
+    PackedMove.apply(model, hint.getMove());
+  }
+
+  /**
+   * Tests a game that is over.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void gameOver() {
+    MarbleSolitaireModel model = SolitaireFactory.createModel("triangular", 1);
+    Hint hint = new HintService().hint(model, in(20));
+    assertFalse(hint.hasMove());
+    hint.getMove();
+  }
+
+  /**
+   * Tests that a database answers without searching.
+   * @throws IOException if the database cannot be written.
+   */
+  @Test
+  public void usesDatabase() throws IOException {
+    Path file = Files.createTempFile("retrograde", ".db");
+    try {
+      RetrogradeDatabase.build(SolitaireFactory.getGeometry("triangular", 5), file);
+      HintService service = new HintService(RetrogradeDatabase.open(file));
+      MarbleSolitaireModel model = SolitaireFactory.createModel("triangular");
+      Hint hint = service.hint(model, in(20));
+      assertTrue(hint.isWinning());
+      assertTrue(hint.getNodes() <= 2);
+      PackedMove.apply(model, hint.getMove());
+      assertTrue(new PegSolitaireSolver(model).solve().isSolved());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Tests that a database which shows every move losing answers at once, with an exact hint,
+   * rather than searching until the deadline.
+   * @throws IOException if the database cannot be written.
+   */
+  @Test
+  public void databaseProvesLoss() throws IOException {
+    Path file = Files.createTempFile("retrograde", ".db");
+    try {
+      RetrogradeDatabase.build(SolitaireFactory.getGeometry("triangular", 5), file);
+      RetrogradeDatabase database = RetrogradeDatabase.open(file);
+
+      // Play random games until one reaches a lost position that still has moves.
+      Random random = new Random(22);
+      int[] moves = new int[64];
+      MarbleSolitaireModel model = SolitaireFactory.createModel("triangular");
+      while (database.isWinnable(model) || model.isGameOver()) {
+        if (model.isGameOver()) {
+          model = SolitaireFactory.createModel("triangular");
+        }
+        int count = ((MoveGenerator) model).legalMoves(moves);
+        PackedMove.apply(model, moves[random.nextInt(count)]);
+      }
+
+      long start = System.nanoTime();
+      Hint hint = new HintService(database).hint(model, in(10000));
+      assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+      assertTrue(hint.hasMove());
+      assertTrue(hint.isExact());
+      assertFalse(hint.isWinning());
+      assertEquals(((MoveGenerator) model).legalMoves(moves), hint.getNodes());
+      PackedMove.apply(model, hint.getMove());
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
@@ -1,12 +1,15 @@
+import marblesolitaure.controller.FlushPolicy;
 import marblesolitaure.controller.MarbleSolitaireController;
 import marblesolitaure.controller.MarbleSolitaireControllerImpl;
 import marblesolitaure.model.MarbleSolitaireModel;
 import marblesolitaure.model.MarbleSolitaireModelImpl;
 import org.junit.Test;
 
+import java.io.Flushable;
 import java.io.StringReader;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * A Junit test suite for the MarbleSolitaireControllerImpl class. Each test
@@ -304,4 +307,144 @@ public class MarbleSolitaireControllerImplTest {
     assertEquals(expected,
             opString.substring(opString.length() - expected.length(), opString.length()));
   }
-}
\ No newline at end of file
+
+  /**
+   * An appendable that counts how often it is written to and flushed.
+   */
+  private static class CountingAppendable implements Appendable, Flushable {
+    private final StringBuilder text = new StringBuilder();
+    private int appends;
+    private int flushes;
+
+    @Override
+    public Appendable append(CharSequence csq) {
+      appends++;
+      text.append(csq);
+      return this;
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) {
+      appends++;
+      text.append(csq, start, end);
+      return this;
+    }
+
+    @Override
+    public Appendable append(char c) {
+      appends++;
+      text.append(c);
+      return this;
+    }
+
+    @Override
+    public void flush() {
+      flushes++;
+    }
+  }
+
+  /**
+   * Tests that the buffered mode writes each board once, with the prompts in between.
+   */
+  @Test
+  public void bufferedOutputWritesEachFrameOnce() {
+    String board = "    O O O\n"
+            + "    O O O\n"
+            + "O O O O O O O\n"
+            + "O O O _ O O O\n"
+            + "O O O O O O O\n"
+            + "    O O O\n"
+            + "    O O O\n"
+            + "Score: 32\n";
+    String moved = "    O O O\n"
+            + "    O _ O\n"
+            + "O O O _ O O O\n"
+            + "O O O O O O O\n"
+            + "O O O O O O O\n"
+            + "    O O O\n"
+            + "    O O O\n"
+            + "Score: 31\n";
+    for (FlushPolicy policy : FlushPolicy.values()) {
+      StringBuilder output = new StringBuilder();
+      MarbleSolitaireController controller = new MarbleSolitaireControllerImpl(
+              new StringReader("2 4 4 4 1 1 1 1 x q"), output, policy);
+      controller.playGame(new MarbleSolitaireModelImpl());
+      assertEquals(board + moved + "Invalid move. Play again.\n" + moved
+              + "Please enter a valid source row.\n"
+              + "Game quit!\nState of game when quit:\n" + moved, output.toString());
+    }
+  }
+
+  /**
+   * Tests how often each flush policy writes to and flushes the appendable.
+   */
+  @Test
+  public void flushPolicies() {
+    String input = "2 4 4 4 3 2 3 4 q";
+    CountingAppendable perMove = new CountingAppendable();
+    new MarbleSolitaireControllerImpl(new StringReader(input), perMove, FlushPolicy.PER_MOVE)
+            .playGame(new MarbleSolitaireModelImpl());
+    // Three boards and the quit message, and the final flush at exit.
+    assertEquals(4, perMove.appends);
+    assertEquals(5, perMove.flushes);
+
+    CountingAppendable perBatch = new CountingAppendable();
+    new MarbleSolitaireControllerImpl(new StringReader(input), perBatch, FlushPolicy.PER_BATCH)
+            .playGame(new MarbleSolitaireModelImpl());
+    assertEquals(1, perBatch.appends);
+    assertEquals(1, perBatch.flushes);
+    assertEquals(perMove.text.toString(), perBatch.text.toString());
+
+    CountingAppendable onExit = new CountingAppendable();
+    new MarbleSolitaireControllerImpl(new StringReader(input), onExit, FlushPolicy.ON_EXIT)
+            .playGame(new MarbleSolitaireModelImpl());
+    assertEquals(1, onExit.appends);
+    assertEquals(1, onExit.flushes);
+    assertEquals(perMove.text.toString(), onExit.text.toString());
+  }
+
+  /**
+   * Tests that a long scripted game in batches writes output in proportion to its length,
+   * rather than writing the whole transcript again every turn.
+   */
+  @Test
+  public void batchedOutputIsLinear() {
+    StringBuilder input = new StringBuilder();
+    for (int k = 0; k < 2000; k++) {
+      input.append("1 1 1 1 ");
+    }
+    input.append("q");
+    CountingAppendable output = new CountingAppendable();
+    new MarbleSolitaireControllerImpl(new StringReader(input.toString()), output,
+            FlushPolicy.PER_BATCH).playGame(new MarbleSolitaireModelImpl());
+    String frame = new MarbleSolitaireModelImpl().getGameState() + "\nScore: 32\n"
+            + "Invalid move. Play again.\n";
+    assertTrue(output.text.length() < 2001 * frame.length() + 200);
+    assertTrue(output.appends > 1);
+    assertTrue(output.text.toString().endsWith("Score: 32\n"));
+  }
+
+  /**
+   * Tests that what was buffered is still written when the input runs out.
+   */
+  @Test
+  public void bufferedOutputWrittenWhenInputRunsOut() {
+    StringBuilder output = new StringBuilder();
+    try {
+      new MarbleSolitaireControllerImpl(new StringReader("2 4 4 4"), output, FlushPolicy.ON_EXIT)
+              .playGame(new MarbleSolitaireModelImpl());
+    } catch (IllegalStateException e) {
+      assertTrue(output.toString().endsWith("Score: 31\n"));
+      return;
+    }
+    assertTrue(false);
+  }
+
+  /**
+   * Test a null flush policy.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void nullFlushPolicy() {
+    new MarbleSolitaireControllerImpl(new StringReader("q"), new StringBuilder(), null);
+  }
+}
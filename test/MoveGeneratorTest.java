@@ -0,0 +1,155 @@
+import marblesolitaure.model.MarbleSolitaireModel;
+import marblesolitaure.model.MoveGenerator;
+import marblesolitaure.model.PackedMove;
+import marblesolitaure.model.driver.BitSetSolitaireModel;
+import marblesolitaure.model.driver.BitboardSolitaireModel;
+import marblesolitaure.model.driver.SolitaireFactory;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * A junit test suite for the MoveGenerator implementations of the models and for PackedMove.
+ */
+public class MoveGeneratorTest {
+
+  /**
+   * Tests packing and unpacking moves in every direction.
+   */
+  @Test
+  public void packedMoves() {
+    int move = PackedMove.pack(3, 5, 1, 5);
+    assertEquals(3, PackedMove.fromRow(move));
+    assertEquals(5, PackedMove.fromCol(move));
+    assertEquals(1, PackedMove.toRow(move));
+    assertEquals(5, PackedMove.toCol(move));
+    move = PackedMove.pack(8000, 7000, 8002, 7002);
+    assertEquals(8000, PackedMove.fromRow(move));
+    assertEquals(7000, PackedMove.fromCol(move));
+    assertEquals(8002, PackedMove.toRow(move));
+    assertEquals(7002, PackedMove.toCol(move));
+    assertEquals("4 6 2 6", PackedMove.toString(PackedMove.pack(3, 5, 1, 5)));
+  }
+
+  /**
+   * Tests the four moves of the opening position of an english board.
+   */
+  @Test
+  public void englishOpening() {
+    int[] expected = {PackedMove.pack(1, 3, 3, 3), PackedMove.pack(3, 1, 3, 3),
+        PackedMove.pack(3, 5, 3, 3), PackedMove.pack(5, 3, 3, 3)};
+    Arrays.sort(expected);
+    assertArrayEquals(expected, sortedMoves((MoveGenerator) SolitaireFactory.createModel(
+            "english")));
+    assertArrayEquals(expected, sortedMoves(new BitboardSolitaireModel("english")));
+    assertArrayEquals(expected, sortedMoves(new BitSetSolitaireModel("english")));
+  }
+
+  /**
+   * Tests the two diagonal moves of the opening position of a triangle.
+   */
+  @Test
+  public void triangleOpening() {
+    int[] expected = {PackedMove.pack(2, 0, 0, 0), PackedMove.pack(2, 2, 0, 0)};
+    Arrays.sort(expected);
+    assertArrayEquals(expected, sortedMoves((MoveGenerator) SolitaireFactory.createModel(
+            "triangular")));
+    assertArrayEquals(expected, sortedMoves(new BitSetSolitaireModel("triangular")));
+  }
+
+  /**
+   * Tests a buffer that is too short: it is filled and the full count is still returned.
+   */
+  @Test
+  public void shortBuffer() {
+    MoveGenerator model = (MoveGenerator) SolitaireFactory.createModel("european");
+    int[] moves = new int[2];
+    assertEquals(4, model.legalMoves(moves));
+    assertEquals(4, model.legalMoves(new int[0]));
+    assertEquals(4, new BitboardSolitaireModel("european").legalMoves(moves));
+    assertEquals(4, new BitSetSolitaireModel("european").legalMoves(moves));
+  }
+
+  /**
+   * Tests the moves into a hole near the far corner of the largest triangle whose moves can
+   * be packed, and that each of them can be made.
+   */
+  @Test
+  public void largestPackedBoard() {
+    int last = PackedMove.MAX_SPACES - 2;
+    int[] expected = {PackedMove.pack(last, last - 4, last, last - 2),
+        PackedMove.pack(last, last, last, last - 2),
+        PackedMove.pack(last - 2, last - 2, last, last - 2),
+        PackedMove.pack(last - 2, last - 4, last, last - 2)};
+    Arrays.sort(expected);
+    BitSetSolitaireModel model = new BitSetSolitaireModel("triangular", last + 1, last,
+            last - 2);
+    int[] moves = sortedMoves(model);
+    assertArrayEquals(expected, moves);
+    for (int move : moves) {
+      PackedMove.apply(model, move);
+      model.undo();
+    }
+  }
+
+  /**
+   * Tests that a board too large for its moves to be packed refuses to list them.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void tooLargeToPack() {
+    int side = PackedMove.MAX_SPACES;
+    new BitSetSolitaireModel("triangular", side, side - 1, side - 3).legalMoves(new int[8]);
+  }
+
+  /**
+   * Plays random games, always picking one of the generated moves, and checks that every
+   * model generates the same moves, that each generated move is accepted, and that the game
+   * is over exactly when there are no moves.
+   */
+  @Test
+  public void randomGames() {
+    Random random = new Random(3);
+    int[] moves = new int[256];
+    String[] types = {"english", "european", "triangular"};
+    for (int game = 0; game < 60; game++) {
+      String type = types[game % 3];
+      int size = type.equals("triangular") ? 5 + game % 4 : 3 + 2 * (game % 2);
+      MarbleSolitaireModel[] models = {SolitaireFactory.createModel(type, size),
+          new BitSetSolitaireModel(type, size)};
+      if (size == 3 && !type.equals("triangular")) {
+        models = new MarbleSolitaireModel[] {models[0], models[1],
+            new BitboardSolitaireModel(type)};
+      }
+      while (true) {
+        int[] expected = sortedMoves((MoveGenerator) models[0]);
+        for (MarbleSolitaireModel model : models) {
+          assertArrayEquals(expected, sortedMoves((MoveGenerator) model));
+          assertEquals(expected.length == 0, model.isGameOver());
+        }
+        if (expected.length == 0) {
+          break;
+        }
+        int count = ((MoveGenerator) models[0]).legalMoves(moves);
+        int move = moves[random.nextInt(count)];
+        for (MarbleSolitaireModel model : models) {
+          PackedMove.apply(model, move);
+        }
+      }
+    }
+  }
+
+  /**
+   * Lists the moves of a model, sorted so that different models can be compared.
+   */
+  private static int[] sortedMoves(MoveGenerator model) {
+    int[] moves = new int[256];
+    int count = model.legalMoves(moves);
+    int[] result = Arrays.copyOf(moves, count);
+    Arrays.sort(result);
+    return result;
+  }
+}
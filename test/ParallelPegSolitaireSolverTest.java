@@ -0,0 +1,124 @@
+import marblesolitaure.model.MarbleSolitaireModel;
+import marblesolitaure.model.PackedMove;
+import marblesolitaure.model.driver.SolitaireFactory;
+import marblesolitaure.solver.ConcurrentPositionTable;
+import marblesolitaure.solver.ParallelPegSolitaireSolver;
+import marblesolitaure.solver.Solution;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A junit test suite for the ParallelPegSolitaireSolver and its shared dead position table.
+ */
+public class ParallelPegSolitaireSolverTest {
+
+  /**
+   * Plays the moves of a solution and checks that one marble is left.
+   * @param model - the game the solution was found for.
+   * @param solution - the solution to play.
+   */
+  private void checkSolution(MarbleSolitaireModel model, Solution solution) {
+    assertTrue(solution.isSolved());
+    assertEquals(model.getScore() - 1, solution.getMoves().length);
+    for (int move : solution.getMoves()) {
+      PackedMove.apply(model, move);
+    }
+    assertEquals(1, model.getScore());
+  }
+
+  /**
+   * Tests solving the english board on several threads.
+   */
+  @Test
+  public void solvesEnglish() {
+    MarbleSolitaireModel model = SolitaireFactory.createModel("english");
+    ParallelPegSolitaireSolver solver = new ParallelPegSolitaireSolver(model, 4);
+    assertEquals(4, solver.getParallelism());
+    checkSolution(model, solver.solve());
+  }
+
+  /**
+   * Tests solving triangles, with and without a target space.
+   */
+  @Test
+  public void solvesTriangles() {
+    MarbleSolitaireModel model = SolitaireFactory.createModel("triangular", 6, 1, 0);
+    checkSolution(model, new ParallelPegSolitaireSolver(model, 3).solve());
+    model = SolitaireFactory.createModel("triangular", 5, 0, 0);
+    Solution solution = new ParallelPegSolitaireSolver(model, 2).solve(4, 2);
+    checkSolution(model, solution);
+    assertEquals("O", model.getGameState().split("\n")[4].trim().split(" ")[2]);
+  }
+
+  /**
+   * Tests that the parallel solver proves the same games unsolvable as the single threaded
+   * one, including when its table is far too small to remember every dead position.
+   */
+  @Test
+  public void provesNoSolution() {
+    MarbleSolitaireModel model = SolitaireFactory.createModel("triangular", 4, 0, 0);
+    assertFalse(new ParallelPegSolitaireSolver(model, 4).solve().isSolved());
+    model = SolitaireFactory.createModel("triangular", 5, 0, 0);
+    assertFalse(new ParallelPegSolitaireSolver(model, 4, 16).solve(4, 0).isSolved());
+    assertTrue(new ParallelPegSolitaireSolver(model, 4, 16).solve(0, 0).isSolved());
+  }
+
+  /**
+   * Tests that the number of threads must be positive.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidParallelism() {
+    new ParallelPegSolitaireSolver(SolitaireFactory.createModel("english"), 0);
+  }
+
+  /**
+   * Tests that the target must be a valid space.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidTarget() {
+    new ParallelPegSolitaireSolver(SolitaireFactory.createModel("english"), 2).solve(0, 6);
+  }
+
+  /**
+   * Tests many threads adding overlapping positions to one table at once.
+   * @throws InterruptedException if the test is interrupted.
+   */
+  @Test
+  public void concurrentTable() throws InterruptedException {
+    ConcurrentPositionTable table = new ConcurrentPositionTable(1 << 12);
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      int offset = t * 500;
+      threads[t] = new Thread(() -> {
+        for (long position = 1; position <= 1000; position++) {
+          table.add(position + offset);
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(2500, table.size());
+    for (long position = 1; position <= 2500; position++) {
+      assertTrue(table.contains(position));
+    }
+    assertFalse(table.contains(2501));
+  }
+
+  /**
+   * Tests that a full table forgets positions rather than failing.
+   */
+  @Test
+  public void fullTable() {
+    ConcurrentPositionTable table = new ConcurrentPositionTable(16);
+    assertEquals(16, table.capacity());
+    for (long position = 1; position <= 100; position++) {
+      table.add(position);
+    }
+    assertEquals(16, table.size());
+  }
+}
@@ -0,0 +1,213 @@
+import marblesolitaure.model.MarbleSolitaireModel;
+import marblesolitaure.model.PackedMove;
+import marblesolitaure.model.driver.BitSetSolitaireModel;
+import marblesolitaure.model.driver.BitboardSolitaireModel;
+import marblesolitaure.model.driver.SolitaireFactory;
+import marblesolitaure.solver.BoundedPositionTable;
+import marblesolitaure.solver.PegSolitaireSolver;
+import marblesolitaure.solver.PositionTable;
+import marblesolitaure.solver.Solution;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A junit test suite for the PegSolitaireSolver and the classes it searches with.
+ */
+public class PegSolitaireSolverTest {
+
+  /**
+   * Plays the moves of a solution and checks that one marble is left.
+   * @param model - the game the solution was found for.
+   * @param solution - the solution to play.
+   */
+  private void checkSolution(MarbleSolitaireModel model, Solution solution) {
+    assertTrue(solution.isSolved());
+    assertEquals(model.getScore() - 1, solution.getMoves().length);
+    for (int move : solution.getMoves()) {
+      PackedMove.apply(model, move);
+    }
+    assertEquals(1, model.getScore());
+    assertTrue(model.isGameOver());
+  }
+
+  /**
+   * Tests solving the english board from its center.
+   */
+  @Test
+  public void solvesEnglish() {
+    MarbleSolitaireModel model = SolitaireFactory.createModel("english");
+    Solution solution = new PegSolitaireSolver(model).solve(3, 3);
+    checkSolution(model, solution);
+    assertEquals("O", model.getGameState().split("\n")[3].split(" ")[3]);
+  }
+
+  /**
+   * Tests that the solver reads the bit board models as well as the array models.
+   */
+  @Test
+  public void solvesBitModels() {
+    MarbleSolitaireModel model = new BitboardSolitaireModel("english");
+    checkSolution(model, new PegSolitaireSolver(model).solve());
+    model = new BitSetSolitaireModel("triangular", 5, 0, 0);
+    checkSolution(model, new PegSolitaireSolver(model).solve());
+  }
+
+  /**
+   * Tests solving triangles.
+   */
+  @Test
+  public void solvesTriangles() {
+    MarbleSolitaireModel model = SolitaireFactory.createModel("triangular");
+    checkSolution(model, new PegSolitaireSolver(model).solve());
+    model = SolitaireFactory.createModel("triangular", 6, 1, 0);
+    checkSolution(model, new PegSolitaireSolver(model).solve());
+  }
+
+  /**
+   * Tests solving a game that has already been started.
+   */
+  @Test
+  public void solvesFromAnyPosition() {
+    MarbleSolitaireModel model = SolitaireFactory.createModel("english");
+    model.move(1, 3, 3, 3);
+    model.move(4, 3, 2, 3);
+    checkSolution(model, new PegSolitaireSolver(model).solve());
+  }
+
+  /**
+   * Tests solving the european board from each start the position classes allow, one space of
+   * each shape up to symmetry, each in well under a second.
+   */
+  @Test(timeout = 10000)
+  public void solvesEuropean() {
+    int[][] starts = {{0, 2}, {1, 3}, {2, 3}, {3, 4}, {4, 0}};
+    for (int[] start : starts) {
+      MarbleSolitaireModel model = SolitaireFactory.createModel("european", 3, start[0],
+              start[1]);
+      checkSolution(model, new PegSolitaireSolver(model).solve());
+    }
+  }
+
+  /**
+   * Tests that a solver whose dead position table is far too small for the board still finds
+   * the same answers, forgetting dead positions instead of running out of room.
+   */
+  @Test
+  public void smallTable() {
+    MarbleSolitaireModel model = SolitaireFactory.createModel("triangular", 5, 0, 0);
+    checkSolution(model, new PegSolitaireSolver(model, 16).solve());
+    model = SolitaireFactory.createModel("triangular", 5, 0, 0);
+    assertFalse(new PegSolitaireSolver(model, 16).solve(4, 0).isSolved());
+    model = SolitaireFactory.createModel("european", 3, 2, 3);
+    checkSolution(model, new PegSolitaireSolver(model, 1 << 10).solve());
+  }
+
+  /**
+   * Tests proving that a game has no solution. The corner of a triangle of side four cannot
+   * be cleared down to one marble.
+   */
+  @Test
+  public void provesNoSolution() {
+    MarbleSolitaireModel model = SolitaireFactory.createModel("triangular", 4, 0, 0);
+    Solution solution = new PegSolitaireSolver(model).solve();
+    assertFalse(solution.isSolved());
+    assertEquals(0, solution.getMoves().length);
+    assertTrue(solution.getNodes() > 0);
+    assertEquals(9, model.getScore());
+  }
+
+  /**
+   * Tests that the last marble ends on the chosen space. A triangle of side five started from
+   * its top corner can end on the top corner, the two ends of the fourth row or the middle of
+   * the bottom row, and nowhere else.
+   */
+  @Test
+  public void targetIsRespected() {
+    MarbleSolitaireModel model = SolitaireFactory.createModel("triangular", 5, 0, 0);
+    Solution solution = new PegSolitaireSolver(model).solve(3, 3);
+    checkSolution(model, solution);
+    assertEquals("O", model.getGameState().split("\n")[3].trim().split(" ")[3]);
+    model = SolitaireFactory.createModel("triangular", 5, 0, 0);
+    assertTrue(new PegSolitaireSolver(model).solve(4, 2).isSolved());
+    assertFalse(new PegSolitaireSolver(model).solve(4, 0).isSolved());
+    assertFalse(new PegSolitaireSolver(model).solve(2, 1).isSolved());
+  }
+
+  /**
+   * Tests that the target must be a valid space.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidTarget() {
+    new PegSolitaireSolver(SolitaireFactory.createModel("english")).solve(0, 0);
+  }
+
+  /**
+   * Tests that boards with more than 64 spaces are refused.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void boardTooLarge() {
+    new PegSolitaireSolver(SolitaireFactory.createModel("english", 5));
+  }
+
+  /**
+   * Tests adding and finding positions in a position table as it grows.
+   */
+  @Test
+  public void positionTable() {
+    PositionTable table = new PositionTable(4);
+    for (long position = 1; position <= 1000; position++) {
+      table.add(position * 31);
+    }
+    table.add(31);
+    assertEquals(1000, table.size());
+    assertTrue(table.contains(31 * 500));
+    assertFalse(table.contains(32));
+  }
+
+  /**
+   * Tests that the empty position cannot be stored.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void positionTableRejectsEmpty() {
+    new PositionTable(4).add(0);
+  }
+
+  /**
+   * Tests that a bounded position table never grows, always keeps the latest position, and
+   * keeps a position with many marbles over later ones with fewer.
+   */
+  @Test
+  public void boundedPositionTable() {
+    BoundedPositionTable table = new BoundedPositionTable(16);
+    assertEquals(16, table.capacity());
+    long crowded = -1L >>> 1;
+    table.add(crowded);
+    for (long position = 1; position <= 1000; position++) {
+      table.add(position);
+      assertTrue(table.contains(position));
+      assertTrue(table.size() <= table.capacity());
+    }
+    assertEquals(16, table.size());
+    assertTrue(table.contains(crowded));
+    assertFalse(table.contains(1));
+  }
+
+  /**
+   * Tests that the empty position cannot be stored in a bounded position table.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void boundedPositionTableRejectsEmpty() {
+    new BoundedPositionTable(16).add(0);
+  }
+
+  /**
+   * Tests that a solver's table must have room for something.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidTableCapacity() {
+    new PegSolitaireSolver(SolitaireFactory.createModel("english"), 0);
+  }
+}
@@ -0,0 +1,165 @@
+import marblesolitaure.model.MarbleSolitaireModel;
+import marblesolitaure.model.MoveGenerator;
+import marblesolitaure.model.Undoable;
+import marblesolitaure.model.driver.SolitaireFactory;
+import marblesolitaure.model.driver.TriangleSolitaireModelImpl;
+import marblesolitaure.solver.PlayoutEngine;
+import marblesolitaure.solver.PlayoutStats;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A junit test suite for PlayoutEngine.
+ */
+public class PlayoutEngineTest {
+
+  /**
+   * A game that hides its board, so the engine has to play on the model itself.
+   */
+  private static final class HiddenBoard implements MarbleSolitaireModel, MoveGenerator,
+          Undoable {
+    private final TriangleSolitaireModelImpl model = new TriangleSolitaireModelImpl();
+
+    @Override
+    public void move(int fromRow, int fromCol, int toRow, int toCol) {
+      model.move(fromRow, fromCol, toRow, toCol);
+    }
+
+    @Override
+    public boolean isGameOver() {
+      return model.isGameOver();
+    }
+
+    @Override
+    public String getGameState() {
+      return model.getGameState();
+    }
+
+    @Override
+    public int getScore() {
+      return model.getScore();
+    }
+
+    @Override
+    public int legalMoves(int[] moves) {
+      return model.legalMoves(moves);
+    }
+
+    @Override
+    public void undo() {
+      model.undo();
+    }
+
+    @Override
+    public void redo() {
+      model.redo();
+    }
+
+    @Override
+    public boolean canUndo() {
+      return model.canUndo();
+    }
+
+    @Override
+    public boolean canRedo() {
+      return model.canRedo();
+    }
+  }
+
+  /**
+   * Tests that every game is counted once, and that the results depend only on the seed.
+   */
+  @Test
+  public void countsEveryGame() {
+    PlayoutStats first = PlayoutEngine.run(() -> SolitaireFactory.createModel("english"),
+            1001, 3, 7);
+    PlayoutStats second = PlayoutEngine.run(() -> SolitaireFactory.createModel("english"),
+            1001, 3, 7);
+    assertEquals(1001, first.getPlayouts());
+    assertEquals(32, first.getMaxScore());
+    long total = 0;
+    for (int score = 0; score <= first.getMaxScore(); score++) {
+      assertEquals(first.getCount(score), second.getCount(score));
+      total += first.getCount(score);
+    }
+    assertEquals(1001, total);
+    assertEquals(0, first.getCount(32));
+  }
+
+  /**
+   * Tests a board with no moves, where every game ends at once.
+   */
+  @Test
+  public void noMoves() {
+    PlayoutStats stats = PlayoutEngine.run(() -> SolitaireFactory.createModel("triangular", 2),
+            50, 2, 1);
+    assertEquals(50, stats.getCount(2));
+    assertEquals(0.0, stats.getOnePegRate(), 0);
+    assertEquals(2.0, stats.getMeanScore(), 0);
+  }
+
+  /**
+   * Tests that playing on the model itself gives the same odds as playing on bit masks.
+   */
+  @Test
+  public void modelMatchesBits() {
+    int playouts = 20000;
+    PlayoutStats bits = PlayoutEngine.run(() -> SolitaireFactory.createModel("triangular"),
+            playouts, 2, 5);
+    PlayoutStats model = PlayoutEngine.run(HiddenBoard::new, playouts, 2, 5);
+    assertEquals(playouts, model.getPlayouts());
+    assertEquals(bits.getMeanScore(), model.getMeanScore(), 0.05);
+    assertEquals(bits.getOnePegRate(), model.getOnePegRate(), 0.02);
+    assertTrue(bits.getOnePegRate() > 0);
+  }
+
+  /**
+   * Tests that a game made once per thread is left where it started.
+   */
+  @Test
+  public void modelIsTakenBack() {
+    HiddenBoard board = new HiddenBoard();
+    PlayoutEngine.run(() -> board, 100, 1, 3);
+    assertEquals(14, board.getScore());
+    assertEquals(false, board.canUndo());
+  }
+
+  /**
+   * Tests an invalid number of threads.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void noThreads() {
+    PlayoutEngine.run(() -> SolitaireFactory.createModel("english"), 10, 0, 1);
+  }
+
+  /**
+   * Tests a game that can be played neither on bit masks nor on the model.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void unplayableModel() {
+    MarbleSolitaireModel model = new HiddenBoard();
+    PlayoutEngine.run(() -> new MarbleSolitaireModel() {
+      @Override
+      public void move(int fromRow, int fromCol, int toRow, int toCol) {
+        model.move(fromRow, fromCol, toRow, toCol);
+      }
+
+      @Override
+      public boolean isGameOver() {
+        return model.isGameOver();
+      }
+
+      @Override
+      public String getGameState() {
+        return model.getGameState();
+      }
+
+      @Override
+      public int getScore() {
+        return model.getScore();
+      }
+    }, 10, 1, 1);
+  }
+}
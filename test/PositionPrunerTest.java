@@ -0,0 +1,148 @@
+import marblesolitaure.model.MarbleSolitaireModel;
+import marblesolitaure.model.driver.BoardGeometry;
+import marblesolitaure.model.driver.SolitaireFactory;
+import marblesolitaure.solver.PositionPruner;
+import marblesolitaure.solver.SearchBoard;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A junit test suite for PositionPruner.
+ */
+public class PositionPrunerTest {
+
+  /**
+   * Works out whether every position of a board can end with one marble on a target space,
+   * by trying every jump.
+   * @param board - the board.
+   * @param target - int - the number of the target space.
+   * @return - one entry per position: true if it can end on the target.
+   */
+  private boolean[] slowReachable(SearchBoard board, int target) {
+    int cells = board.getGeometry().getCellCount();
+    boolean[] reachable = new boolean[1 << cells];
+    reachable[1 << target] = true;
+    // A jump takes one marble off, so positions with fewer marbles are settled first.
+    for (int marbles = 2; marbles <= cells; marbles++) {
+      for (int position = 1; position < reachable.length; position++) {
+        if (Integer.bitCount(position) != marbles) {
+          continue;
+        }
+        for (int jump = 0; jump < board.getJumpCount() && !reachable[position]; jump++) {
+          if (board.canJump(position, jump)) {
+            reachable[position] = reachable[(int) board.jump(position, jump)];
+          }
+        }
+      }
+    }
+    return reachable;
+  }
+
+  /**
+   * Tests that no position that can end on a target is ever pruned, for every position and
+   * target of a small triangle, and that the pruner does rule out many that cannot.
+   */
+  @Test
+  public void neverPrunesWinnablePositions() {
+    BoardGeometry geometry = SolitaireFactory.getGeometry("triangular", 5);
+    SearchBoard board = new SearchBoard(geometry);
+    PositionPruner pruner = new PositionPruner(geometry);
+    long pruned = 0;
+    long lost = 0;
+    boolean[] any = new boolean[1 << geometry.getCellCount()];
+    for (int target = 0; target < geometry.getCellCount(); target++) {
+      boolean[] reachable = slowReachable(board, target);
+      for (int position = 1; position < reachable.length; position++) {
+        boolean finish = pruner.canFinish(position, 1L << target);
+        if (reachable[position]) {
+          assertTrue("position " + position + " target " + target, finish);
+          any[position] = true;
+        } else {
+          lost++;
+          pruned += finish ? 0 : 1;
+        }
+      }
+    }
+    for (int position = 1; position < any.length; position++) {
+      if (any[position]) {
+        assertTrue(pruner.canFinish(position, 0L));
+      }
+    }
+    assertTrue(pruned + " of " + lost, pruned > lost / 2);
+  }
+
+  /**
+   * Tests that jumps never change the class of a position or add to its pagoda weight.
+   */
+  @Test
+  public void invariantsHoldOverJumps() {
+    Random random = new Random(25);
+    String[] types = {"english", "european", "triangular"};
+    int[] sizes = {3, 3, 7};
+    for (int t = 0; t < types.length; t++) {
+      BoardGeometry geometry = SolitaireFactory.getGeometry(types[t], sizes[t]);
+      SearchBoard board = new SearchBoard(geometry);
+      PositionPruner pruner = new PositionPruner(geometry);
+      for (int k = 0; k < 500; k++) {
+        long position = random.nextLong() & board.getFullPosition();
+        for (int jump = 0; jump < board.getJumpCount(); jump++) {
+          if (!board.canJump(position, jump)) {
+            continue;
+          }
+          long next = board.jump(position, jump);
+          assertEquals(pruner.positionClass(position), pruner.positionClass(next));
+          for (int target = 0; target < geometry.getCellCount(); target++) {
+            assertTrue(pruner.pagoda(target, next) <= pruner.pagoda(target, position) + 1e-9);
+          }
+        }
+      }
+      for (int target = 0; target < geometry.getCellCount(); target++) {
+        assertEquals(1.0, pruner.pagoda(target, 1L << target), 0);
+      }
+    }
+  }
+
+  /**
+   * Tests known starting positions: the english board emptied in the middle can only end in
+   * the middle or at the middle of an edge, and the european board emptied in the middle and
+   * the size 7 triangle emptied at a corner cannot end with one marble at all.
+   */
+  @Test
+  public void knownStarts() {
+    MarbleSolitaireModel english = SolitaireFactory.createModel("english");
+    PositionPruner pruner = new PositionPruner(SolitaireFactory.getGeometry("english", 3));
+    assertTrue(pruner.canFinish(english));
+    assertTrue(pruner.canFinish(english, 3, 3));
+    assertTrue(pruner.canFinish(english, 0, 3));
+    assertFalse(pruner.canFinish(english, 2, 3));
+    assertFalse(pruner.canFinish(english, 3, 4));
+
+    assertFalse(new PositionPruner(SolitaireFactory.getGeometry("european", 3))
+            .canFinish(SolitaireFactory.createModel("european")));
+    assertFalse(new PositionPruner(SolitaireFactory.getGeometry("triangular", 7))
+            .canFinish(SolitaireFactory.createModel("triangular", 7)));
+  }
+
+  /**
+   * Tests a target that is not a space of the board.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidTarget() {
+    new PositionPruner(SolitaireFactory.getGeometry("english", 3))
+            .canFinish(SolitaireFactory.createModel("english"), 0, 0);
+  }
+
+  /**
+   * Tests a game played on another board.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void otherBoard() {
+    new PositionPruner(SolitaireFactory.getGeometry("english", 3))
+            .canFinish(SolitaireFactory.createModel("triangular"));
+  }
+}
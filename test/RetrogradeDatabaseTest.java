@@ -0,0 +1,180 @@
+import marblesolitaure.model.MarbleSolitaireModel;
+import marblesolitaure.model.MoveGenerator;
+import marblesolitaure.model.PackedMove;
+import marblesolitaure.model.driver.BoardGeometry;
+import marblesolitaure.model.driver.SolitaireFactory;
+import marblesolitaure.solver.PegSolitaireSolver;
+import marblesolitaure.solver.RetrogradeDatabase;
+import marblesolitaure.solver.SearchBoard;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A junit test suite for RetrogradeDatabase.
+ */
+public class RetrogradeDatabaseTest {
+
+  /**
+   * Works out whether every position of a board can be won by trying every jump.
+   * @param board - the board.
+   * @return - one byte per position: 1 if it can be won, 0 if not.
+   */
+  private byte[] slowWinnable(SearchBoard board) {
+    int cells = board.getGeometry().getCellCount();
+    byte[] winnable = new byte[1 << cells];
+    // A jump takes one marble off, so positions with fewer marbles are settled first.
+    for (int marbles = 1; marbles <= cells; marbles++) {
+      for (int position = 1; position < winnable.length; position++) {
+        if (Integer.bitCount(position) != marbles) {
+          continue;
+        }
+        if (marbles == 1) {
+          winnable[position] = 1;
+        }
+        for (int jump = 0; jump < board.getJumpCount() && winnable[position] == 0; jump++) {
+          if (board.canJump(position, jump)) {
+            winnable[position] = winnable[(int) board.jump(position, jump)];
+          }
+        }
+      }
+    }
+    return winnable;
+  }
+
+  /**
+   * Tests that the database agrees with trying every jump, for every position of small
+   * triangles.
+   * @throws IOException if the database cannot be written.
+   */
+  @Test
+  public void everyPosition() throws IOException {
+    for (int size = 1; size <= 5; size++) {
+      BoardGeometry geometry = SolitaireFactory.getGeometry("triangular", size);
+      SearchBoard board = new SearchBoard(geometry);
+      byte[] expected = slowWinnable(board);
+      Path file = Files.createTempFile("retrograde", ".db");
+      try {
+        long[] counts = RetrogradeDatabase.build(geometry, file);
+        assertEquals(geometry.getCellCount() + 1, counts.length);
+        RetrogradeDatabase database = RetrogradeDatabase.open(file);
+        assertEquals(geometry, database.getGeometry());
+        for (int position = 1; position < expected.length; position++) {
+          assertEquals("size " + size + " position " + position,
+                  expected[position] == 1, database.isWinnable(position));
+        }
+      } finally {
+        Files.delete(file);
+      }
+    }
+  }
+
+  /**
+   * Tests the database of a triangle of size 6 against the solver, on positions reached by
+   * playing random games.
+   * @throws IOException if the database cannot be written.
+   */
+  @Test
+  public void matchesSolver() throws IOException {
+    BoardGeometry geometry = SolitaireFactory.getGeometry("triangular", 6);
+    Path file = Files.createTempFile("retrograde", ".db");
+    try {
+      RetrogradeDatabase.build(geometry, file);
+      RetrogradeDatabase database = RetrogradeDatabase.open(file);
+      Random random = new Random(21);
+      int[] moves = new int[64];
+      for (int game = 0; game < 40; game++) {
+        MarbleSolitaireModel model = SolitaireFactory.createModel("triangular", 6,
+                random.nextInt(6), 0);
+        while (true) {
+          assertEquals(new PegSolitaireSolver(model).solve().isSolved(),
+                  database.isWinnable(model));
+          int count = ((MoveGenerator) model).legalMoves(moves);
+          if (count == 0) {
+            break;
+          }
+          int move = moves[random.nextInt(count)];
+          model.move(PackedMove.fromRow(move), PackedMove.fromCol(move),
+                  PackedMove.toRow(move), PackedMove.toCol(move));
+        }
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Tests positions whose answer is known: one marble anywhere is won, and the start of the
+   * size 5 triangle with the top empty can be won.
+   * @throws IOException if the database cannot be written.
+   */
+  @Test
+  public void knownPositions() throws IOException {
+    BoardGeometry geometry = SolitaireFactory.getGeometry("triangular", 5);
+    Path file = Files.createTempFile("retrograde", ".db");
+    try {
+      RetrogradeDatabase.build(geometry, file);
+      RetrogradeDatabase database = RetrogradeDatabase.open(file);
+      long full = new SearchBoard(geometry).getFullPosition();
+      for (int cell = 0; cell < geometry.getCellCount(); cell++) {
+        assertTrue(database.isWinnable(1L << cell));
+      }
+      assertFalse(database.isWinnable(full));
+      assertFalse(database.isWinnable(0L));
+      assertTrue(database.isWinnable(SolitaireFactory.createModel("triangular")));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Tests asking about a game played on another board.
+   * @throws IOException if the database cannot be written.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void otherBoard() throws IOException {
+    Path file = Files.createTempFile("retrograde", ".db");
+    try {
+      RetrogradeDatabase.build(SolitaireFactory.getGeometry("triangular", 4), file);
+      RetrogradeDatabase.open(file).isWinnable(SolitaireFactory.createModel("triangular"));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Tests opening a file that is not a database.
+   * @throws IOException if the file cannot be used.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void notADatabase() throws IOException {
+    Path file = Files.createTempFile("retrograde", ".db");
+    try {
+      Files.write(file, new byte[64]);
+      RetrogradeDatabase.open(file);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Tests building a database for a board too large for one.
+   * @throws IOException if the file cannot be used.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void tooLarge() throws IOException {
+    Path file = Files.createTempFile("retrograde", ".db");
+    try {
+      RetrogradeDatabase.build(SolitaireFactory.getGeometry("european", 3), file);
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
@@ -0,0 +1,91 @@
+import marblesolitaure.model.driver.SolitaireFactory;
+import marblesolitaure.solver.PegSolitaireSolver;
+import marblesolitaure.solver.SolvabilityReport;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * A junit test suite for SolvabilityReport.
+ */
+public class SolvabilityReportTest {
+
+  /**
+   * Tests that every hole of the small triangles is reported with the solver's answer, and
+   * that only one hole of each symmetric group is solved.
+   * @throws IOException never, the report is written to a StringBuilder.
+   */
+  @Test
+  public void triangles() throws IOException {
+    StringBuilder out = new StringBuilder();
+    SolvabilityReport.report(Collections.singletonList("triangular"), 4, 5, 2, out);
+    String[] lines = out.toString().split("\n");
+    assertEquals("type,size,row,col,solvable,millis,nodes,solved_row,solved_col", lines[0]);
+    assertEquals(1 + 10 + 15, lines.length);
+    Set<String> solved = new HashSet<>();
+    for (int i = 1; i < lines.length; i++) {
+      String[] fields = lines[i].split(",");
+      assertEquals("triangular", fields[0]);
+      int size = Integer.parseInt(fields[1]);
+      int row = Integer.parseInt(fields[2]);
+      int col = Integer.parseInt(fields[3]);
+      boolean expected = new PegSolitaireSolver(SolitaireFactory.createModel("triangular",
+              size, row, col)).solve().isSolved();
+      assertEquals(lines[i], String.valueOf(expected), fields[4]);
+      solved.add(size + "," + fields[7] + "," + fields[8]);
+    }
+    // A triangle of size 4 has 3 kinds of hole, and one of size 5 has 4.
+    assertEquals(7, solved.size());
+  }
+
+  /**
+   * Tests that symmetric holes copy the line of the hole that was solved.
+   * @throws IOException never, the report is written to a StringBuilder.
+   */
+  @Test
+  public void symmetricHolesMatch() throws IOException {
+    StringBuilder out = new StringBuilder();
+    SolvabilityReport.report(Collections.singletonList("english"), 3, 3, 1, out);
+    String[] lines = out.toString().split("\n");
+    assertEquals(1 + 33, lines.length);
+    String corner = null;
+    for (String line : lines) {
+      // (0,2) and (6,4) are a half turn apart.
+      if (line.startsWith("english,3,0,2,") || line.startsWith("english,3,6,4,")) {
+        String[] fields = line.split(",", 5);
+        corner = corner == null ? fields[4] : corner;
+        assertEquals(corner, fields[4]);
+      }
+    }
+    assertEquals(true, corner != null && !corner.startsWith("unsupported"));
+  }
+
+  /**
+   * Tests that boards too large to solve are reported without an answer.
+   * @throws IOException never, the report is written to a StringBuilder.
+   */
+  @Test
+  public void largeBoard() throws IOException {
+    StringBuilder out = new StringBuilder();
+    SolvabilityReport.report(Arrays.asList("english"), 5, 5, 2, out);
+    String[] lines = out.toString().split("\n");
+    assertEquals(1 + 105, lines.length);
+    assertEquals(true, lines[1].matches("english,5,0,4,unsupported,,,0,4"));
+  }
+
+  /**
+   * Tests an unknown board type.
+   * @throws IOException never, the report is written to a StringBuilder.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void unknownType() throws IOException {
+    SolvabilityReport.report(Collections.singletonList("hexagonal"), 3, 3, 1,
+            new StringBuilder());
+  }
+}
@@ -0,0 +1,114 @@
+import marblesolitaure.model.MarbleSolitaireModel;
+import marblesolitaure.model.driver.BoardGeometry;
+import marblesolitaure.model.driver.SolitaireFactory;
+import marblesolitaure.solver.SearchBoard;
+import marblesolitaure.solver.SymmetryTable;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A junit test suite for SymmetryTable.
+ */
+public class SymmetryTableTest {
+
+  /**
+   * Moves a position by a symmetry one space at a time.
+   * @param geometry - the shape of the board.
+   * @param symmetry - int - the number of the symmetry in the geometry.
+   * @param position - a long, the position.
+   * @return - a long, the moved position.
+   */
+  private long slowTransform(BoardGeometry geometry, int symmetry, long position) {
+    long image = 0L;
+    for (int cell = 0; cell < geometry.getCellCount(); cell++) {
+      if ((position >>> cell & 1) != 0) {
+        image |= 1L << geometry.getSymmetricCell(symmetry, cell);
+      }
+    }
+    return image;
+  }
+
+  /**
+   * Tests that the lookup tables move positions the same way as moving every space.
+   */
+  @Test
+  public void transformsMatchGeometry() {
+    Random random = new Random(8);
+    String[] types = {"english", "european", "triangular"};
+    int[] sizes = {3, 3, 7};
+    for (int t = 0; t < types.length; t++) {
+      BoardGeometry geometry = SolitaireFactory.getGeometry(types[t], sizes[t]);
+      SymmetryTable table = new SymmetryTable(geometry);
+      long full = new SearchBoard(geometry).getFullPosition();
+      assertEquals(geometry.getSymmetryCount(), table.size());
+      for (int k = 0; k < 200; k++) {
+        long position = random.nextLong() & full;
+        for (int s = 0; s < table.size(); s++) {
+          assertEquals(slowTransform(geometry, s, position), table.transform(s, position));
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that every symmetric copy of a position has the same canonical position, which is
+   * the smallest copy.
+   */
+  @Test
+  public void canonicalIsSmallestCopy() {
+    Random random = new Random(3);
+    BoardGeometry geometry = SolitaireFactory.getGeometry("english", 3);
+    SymmetryTable table = new SymmetryTable(geometry);
+    long full = new SearchBoard(geometry).getFullPosition();
+    for (int k = 0; k < 200; k++) {
+      long position = random.nextLong() & full;
+      long canonical = table.canonical(position);
+      for (int s = 0; s < table.size(); s++) {
+        long copy = table.transform(s, position);
+        assertEquals(canonical, table.canonical(copy));
+        assertTrue(Long.compareUnsigned(canonical, copy) <= 0);
+      }
+    }
+  }
+
+  /**
+   * Tests that the four first moves of the english board are all the same position.
+   */
+  @Test
+  public void englishOpeningsAreEquivalent() {
+    BoardGeometry geometry = SolitaireFactory.getGeometry("english", 3);
+    SymmetryTable table = new SymmetryTable(geometry);
+    SearchBoard board = new SearchBoard(geometry);
+    Set<Long> canonical = new HashSet<>();
+    int[][] moves = {{1, 3}, {5, 3}, {3, 1}, {3, 5}};
+    for (int[] move : moves) {
+      MarbleSolitaireModel model = SolitaireFactory.createModel("english");
+      model.move(move[0], move[1], 3, 3);
+      canonical.add(table.canonical(board.positionOf(model)));
+    }
+    assertEquals(1, canonical.size());
+  }
+
+  /**
+   * Tests keeping only the symmetries that leave a space in place.
+   */
+  @Test
+  public void fixedSpace() {
+    BoardGeometry geometry = SolitaireFactory.getGeometry("english", 3);
+    assertEquals(8, new SymmetryTable(geometry, geometry.getCell(3, 3)).size());
+    assertEquals(2, new SymmetryTable(geometry, geometry.getCell(0, 3)).size());
+    assertEquals(2, new SymmetryTable(geometry, geometry.getCell(2, 2)).size());
+    assertEquals(2, new SymmetryTable(geometry, geometry.getCell(2, 4)).size());
+    assertEquals(1, new SymmetryTable(geometry, geometry.getCell(0, 2)).size());
+    geometry = SolitaireFactory.getGeometry("triangular", 5);
+    assertEquals(2, new SymmetryTable(geometry, geometry.getCell(0, 0)).size());
+    assertEquals(2, new SymmetryTable(geometry, geometry.getCell(2, 0)).size());
+    assertEquals(1, new SymmetryTable(geometry, geometry.getCell(1, 0)).size());
+  }
+}
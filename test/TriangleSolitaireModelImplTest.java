@@ -207,4 +207,28 @@ public class TriangleSolitaireModelImplTest {
     // Jump empty space
     board1.move(0, 0, 2, 0);
   }
-}
\ No newline at end of file
+
+  /**
+   * Tests a large board, whose spaces are stored packed row by row.
+   */
+  @Test
+  public void largeBoard() {
+    TriangleSolitaireModelImpl large = new TriangleSolitaireModelImpl(1000, 999, 997);
+    assertEquals(1000 * 1001 / 2 - 1, large.getScore());
+    large.move(999, 999, 999, 997);
+    large.move(997, 997, 999, 999);
+    assertEquals(1000 * 1001 / 2 - 3, large.getScore());
+    assertFalse(large.isGameOver());
+    String state = large.getGameState();
+    assertTrue(state.startsWith("                                                  "));
+    assertTrue(state.endsWith("O O O _ O"));
+  }
+
+  /**
+   * Tests an empty space above the diagonal of a large board.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void largeBoardAboveDiagonal() {
+    new TriangleSolitaireModelImpl(1000, 10, 11);
+  }
+}
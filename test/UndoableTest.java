@@ -0,0 +1,168 @@
+import marblesolitaure.model.MarbleSolitaireModel;
+import marblesolitaure.model.MoveGenerator;
+import marblesolitaure.model.MoveLog;
+import marblesolitaure.model.PackedMove;
+import marblesolitaure.model.Undoable;
+import marblesolitaure.model.ZobristHashed;
+import marblesolitaure.model.driver.BitSetSolitaireModel;
+import marblesolitaure.model.driver.BitboardSolitaireModel;
+import marblesolitaure.model.driver.SolitaireFactory;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A junit test suite for taking moves back and making them again.
+ */
+public class UndoableTest {
+
+  /**
+   * Everything a model says about its position, to compare positions by.
+   * @param model - the model.
+   * @return - a string describing the position.
+   */
+  private String describe(MarbleSolitaireModel model) {
+    int[] moves = new int[256];
+    int count = ((MoveGenerator) model).legalMoves(moves);
+    int[] sorted = Arrays.copyOf(moves, count);
+    Arrays.sort(sorted);
+    return model.getGameState() + "\n" + model.getScore() + " " + model.isGameOver() + " "
+            + ((ZobristHashed) model).positionHash() + " " + Arrays.toString(sorted);
+  }
+
+  /**
+   * Plays a random game to the end, undoes every move and redoes every move, checking that
+   * each position comes back exactly.
+   * @param random - the source of the moves.
+   * @param model - a new game.
+   */
+  private void playUndoRedo(Random random, MarbleSolitaireModel model) {
+    Undoable undoable = (Undoable) model;
+    List<String> positions = new ArrayList<>();
+    positions.add(describe(model));
+    int[] moves = new int[256];
+    int count = ((MoveGenerator) model).legalMoves(moves);
+    while (count > 0) {
+      PackedMove.apply(model, moves[random.nextInt(count)]);
+      positions.add(describe(model));
+      count = ((MoveGenerator) model).legalMoves(moves);
+    }
+    assertFalse(undoable.canRedo());
+
+    for (int i = positions.size() - 2; i >= 0; i--) {
+      assertTrue(undoable.canUndo());
+      undoable.undo();
+      assertEquals(positions.get(i), describe(model));
+    }
+    assertFalse(undoable.canUndo());
+    for (int i = 1; i < positions.size(); i++) {
+      assertTrue(undoable.canRedo());
+      undoable.redo();
+      assertEquals(positions.get(i), describe(model));
+    }
+    assertFalse(undoable.canRedo());
+  }
+
+  /**
+   * Tests undoing and redoing whole games on every kind of model.
+   */
+  @Test
+  public void undoAndRedoWholeGames() {
+    Random random = new Random(10);
+    for (int game = 0; game < 5; game++) {
+      playUndoRedo(random, SolitaireFactory.createModel("english"));
+      playUndoRedo(random, SolitaireFactory.createModel("european", 5));
+      playUndoRedo(random, SolitaireFactory.createModel("triangular", 6));
+      playUndoRedo(random, new BitboardSolitaireModel("european"));
+      playUndoRedo(random, new BitSetSolitaireModel("triangular", 7, 3, 1));
+      playUndoRedo(random, new BitSetSolitaireModel("english", 5));
+    }
+  }
+
+  /**
+   * Tests that a new move forgets the moves taken back.
+   */
+  @Test
+  public void newMoveClearsRedo() {
+    MarbleSolitaireModel model = SolitaireFactory.createModel("english");
+    Undoable undoable = (Undoable) model;
+    model.move(1, 3, 3, 3);
+    undoable.undo();
+    assertTrue(undoable.canRedo());
+    model.move(3, 1, 3, 3);
+    assertFalse(undoable.canRedo());
+    undoable.undo();
+    assertEquals(SolitaireFactory.createModel("english").getGameState(), model.getGameState());
+    assertEquals(32, model.getScore());
+  }
+
+  /**
+   * Tests that a failed move is not logged.
+   */
+  @Test
+  public void invalidMoveIsNotLogged() {
+    MarbleSolitaireModel model = new BitboardSolitaireModel("english");
+    try {
+      model.move(0, 0, 2, 0);
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    assertFalse(((Undoable) model).canUndo());
+  }
+
+  /**
+   * Tests undoing with no moves made.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void undoNewGame() {
+    ((Undoable) SolitaireFactory.createModel("triangular")).undo();
+  }
+
+  /**
+   * Tests redoing with no moves taken back.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void redoWithoutUndo() {
+    MarbleSolitaireModel model = new BitSetSolitaireModel("english");
+    model.move(3, 1, 3, 3);
+    ((Undoable) model).redo();
+  }
+
+  /**
+   * Tests the move log growing past its first array and reading moves back.
+   */
+  @Test
+  public void moveLog() {
+    MoveLog log = new MoveLog();
+    for (int move = 0; move < 100; move++) {
+      log.push(move);
+    }
+    assertEquals(100, log.size());
+    assertEquals(99, log.undo());
+    assertEquals(98, log.undo());
+    assertEquals(98, log.redo());
+    assertEquals(99, log.size());
+    assertEquals(42, log.get(42));
+    int[] first = {log.get(0), log.get(1)};
+    assertArrayEquals(new int[] {0, 1}, first);
+  }
+
+  /**
+   * Tests reading past the end of a move log.
+   */
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void moveLogOutOfRange() {
+    MoveLog log = new MoveLog();
+    log.push(7);
+    log.undo();
+    log.get(0);
+  }
+}
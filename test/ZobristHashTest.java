@@ -0,0 +1,119 @@
+import marblesolitaure.model.MarbleSolitaireModel;
+import marblesolitaure.model.MoveGenerator;
+import marblesolitaure.model.PackedMove;
+import marblesolitaure.model.ZobristHashed;
+import marblesolitaure.model.driver.BitSetSolitaireModel;
+import marblesolitaure.model.driver.BitboardSolitaireModel;
+import marblesolitaure.model.driver.BoardGeometry;
+import marblesolitaure.model.driver.BoardPosition;
+import marblesolitaure.model.driver.SolitaireFactory;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * A junit test suite for the position hashes kept by the models.
+ */
+public class ZobristHashTest {
+
+  /**
+   * Hashes a position from scratch.
+   * @param model - a model that can describe its board.
+   * @return - a long, the XOR of the keys of every space with a marble.
+   */
+  private long hashFromScratch(MarbleSolitaireModel model) {
+    BoardPosition board = (BoardPosition) model;
+    BoardGeometry geometry = board.getGeometry();
+    long hash = 0L;
+    for (int cell = 0; cell < geometry.getCellCount(); cell++) {
+      if (board.hasMarble(cell)) {
+        hash ^= ZobristHashed.key(geometry.getRow(cell), geometry.getCol(cell));
+      }
+    }
+    return hash;
+  }
+
+  /**
+   * Plays random games on several models of the same board at once, checking after every
+   * move that all of them have the hash of their position.
+   * @param random - the source of the moves.
+   * @param models - models of the same board, all in the same position.
+   */
+  private void playTogether(Random random, MarbleSolitaireModel... models) {
+    int[] moves = new int[256];
+    int count = ((MoveGenerator) models[0]).legalMoves(moves);
+    while (true) {
+      long hash = hashFromScratch(models[0]);
+      for (MarbleSolitaireModel model : models) {
+        assertEquals(hash, ((ZobristHashed) model).positionHash());
+      }
+      if (count == 0) {
+        break;
+      }
+      int move = moves[random.nextInt(count)];
+      for (MarbleSolitaireModel model : models) {
+        PackedMove.apply(model, move);
+      }
+      count = ((MoveGenerator) models[0]).legalMoves(moves);
+    }
+  }
+
+  /**
+   * Tests that every model keeps the same hash as the others through random games.
+   */
+  @Test
+  public void modelsAgree() {
+    Random random = new Random(9);
+    for (int game = 0; game < 10; game++) {
+      playTogether(random, SolitaireFactory.createModel("english"),
+              new BitboardSolitaireModel("english"), new BitSetSolitaireModel("english"));
+      playTogether(random, SolitaireFactory.createModel("european", 3, 1, 3),
+              new BitboardSolitaireModel("european", 3, 1, 3),
+              new BitSetSolitaireModel("european", 3, 1, 3));
+      playTogether(random, SolitaireFactory.createModel("triangular", 7),
+              new BitSetSolitaireModel("triangular", 7));
+      playTogether(random, SolitaireFactory.createModel("english", 5),
+              new BitSetSolitaireModel("english", 5));
+    }
+  }
+
+  /**
+   * Tests that the same position reached by different moves has the same hash, and that
+   * different positions have different hashes.
+   */
+  @Test
+  public void transpositions() {
+    MarbleSolitaireModel first = SolitaireFactory.createModel("english");
+    first.move(1, 3, 3, 3);
+    first.move(2, 1, 2, 3);
+    first.move(4, 1, 2, 1);
+    first.move(0, 2, 2, 2);
+    MarbleSolitaireModel second = SolitaireFactory.createModel("english");
+    second.move(1, 3, 3, 3);
+    second.move(2, 1, 2, 3);
+    second.move(0, 2, 2, 2);
+    second.move(4, 1, 2, 1);
+    assertEquals(first.getGameState(), second.getGameState());
+    assertEquals(((ZobristHashed) first).positionHash(), ((ZobristHashed) second).positionHash());
+
+    MarbleSolitaireModel other = SolitaireFactory.createModel("english");
+    other.move(3, 1, 3, 3);
+    assertNotEquals(((ZobristHashed) first).positionHash(),
+            ((ZobristHashed) other).positionHash());
+  }
+
+  /**
+   * Tests that a move changes the hash by the keys of exactly its three spaces.
+   */
+  @Test
+  public void moveFlipsThreeKeys() {
+    ZobristHashed model = (ZobristHashed) SolitaireFactory.createModel("triangular");
+    long before = model.positionHash();
+    ((MarbleSolitaireModel) model).move(2, 0, 0, 0);
+    assertEquals(before ^ ZobristHashed.key(2, 0) ^ ZobristHashed.key(1, 0)
+            ^ ZobristHashed.key(0, 0), model.positionHash());
+  }
+}